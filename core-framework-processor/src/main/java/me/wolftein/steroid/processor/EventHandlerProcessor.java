@@ -0,0 +1,236 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encapsulate the annotation processor that generates an {@code EventRegistration} for every type
+ * that contains {@code EventHandler}s, so the {@code EventManager} doesn't require reflection.
+ */
+@SupportedAnnotationTypes(EventHandlerProcessor.ANNOTATION_NAME)
+public final class EventHandlerProcessor extends AbstractProcessor {
+    /**
+     * The name of the annotation being processed.
+     */
+    protected final static String ANNOTATION_NAME = "me.wolftein.steroid.framework.event.annotation.EventHandler";
+
+    /**
+     * The name of the base class of any event.
+     */
+    private final static String EVENT_NAME = "me.wolftein.steroid.framework.event.Event";
+
+    /**
+     * The name of the interface being generated.
+     */
+    private final static String REGISTRATION_NAME = "me.wolftein.steroid.framework.event.EventRegistration";
+
+    /**
+     * The suffix of the generated classes (Must match {@code EventRegistration.SUFFIX}).
+     */
+    private final static String REGISTRATION_SUFFIX = "$$EventRegistration";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment environment) {
+        final TypeElement nEventType = processingEnv.getElementUtils().getTypeElement(EVENT_NAME);
+        final Map<TypeElement, List<ExecutableElement>> nListeners = new LinkedHashMap<>();
+        final Set<TypeElement> nReflective = new HashSet<>();
+
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : environment.getElementsAnnotatedWith(annotation)) {
+                final ExecutableElement nMethod = (ExecutableElement) element;
+                if (!isValidHandler(nMethod, nEventType)) {
+                    continue;
+                }
+                final TypeElement nListener = (TypeElement) nMethod.getEnclosingElement();
+                if (isAccessible(nMethod)) {
+                    nListeners.computeIfAbsent(nListener, T -> new ArrayList<>()).add(nMethod);
+                } else {
+                    nReflective.add(nListener);
+                }
+            }
+        }
+
+        //! A type with any handler that cannot be reached is entirely registered by reflection.
+        nListeners.keySet().removeAll(nReflective);
+        nListeners.forEach(this::generate);
+        return true;
+    }
+
+    /**
+     * Check whenever the method can be called from a generated registration.
+     *
+     * @param method The method to check.
+     * @param event  The base class of any event.
+     *
+     * @return True if the method is a valid handler, false otherwise.
+     */
+    private boolean isValidHandler(ExecutableElement method, TypeElement event) {
+        if (method.getParameters().size() != 1) {
+            return error(method, "@EventHandler methods must have a single parameter.");
+        }
+        final TypeMirror nParameter = method.getParameters().get(0).asType();
+        if (!processingEnv.getTypeUtils().isAssignable(nParameter, event.asType())) {
+            return error(method, "@EventHandler methods must receive a subclass of Event.");
+        }
+        return true;
+    }
+
+    /**
+     * Check whenever the method can be reached from a generated registration.
+     * <br/>
+     * NOTE: Handlers that cannot be reached are still registered by reflection at runtime.
+     *
+     * @param method The method to check.
+     *
+     * @return True if the method can be reached, false otherwise.
+     */
+    private boolean isAccessible(ExecutableElement method) {
+        final Set<Modifier> nModifiers = method.getModifiers();
+        if (nModifiers.contains(Modifier.PRIVATE) || nModifiers.contains(Modifier.STATIC)) {
+            return warning(method, "@EventHandler methods that are private or static are registered by reflection.");
+        }
+        for (Element nParent = method.getEnclosingElement();
+             nParent instanceof TypeElement; nParent = nParent.getEnclosingElement()) {
+            if (nParent.getModifiers().contains(Modifier.PRIVATE)) {
+                return warning(method, "@EventHandler methods inside a private type are registered by reflection.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate the registration of the given listener.
+     *
+     * @param listener The type that contains the handlers.
+     * @param methods  All handlers of the type.
+     */
+    private void generate(TypeElement listener, List<ExecutableElement> methods) {
+        final String nPackage
+                = processingEnv.getElementUtils().getPackageOf(listener).getQualifiedName().toString();
+        final String nBinaryName
+                = processingEnv.getElementUtils().getBinaryName(listener).toString();
+        final String nName
+                = (nPackage.isEmpty() ? nBinaryName : nBinaryName.substring(nPackage.length() + 1))
+                + REGISTRATION_SUFFIX;
+        final String nType = processingEnv.getTypeUtils().erasure(listener.asType()).toString();
+
+        try (final PrintWriter nWriter = new PrintWriter(processingEnv.getFiler().createSourceFile(
+                nPackage.isEmpty() ? nName : nPackage + "." + nName, listener).openWriter())) {
+            if (!nPackage.isEmpty()) {
+                nWriter.println("package " + nPackage + ";");
+                nWriter.println();
+            }
+            nWriter.println("/**");
+            nWriter.println(" * Generated by " + getClass().getName() + " for {@link " + nType + "}.");
+            nWriter.println(" */");
+            nWriter.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            nWriter.println("public final class " + nName + " implements " + REGISTRATION_NAME + " {");
+            nWriter.println("    @Override");
+            nWriter.println("    public void register(me.wolftein.steroid.framework.event.EventManager manager,"
+                    + " Object listener, boolean isWeak) {");
+            nWriter.println("        final " + nType + " nListener = (" + nType + ") listener;");
+            for (final ExecutableElement method : methods) {
+                final String nEvent = processingEnv.getTypeUtils()
+                        .erasure(method.getParameters().get(0).asType()).toString();
+                nWriter.println("        manager.registerEvent(nListener, " + nEvent + ".class, "
+                        + "(java.util.function.BiConsumer<" + nType + ", " + nEvent + ">) "
+                        + nType + "::" + method.getSimpleName() + ", "
+                        + "me.wolftein.steroid.framework.event.EventPriority." + getPriority(method) + ", "
+                        + "\"" + method.getSimpleName() + "\", isWeak);");
+            }
+            nWriter.println("    }");
+            nWriter.println("}");
+        } catch (IOException exception) {
+            error(listener, "Failed to generate the registration: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the name of the priority of the handler.
+     *
+     * @param method The handler to retrieve the priority from.
+     *
+     * @return The name of the priority of the handler.
+     */
+    private String getPriority(ExecutableElement method) {
+        for (final AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().toString().equals(ANNOTATION_NAME)) {
+                continue;
+            }
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("priority")) {
+                    return ((VariableElement) entry.getValue().getValue()).getSimpleName().toString();
+                }
+            }
+        }
+        return "NORMAL";
+    }
+
+    /**
+     * Report an error into the compiler.
+     *
+     * @param element The element that caused the error.
+     * @param message The message of the error.
+     *
+     * @return Always false.
+     */
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    /**
+     * Report a warning into the compiler.
+     *
+     * @param element The element that caused the warning.
+     * @param message The message of the warning.
+     *
+     * @return Always false.
+     */
+    private boolean warning(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encapsulate the bootstrap class for the embedded server.
+ * <br/>
+ * Usage: <code>Bootstrap [port] [npcs] [interval-ms]</code>
+ */
+public final class Bootstrap {
+    /**
+     * The entry of the server.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nPort = (args.length > 0 ? Integer.parseInt(args[0]) : 7667);
+        final int nPopulation = (args.length > 1 ? Integer.parseInt(args[1]) : 50);
+        final long nInterval = (args.length > 2 ? Long.parseLong(args[2]) : 500L);
+
+        final GameServer nServer = new GameServer(nPort);
+        nServer.setPopulation(nPopulation, nInterval, TimeUnit.MILLISECONDS);
+        nServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(nServer::stop));
+
+        System.out.printf("Listening on %s with %d NPC(s)%n", nServer.getAddress(), nServer.getNpcCount());
+        while (nServer.isRunning()) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            System.out.printf("%d player(s), %d message(s) received, %d message(s) sent%n",
+                    nServer.getPlayerCount(), nServer.getReceivedCount(), nServer.getSentCount());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.server;
+
+import io.netty.channel.Channel;
+
+/**
+ * Encapsulate an entity (player or NPC) of the {@link GameWorld}.
+ * <br/>
+ * NOTE: This class is confined to the thread of the world, hence it isn't thread-safe.
+ */
+final class GameEntity {
+    private final long mId;
+    private final String mName;
+    private final Channel mChannel;
+    private int mX;
+    private int mY;
+    private int mHeading = 1;
+    private int mHealth;
+    private int mMaxHealth;
+    private int mManapoint;
+    private int mMaxManapoint;
+
+    /**
+     * Default constructor.
+     *
+     * @param id           The unique identifier of the entity.
+     * @param name         The name of the entity.
+     * @param channel      The channel of the entity, or null if the entity is a NPC.
+     * @param maxHealth    The maximum health of the entity.
+     * @param maxManapoint The maximum mana of the entity.
+     */
+    GameEntity(long id, String name, Channel channel, int maxHealth, int maxManapoint) {
+        this.mId = id;
+        this.mName = name;
+        this.mChannel = channel;
+        this.mHealth = this.mMaxHealth = maxHealth;
+        this.mManapoint = this.mMaxManapoint = maxManapoint;
+    }
+
+    /**
+     * Retrieves the unique identifier of the entity.
+     *
+     * @return The unique identifier of the entity.
+     */
+    public long getId() {
+        return mId;
+    }
+
+    /**
+     * Retrieves the name of the entity.
+     *
+     * @return The name of the entity.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Retrieves the channel of the entity.
+     *
+     * @return The channel of the entity, or null if the entity is a NPC.
+     */
+    public Channel getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * Check if the entity is a player.
+     *
+     * @return True if the entity is a player, false if is a NPC.
+     */
+    public boolean isPlayer() {
+        return mChannel != null;
+    }
+
+    /**
+     * Changes the position of the entity.
+     *
+     * @param x The new x coordinate of the entity.
+     * @param y The new y coordinate of the entity.
+     */
+    public void setPosition(int x, int y) {
+        this.mX = x;
+        this.mY = y;
+    }
+
+    /**
+     * Retrieves the x coordinate of the entity.
+     *
+     * @return The x coordinate of the entity.
+     */
+    public int getX() {
+        return mX;
+    }
+
+    /**
+     * Retrieves the y coordinate of the entity.
+     *
+     * @return The y coordinate of the entity.
+     */
+    public int getY() {
+        return mY;
+    }
+
+    /**
+     * Changes the heading of the entity.
+     *
+     * @param heading The new heading (as sent by the protocol) of the entity.
+     */
+    public void setHeading(int heading) {
+        this.mHeading = heading;
+    }
+
+    /**
+     * Retrieves the heading of the entity.
+     *
+     * @return The heading (as sent by the protocol) of the entity.
+     */
+    public int getHeading() {
+        return mHeading;
+    }
+
+    /**
+     * Changes the health of the entity.
+     *
+     * @param health The new health of the entity (clamped to [0, max]).
+     */
+    public void setHealth(int health) {
+        this.mHealth = Math.max(0, Math.min(mMaxHealth, health));
+    }
+
+    /**
+     * Retrieves the health of the entity.
+     *
+     * @return The health of the entity.
+     */
+    public int getHealth() {
+        return mHealth;
+    }
+
+    /**
+     * Retrieves the maximum health of the entity.
+     *
+     * @return The maximum health of the entity.
+     */
+    public int getMaxHealth() {
+        return mMaxHealth;
+    }
+
+    /**
+     * Changes the mana of the entity.
+     *
+     * @param manapoint The new mana of the entity (clamped to [0, max]).
+     */
+    public void setManapoint(int manapoint) {
+        this.mManapoint = Math.max(0, Math.min(mMaxManapoint, manapoint));
+    }
+
+    /**
+     * Retrieves the mana of the entity.
+     *
+     * @return The mana of the entity.
+     */
+    public int getManapoint() {
+        return mManapoint;
+    }
+
+    /**
+     * Retrieves the maximum mana of the entity.
+     *
+     * @return The maximum mana of the entity.
+     */
+    public int getMaxManapoint() {
+        return mMaxManapoint;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.server;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import me.wolftein.steroid.framework.protocol.SessionInflater;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate an embedded WebSocket server that speaks the same JSON protocol of the game server, which simulates a
+ * configurable map populated by wandering NPC(s), so the whole client can be exercised (and benchmarked) offline.
+ * <br/>
+ * NOTE: The sockets are served by a pool of NIO threads, while the whole simulation runs on a single thread.
+ */
+public final class GameServer {
+    /**
+     * The maximum length of a frame (or handshake) sent by a client.
+     */
+    private final static int MAX_CONTENT_LENGTH = 65536;
+
+    private final int mPort;
+    private int mWidth = 30;
+    private int mHeight = 30;
+    private int mPopulation = 0;
+    private long mTickInterval = 500L;
+    private int mWorkerThreads = 0;
+    private boolean isAutoRegister = true;
+    private boolean isCompressionAllowed = true;
+    private String[] mMessageOfTheDay = {"Welcome to the local server!"};
+
+    private final LongAdder mReceived = new LongAdder();
+    private final LongAdder mSent = new LongAdder();
+    private volatile int mPlayerCount;
+
+    private EventLoopGroup mBossGroup;
+    private EventLoopGroup mWorkerGroup;
+    private EventExecutorGroup mWorldGroup;
+    private EventExecutor mWorldExecutor;
+    private GameWorld mWorld;
+    private Channel mChannel;
+
+    /**
+     * Default constructor.
+     *
+     * @param port The port to listen on, or zero to pick any free port.
+     */
+    public GameServer(int port) {
+        this.mPort = port;
+    }
+
+    /**
+     * Changes the size of the map.
+     * <br/>
+     * NOTE: The default size (30x30) is the size of the map of the client.
+     *
+     * @param width  The width of the map.
+     * @param height The height of the map.
+     */
+    public void setMapSize(int width, int height) {
+        if (width < 4 || height < 4) {
+            throw new IllegalArgumentException("The map must be at least 4x4");
+        }
+        checkNotStarted();
+        this.mWidth = width;
+        this.mHeight = height;
+    }
+
+    /**
+     * Changes the population of the map.
+     *
+     * @param npcs     The amount of NPC(s) of the map.
+     * @param interval The interval between each step of every NPC.
+     * @param unit     The unit of the interval.
+     */
+    public void setPopulation(int npcs, long interval, TimeUnit unit) {
+        if (npcs < 0 || interval <= 0) {
+            throw new IllegalArgumentException("Invalid population " + npcs + " every " + interval + " " + unit);
+        }
+        checkNotStarted();
+        this.mPopulation = npcs;
+        this.mTickInterval = unit.toMillis(interval);
+    }
+
+    /**
+     * Changes the amount of threads that serve the sockets.
+     *
+     * @param threads The amount of threads, or zero to let Netty decide.
+     */
+    public void setWorkerThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Invalid amount of threads " + threads);
+        }
+        checkNotStarted();
+        this.mWorkerThreads = threads;
+    }
+
+    /**
+     * Changes whenever unknown accounts are registered on login (enabled by default).
+     *
+     * @param isAutoRegister True to register unknown accounts on login, false to reject them.
+     */
+    public void setAutoRegister(boolean isAutoRegister) {
+        checkNotStarted();
+        this.isAutoRegister = isAutoRegister;
+    }
+
+    /**
+     * Changes whenever clients may negotiate permessage-deflate (enabled by default).
+     *
+     * @param isAllowed True to allow compression, false otherwise.
+     */
+    public void setCompressionAllowed(boolean isAllowed) {
+        checkNotStarted();
+        this.isCompressionAllowed = isAllowed;
+    }
+
+    /**
+     * Changes the message of the day, sent to every player that logs in.
+     *
+     * @param lines The lines of the message.
+     */
+    public void setMessageOfTheDay(String... lines) {
+        checkNotStarted();
+        this.mMessageOfTheDay = lines.clone();
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @throws InterruptedException If the thread has been interrupted while binding.
+     */
+    public synchronized void start() throws InterruptedException {
+        checkNotStarted();
+        if (mPopulation >= (mWidth - 3) * (mHeight - 3)) {
+            throw new IllegalStateException("The population doesn't fit in a " + mWidth + "x" + mHeight + " map");
+        }
+        mWorld = new GameWorld(mWidth, mHeight, mPopulation, isAutoRegister, mMessageOfTheDay, mSent);
+        mWorldGroup = new DefaultEventExecutorGroup(1);
+        mWorldExecutor = mWorldGroup.next();
+        mBossGroup = new NioEventLoopGroup(1);
+        mWorkerGroup = new NioEventLoopGroup(mWorkerThreads);
+
+        final ServerBootstrap nBootstrap = new ServerBootstrap()
+                .group(mBossGroup, mWorkerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        final ChannelPipeline nPipeline = ch.pipeline();
+                        nPipeline.addLast(new HttpServerCodec());
+                        nPipeline.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                        if (isCompressionAllowed) {
+                            //! Clients may negotiate permessage-deflate, which is inflated by the JDK.
+                            nPipeline.addLast(new WebSocketServerExtensionHandler(
+                                    SessionInflater.wrap(new PerMessageDeflateServerExtensionHandshaker())));
+                        }
+                        nPipeline.addLast(new WebSocketServerProtocolHandler(
+                                "/", null, isCompressionAllowed, MAX_CONTENT_LENGTH));
+                        nPipeline.addLast(new GameServerHandler(GameServer.this));
+                    }
+                });
+        try {
+            mChannel = nBootstrap.bind(mPort).sync().channel();
+        } catch (InterruptedException | RuntimeException exception) {
+            stop();
+            throw exception;
+        }
+
+        if (mPopulation > 0) {
+            mWorldExecutor.scheduleAtFixedRate(
+                    () -> run(GameWorld::onTick), mTickInterval, mTickInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the server, disconnecting every player.
+     */
+    public synchronized void stop() {
+        if (mChannel != null) {
+            mChannel.close().syncUninterruptibly();
+            mChannel = null;
+        }
+
+        //! The sockets are closed first, so the world can still handle every disconnection.
+        if (mBossGroup != null) {
+            mBossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            mWorkerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            mWorldGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            mBossGroup = mWorkerGroup = null;
+            mWorldGroup = null;
+            mWorldExecutor = null;
+            mWorld = null;
+            mPlayerCount = 0;
+        }
+    }
+
+    /**
+     * Check if the server is running.
+     *
+     * @return True if the server is running, false otherwise.
+     */
+    public synchronized boolean isRunning() {
+        return mChannel != null;
+    }
+
+    /**
+     * Retrieves the address that clients should connect to.
+     *
+     * @return The address of the server (e.g ws://127.0.0.1:7667/).
+     */
+    public synchronized String getAddress() {
+        if (mChannel == null) {
+            throw new IllegalStateException("The server isn't running");
+        }
+        return "ws://127.0.0.1:" + ((InetSocketAddress) mChannel.localAddress()).getPort() + "/";
+    }
+
+    /**
+     * Retrieves the amount of players online.
+     *
+     * @return The amount of players online.
+     */
+    public int getPlayerCount() {
+        return mPlayerCount;
+    }
+
+    /**
+     * Retrieves the amount of NPC(s) of the map.
+     *
+     * @return The amount of NPC(s) of the map.
+     */
+    public int getNpcCount() {
+        return mPopulation;
+    }
+
+    /**
+     * Retrieves the amount of messages received from every client.
+     *
+     * @return The amount of messages received.
+     */
+    public long getReceivedCount() {
+        return mReceived.sum();
+    }
+
+    /**
+     * Retrieves the amount of messages sent to every client.
+     *
+     * @return The amount of messages sent.
+     */
+    public long getSentCount() {
+        return mSent.sum();
+    }
+
+    /**
+     * Handle a message received by {@link GameServerHandler}.
+     */
+    void onMessageFromHandler() {
+        mReceived.increment();
+    }
+
+    /**
+     * Submits an action to be executed on the thread of the world.
+     *
+     * @param action The action to execute.
+     */
+    void submit(Consumer<GameWorld> action) {
+        final EventExecutor nExecutor = mWorldExecutor;
+        if (nExecutor != null && !nExecutor.isShuttingDown()) {
+            nExecutor.execute(() -> run(action));
+        }
+    }
+
+    /**
+     * Executes an action on the world, and flushes everything that has been written by it.
+     */
+    private void run(Consumer<GameWorld> action) {
+        action.accept(mWorld);
+        mWorld.flush();
+        mPlayerCount = mWorld.getPlayerCount();
+    }
+
+    /**
+     * Check if the server hasn't been started.
+     */
+    private void checkNotStarted() {
+        if (mChannel != null) {
+            throw new IllegalStateException("The server is already running");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.server;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+/**
+ * Encapsulate the handler that decodes every message of a client, and hands it over to the {@link GameWorld}.
+ */
+final class GameServerHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+    private final GameServer mServer;
+
+    /**
+     * Default constructor.
+     *
+     * @param server The server that owns the handler.
+     */
+    GameServerHandler(GameServer server) {
+        this.mServer = server;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void messageReceived(ChannelHandlerContext ctx, TextWebSocketFrame msg) throws Exception {
+        final JsonObject nMessage = JsonObject.readFrom(msg.text());
+        final JsonValue nFunction = nMessage.get("function");
+        final JsonValue nData = nMessage.get("data");
+        if (nFunction == null || nData == null || !nData.isObject()) {
+            return;
+        }
+        mServer.onMessageFromHandler();
+
+        final Channel nChannel = ctx.channel();
+        final JsonObject nObject = nData.asObject();
+        switch (nFunction.asString()) {
+            case "CONNECT": {
+                final String nName = getString(nObject, "name");
+                final String nPassword = getString(nObject, "password");
+                mServer.submit(T -> T.onLogin(nChannel, nName, nPassword));
+                break;
+            }
+            case "REGISTER": {
+                final String nName = getString(nObject, "name");
+                final String nPassword = getString(nObject, "password");
+                mServer.submit(T -> T.onRegister(nChannel, nName, nPassword));
+                break;
+            }
+            case "POS": {
+                final int nDirection = getInt(nObject, "direccion");
+                mServer.submit(T -> T.onMove(nChannel, nDirection));
+                break;
+            }
+            case "UITEM": {
+                final int nSlot = getInt(nObject, "item");
+                mServer.submit(T -> T.onUse(nChannel, nSlot));
+                break;
+            }
+            case "ATKHECHI": {
+                final JsonValue nPosition = nObject.get("pos");
+                if (nPosition != null && nPosition.isObject()) {
+                    final int nX = getInt(nPosition.asObject(), "x");
+                    final int nY = getInt(nPosition.asObject(), "y");
+                    mServer.submit(T -> T.onSpell(nChannel, nX, nY));
+                }
+                break;
+            }
+            default:
+                //! RDIALOG (and any unknown message) has no effect on the simulation.
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        final Channel nChannel = ctx.channel();
+        mServer.submit(T -> T.onLogout(nChannel));
+
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        ctx.close();
+    }
+
+    /**
+     * Retrieves a string property of the object.
+     */
+    private static String getString(JsonObject object, String name) {
+        final JsonValue nValue = object.get(name);
+        return (nValue == null ? "" : nValue.isString() ? nValue.asString() : nValue.toString());
+    }
+
+    /**
+     * Retrieves an integer property of the object (the client sends them either as number or string).
+     */
+    private static int getInt(JsonObject object, String name) {
+        final JsonValue nValue = object.get(name);
+        if (nValue == null) {
+            return 0;
+        } else if (nValue.isNumber()) {
+            return nValue.asInt();
+        }
+        try {
+            return Integer.parseInt(getString(object, name));
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+}
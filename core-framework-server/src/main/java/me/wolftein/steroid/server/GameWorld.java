@@ -0,0 +1,434 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.server;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.CharsetUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate the simulation of the {@link GameServer}, a rectangular map (surrounded by a blocked border, just
+ * like the map of the client) populated by players and wandering NPC(s).
+ * <br/>
+ * NOTE: This class is confined to the thread of the world, every message written is flushed once by {@link #flush()}.
+ */
+final class GameWorld {
+    private final static int PLAYER_HEALTH = 100;
+    private final static int PLAYER_MANAPOINT = 100;
+    private final static int NPC_HEALTH = 50;
+    private final static int POTION_AMOUNT = 20;
+    private final static int SPELL_DAMAGE = 25;
+    private final static int SPELL_COST = 10;
+
+    private final static int ERROR_INVALID = 1;
+    private final static int ERROR_NONE = 2;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final long[] mTiles;
+    private final Random mRandom = new Random();
+
+    private final Map<Long, GameEntity> mEntities = new HashMap<>();
+    private final Map<Channel, GameEntity> mPlayers = new HashMap<>();
+    private final List<GameEntity> mNpcs = new ArrayList<>();
+    private final Map<String, String> mAccounts = new HashMap<>();
+    private final Set<Channel> mDirty = new LinkedHashSet<>();
+
+    private final boolean isAutoRegister;
+    private final String[] mMessageOfTheDay;
+    private final LongAdder mSent;
+    private long mNextId = 1L;
+
+    /**
+     * Default constructor.
+     *
+     * @param width          The width of the map.
+     * @param height         The height of the map.
+     * @param population     The amount of NPC(s) of the map.
+     * @param isAutoRegister Whenever unknown accounts are registered on login.
+     * @param motd           The lines of the message of the day.
+     * @param sent           The counter of messages written.
+     */
+    GameWorld(int width, int height, int population, boolean isAutoRegister, String[] motd, LongAdder sent) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mTiles = new long[width * height];
+        this.isAutoRegister = isAutoRegister;
+        this.mMessageOfTheDay = motd;
+        this.mSent = sent;
+
+        for (int i = 0; i < population; i++) {
+            final GameEntity nNpc = new GameEntity(mNextId++, "NPC " + (i + 1), null, NPC_HEALTH, 0);
+            spawn(nNpc);
+            mNpcs.add(nNpc);
+        }
+    }
+
+    /**
+     * Retrieves the amount of players online.
+     *
+     * @return The amount of players online.
+     */
+    public int getPlayerCount() {
+        return mPlayers.size();
+    }
+
+    /**
+     * Retrieves the amount of NPC(s).
+     *
+     * @return The amount of NPC(s).
+     */
+    public int getNpcCount() {
+        return mNpcs.size();
+    }
+
+    /**
+     * Handle CONNECT, logs a player into the world.
+     *
+     * @param channel  The channel of the player.
+     * @param name     The name of the account.
+     * @param password The password of the account.
+     */
+    public void onLogin(Channel channel, String name, String password) {
+        if (mPlayers.containsKey(channel)) {
+            return;
+        }
+        final String nPassword = mAccounts.get(name);
+        if (nPassword == null && !isAutoRegister) {
+            write(channel, encode("ERRLOGIN", newError(ERROR_INVALID, "The account doesn't exist")));
+            return;
+        } else if (nPassword != null && !nPassword.equals(password)) {
+            write(channel, encode("ERRLOGIN", newError(ERROR_INVALID, "The password is invalid")));
+            return;
+        } else if (mPlayers.values().stream().anyMatch(T -> T.getName().equals(name))) {
+            write(channel, encode("ERRLOGIN", newError(ERROR_INVALID, "The account is already online")));
+            return;
+        }
+        mAccounts.putIfAbsent(name, password);
+
+        final GameEntity nPlayer = new GameEntity(mNextId++, name, channel, PLAYER_HEALTH, PLAYER_MANAPOINT);
+        if (!spawn(nPlayer)) {
+            write(channel, encode("ERRLOGIN", newError(ERROR_INVALID, "The world is full")));
+            return;
+        }
+
+        //! The player is created before any other entity, otherwise the client wouldn't know who it is.
+        final JsonArray nMotd = new JsonArray();
+        for (final String line : mMessageOfTheDay) {
+            nMotd.add(line);
+        }
+        write(channel, encode("SENDPJME", new JsonObject()
+                .add("personaje", newCharacter(nPlayer).add("heading", nPlayer.getHeading()))
+                .add("descClient", nMotd)));
+        for (final GameEntity entity : mEntities.values()) {
+            if (entity != nPlayer) {
+                write(channel, encode("SENDPJ", new JsonObject().add("personaje", newCharacter(entity))));
+            }
+        }
+        mPlayers.put(channel, nPlayer);
+
+        broadcast(encode("SENDPJ", new JsonObject().add("personaje", newCharacter(nPlayer))), nPlayer);
+        broadcast(encode("ACTONLINE", new JsonObject().add("usersOnline", mPlayers.size())), null);
+    }
+
+    /**
+     * Handle REGISTER, creates a new account.
+     *
+     * @param channel  The channel of the player.
+     * @param name     The name of the account.
+     * @param password The password of the account.
+     */
+    public void onRegister(Channel channel, String name, String password) {
+        if (name.isEmpty() || mAccounts.putIfAbsent(name, password) != null) {
+            write(channel, encode("ERRREGISTER", newError(ERROR_INVALID, "The account already exist")));
+        } else {
+            write(channel, encode("ERRREGISTER", newError(ERROR_NONE, "The account has been created")));
+        }
+    }
+
+    /**
+     * Handle the disconnection of a player.
+     *
+     * @param channel The channel of the player.
+     */
+    public void onLogout(Channel channel) {
+        mDirty.remove(channel);
+
+        final GameEntity nPlayer = mPlayers.remove(channel);
+        if (nPlayer != null) {
+            remove(nPlayer);
+
+            broadcast(encode("DISCTPJ", new JsonObject().add("id", nPlayer.getId())), null);
+            broadcast(encode("ACTONLINE", new JsonObject().add("usersOnline", mPlayers.size())), null);
+        }
+    }
+
+    /**
+     * Handle POS, moves the player one tile into the given direction.
+     *
+     * @param channel   The channel of the player.
+     * @param direction The direction of the movement (1: north, 2: south, 3: east, 4: west).
+     */
+    public void onMove(Channel channel, int direction) {
+        final GameEntity nPlayer = mPlayers.get(channel);
+        if (nPlayer != null) {
+            move(nPlayer, direction);
+        }
+    }
+
+    /**
+     * Handle UITEM, uses a potion (odd slots restore health, even slots restore mana).
+     *
+     * @param channel The channel of the player.
+     * @param slot    The slot of the item.
+     */
+    public void onUse(Channel channel, int slot) {
+        final GameEntity nPlayer = mPlayers.get(channel);
+        if (nPlayer == null) {
+            return;
+        }
+        if ((slot & 1) != 0) {
+            nPlayer.setHealth(nPlayer.getHealth() + POTION_AMOUNT);
+            write(channel, encode("UPDTHP", new JsonObject().add("hp", nPlayer.getHealth())));
+        } else {
+            nPlayer.setManapoint(nPlayer.getManapoint() + POTION_AMOUNT);
+            write(channel, encode("UPDTMANA", new JsonObject().add("mana", nPlayer.getManapoint())));
+        }
+    }
+
+    /**
+     * Handle ATKHECHI, throws a spell that damages the entity at the given tile.
+     *
+     * @param channel The channel of the player.
+     * @param x       The x coordinate of the target.
+     * @param y       The y coordinate of the target.
+     */
+    public void onSpell(Channel channel, int x, int y) {
+        final GameEntity nPlayer = mPlayers.get(channel);
+        if (nPlayer == null || nPlayer.getManapoint() < SPELL_COST) {
+            return;
+        }
+        nPlayer.setManapoint(nPlayer.getManapoint() - SPELL_COST);
+        write(channel, encode("UPDTMANA", new JsonObject().add("mana", nPlayer.getManapoint())));
+
+        final GameEntity nTarget = (isInside(x, y) ? mEntities.get(mTiles[getIndex(x, y)]) : null);
+        if (nTarget == null) {
+            return;
+        }
+        nTarget.setHealth(nTarget.getHealth() - SPELL_DAMAGE);
+        if (nTarget.getHealth() > 0) {
+            if (nTarget.isPlayer()) {
+                write(nTarget.getChannel(), encode("UPDTHP", new JsonObject().add("hp", nTarget.getHealth())));
+            }
+            return;
+        }
+
+        //! The target has died, respawn it somewhere else with full stats.
+        remove(nTarget);
+        nTarget.setHealth(nTarget.getMaxHealth());
+        nTarget.setManapoint(nTarget.getMaxManapoint());
+        spawn(nTarget);
+
+        final JsonObject nPosition = newPosition(nTarget);
+        if (nTarget.isPlayer()) {
+            write(nTarget.getChannel(), encode("RESPAWNME", new JsonObject()
+                    .add("id", nTarget.getId())
+                    .add("pos", nPosition)
+                    .add("hp", nTarget.getHealth())
+                    .add("mana", nTarget.getManapoint())));
+        }
+        broadcast(encode("RESPAWN", new JsonObject().add("id", nTarget.getId()).add("pos", nPosition)), nTarget);
+    }
+
+    /**
+     * Handle the tick of the world, every NPC attempts to wander one tile.
+     */
+    public void onTick() {
+        for (final GameEntity npc : mNpcs) {
+            move(npc, 1 + mRandom.nextInt(4));
+        }
+    }
+
+    /**
+     * Flush every channel that has been written since the last flush.
+     */
+    public void flush() {
+        for (final Channel channel : mDirty) {
+            channel.flush();
+        }
+        mDirty.clear();
+    }
+
+    /**
+     * Moves an entity one tile into the given direction, and notify every player (including itself).
+     * <br/>
+     * NOTE: The directions follow the same (mirrored) axis of the client.
+     */
+    private void move(GameEntity entity, int direction) {
+        int nX = entity.getX(), nY = entity.getY();
+        switch (direction) {
+            case 1:
+                nY--;
+                break;
+            case 2:
+                nY++;
+                break;
+            case 3:
+                nX--;
+                break;
+            case 4:
+                nX++;
+                break;
+            default:
+                return;
+        }
+        entity.setHeading(direction);
+
+        if (isBlocked(nX, nY)) {
+            return;
+        }
+        mTiles[getIndex(entity.getX(), entity.getY())] = 0L;
+        mTiles[getIndex(nX, nY)] = entity.getId();
+        entity.setPosition(nX, nY);
+
+        broadcast(encode("ACTPOS", new JsonObject()
+                .add("id", entity.getId())
+                .add("x", nX)
+                .add("y", nY)), null);
+    }
+
+    /**
+     * Places an entity in a random free tile of the map.
+     *
+     * @return True if the entity has been placed, false if the map is full.
+     */
+    private boolean spawn(GameEntity entity) {
+        final int nWidth = mWidth - 3, nHeight = mHeight - 3;
+        for (int i = 0, j = nWidth * nHeight; i < j; i++) {
+            final int nX = 2 + mRandom.nextInt(nWidth);
+            final int nY = 2 + mRandom.nextInt(nHeight);
+            if (!isBlocked(nX, nY)) {
+                mTiles[getIndex(nX, nY)] = entity.getId();
+                mEntities.put(entity.getId(), entity);
+                entity.setPosition(nX, nY);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes an entity from the map.
+     */
+    private void remove(GameEntity entity) {
+        mTiles[getIndex(entity.getX(), entity.getY())] = 0L;
+        mEntities.remove(entity.getId());
+    }
+
+    /**
+     * Check if the given tile is inside the map.
+     */
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < mWidth && y < mHeight;
+    }
+
+    /**
+     * Check if the given tile is blocked (by the border or by another entity).
+     */
+    private boolean isBlocked(int x, int y) {
+        return x <= 1 || y <= 1 || x >= mWidth - 1 || y >= mHeight - 1 || mTiles[getIndex(x, y)] != 0L;
+    }
+
+    /**
+     * Retrieves the index of the given tile.
+     */
+    private int getIndex(int x, int y) {
+        return y * mWidth + x;
+    }
+
+    /**
+     * Writes a message to every player (except the given one), the message is encoded only once.
+     */
+    private void broadcast(ByteBuf message, GameEntity except) {
+        for (final GameEntity player : mPlayers.values()) {
+            if (player != except) {
+                write(player.getChannel(), message.duplicate().retain());
+            }
+        }
+        message.release();
+    }
+
+    /**
+     * Writes a message to the given channel (flushed on {@link #flush()}).
+     */
+    private void write(Channel channel, ByteBuf message) {
+        channel.write(new TextWebSocketFrame(message));
+        mDirty.add(channel);
+        mSent.increment();
+    }
+
+    /**
+     * Encodes a message of the protocol.
+     */
+    private static ByteBuf encode(String function, JsonObject data) {
+        final String nMessage = new JsonObject().add("function", function).add("data", data).toString();
+        return Unpooled.copiedBuffer(nMessage, CharsetUtil.UTF_8);
+    }
+
+    /**
+     * Creates the object that describes an error (or success) of login or register.
+     */
+    private static JsonObject newError(int error, String message) {
+        return new JsonObject().add("err", error).add("msg", message);
+    }
+
+    /**
+     * Creates the object that describes the position of the given entity.
+     */
+    private static JsonObject newPosition(GameEntity entity) {
+        return new JsonObject().add("x", entity.getX()).add("y", entity.getY());
+    }
+
+    /**
+     * Creates the object that describes the given entity.
+     */
+    private static JsonObject newCharacter(GameEntity entity) {
+        return new JsonObject()
+                .add("id", entity.getId())
+                .add("name", entity.getName())
+                .add("pos", newPosition(entity))
+                .add("hp", entity.getHealth())
+                .add("maxHp", entity.getMaxHealth())
+                .add("mana", entity.getManapoint())
+                .add("maxMana", entity.getMaxManapoint())
+                .add("esAdmin", 0);
+    }
+}
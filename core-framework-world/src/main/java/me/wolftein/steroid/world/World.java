@@ -78,6 +78,17 @@ public final class World {
         return getEntity(mCharacter.get());
     }
 
+    /**
+     * Retrieves the unique identifier of the entity that belongs to the player.
+     * <br/>
+     * NOTE: This is safe to call from any thread.
+     *
+     * @return The unique identifier of the entity that belongs to the player, or -1 if there isn't any.
+     */
+    public long getCharacterId() {
+        return mCharacter.get();
+    }
+
     /**
      * Retrieves an entity from the world.
      *
@@ -181,4 +192,13 @@ public final class World {
         mMap.setTile(nEntity.getX(), nEntity.getY(), id);
         return nEntity;
     }
+
+    /**
+     * Called when the world is no longer valid (e.g the connection has been lost) and must be rebuilt.
+     */
+    public void pfClear() {
+        mCharacter.set(-1L);
+        mEntities.clear();
+        mMap.clear();
+    }
 }
@@ -17,6 +17,8 @@
  */
 package me.wolftein.steroid.world;
 
+import java.util.Arrays;
+
 /**
  * Encapsulate the world map of the game framework.
  */
@@ -71,6 +73,13 @@ public final class WorldMap {
         return mTiles[getIndex(x, y)];
     }
 
+    /**
+     * Removes every entity from the map.
+     */
+    public void clear() {
+        Arrays.fill(mTiles, 0L);
+    }
+
     /**
      * Transform a pair of (x, y) into internal map coordinates.
      *
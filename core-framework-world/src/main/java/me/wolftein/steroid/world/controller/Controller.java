@@ -22,17 +22,32 @@ import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
 import com.gs.collections.impl.tuple.Tuples;
 import me.wolftein.steroid.framework.Application;
+import me.wolftein.steroid.framework.event.Event;
 import me.wolftein.steroid.framework.event.EventManager;
 import me.wolftein.steroid.framework.event.EventPriority;
 import me.wolftein.steroid.framework.event.annotation.EventHandler;
+import me.wolftein.steroid.framework.protocol.JsonReader;
+import me.wolftein.steroid.framework.protocol.MessageTemplate;
 import me.wolftein.steroid.framework.protocol.Session;
+import me.wolftein.steroid.framework.protocol.SessionDispatchMode;
+import me.wolftein.steroid.framework.protocol.SessionMetrics;
+import me.wolftein.steroid.framework.protocol.SessionOutboundQueue;
+import me.wolftein.steroid.framework.protocol.SessionOverflowPolicy;
+import me.wolftein.steroid.framework.protocol.SessionPriority;
+import me.wolftein.steroid.framework.protocol.SessionReconnectPolicy;
 import me.wolftein.steroid.framework.protocol.event.SessionConnectEvent;
 import me.wolftein.steroid.framework.protocol.event.SessionDisconnectEvent;
+import me.wolftein.steroid.framework.state.StateChannel;
+import me.wolftein.steroid.framework.state.StateSubscription;
 import me.wolftein.steroid.world.Heading;
 import me.wolftein.steroid.world.World;
 import me.wolftein.steroid.world.WorldEntity;
 import me.wolftein.steroid.world.event.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
 /**
  * Encapsulate the main protocol of the game framework.
  */
@@ -42,6 +57,14 @@ public final class Controller {
      */
     private final static String SERVER_ADDRESS = "ws://138.36.237.209:7667";
 
+    /**
+     * Pre-encoded messages that are sent frequently.
+     */
+    private final static MessageTemplate MESSAGE_MOVE = new MessageTemplate("POS", "{\"direccion\":\"?\"}");
+    private final static MessageTemplate MESSAGE_USE = new MessageTemplate("UITEM", "{\"item\":\"?\"}");
+    private final static MessageTemplate MESSAGE_SPELL
+            = new MessageTemplate("ATKHECHI", "{\"hechizo\":\"?\",\"pos\":{\"x\":?,\"y\":?}}", true);
+
     /**
      * Encapsulate the {@link me.wolftein.steroid.world.World} of the game.
      */
@@ -52,6 +75,11 @@ public final class Controller {
      */
     private final Application mFramework;
 
+    /**
+     * Encapsulate the latest event of each type of the player (e.g {@link PlayerJoinEvent}).
+     */
+    private final StateChannel<Class<? extends Event>, Event> mState = new StateChannel<>();
+
     /**
      * The number of players online in the world.
      */
@@ -63,6 +91,12 @@ public final class Controller {
     private boolean mConnected = false;
     private boolean mLogged = false;
 
+    /**
+     * The credentials of the latest authentication, used to authenticate again after reconnecting.
+     */
+    private volatile String mUsername;
+    private volatile String mPassword;
+
     /**
      * Constructor for {@link Controller}.
      *
@@ -78,22 +112,41 @@ public final class Controller {
         nEventManager.registerEvents(parent);
 
         final Session nSession = mFramework.getSession();
+        nSession.setReconnectPolicy(SessionReconnectPolicy.DEFAULT);
+
+        // The world is only accessed from the game loop, hence messages are applied there.
+        nSession.setDispatchMode(SessionDispatchMode.TICK);
+
+        // Outbound messages (while there is backpressure).
+        final SessionOutboundQueue nQueue = nSession.getOutboundQueue();
+        nQueue.setRule("CONNECT", SessionPriority.HIGH, SessionOverflowPolicy.QUEUE);
+        nQueue.setRule("REGISTER", SessionPriority.HIGH, SessionOverflowPolicy.QUEUE);
+        nQueue.setRule("UITEM", SessionPriority.HIGH, SessionOverflowPolicy.QUEUE);
+        nQueue.setRule("ATKHECHI", SessionPriority.HIGH, SessionOverflowPolicy.QUEUE);
+        nQueue.setRule("POS", SessionPriority.NORMAL, SessionOverflowPolicy.REPLACE);
+        nQueue.setRule("RDIALOG", SessionPriority.LOW, SessionOverflowPolicy.DROP);
+
+        // Round-trips (only accounted while the metrics of the session are enabled), every entity
+        // moves with ACTPOS, hence only the one of the character answers POS.
+        final SessionMetrics nMetrics = nSession.getMetrics();
+        nMetrics.addRoundTrip("CONNECT", "SENDPJME", "ERRLOGIN");
+        nMetrics.addRoundTrip("POS", T -> getLongFromReader(T, "id") == mWorld.getCharacterId(), "ACTPOS");
 
         // General messages.
-        nSession.addListener("ACTONLINE", T -> mOnline = T.getInt("usersOnline", 0));
+        nSession.addStreamListener("ACTONLINE", this::onMessageOnline);
 
         // Entities messages.
-        nSession.addListener("ACTPOS", this::onMessageEntityMove);
-        nSession.addListener("DELETEPJ", this::onMessageEntityRemove);
-        nSession.addListener("DISCTPJ", this::onMessageEntityRemove);
+        nSession.addStreamListener("ACTPOS", this::onMessageEntityMove);
+        nSession.addStreamListener("DELETEPJ", this::onMessageEntityRemove);
+        nSession.addStreamListener("DISCTPJ", this::onMessageEntityRemove);
         nSession.addListener("SENDPJ", this::onMessageEntityCreate);
         nSession.addListener("RESPAWN", this::onMessageEntityRespawn);
 
         // Player messages.
         nSession.addListener("SENDPJME", this::onMessagePlayerCreate);
         nSession.addListener("RESPAWNME", this::onMessagePlayerRespawn);
-        nSession.addListener("UPDTHP", this::onMessagePlayerUpdateHealth);
-        nSession.addListener("UPDTMANA", this::onMessagePlayerUpdateManapoint);
+        nSession.addStreamListener("UPDTHP", this::onMessagePlayerUpdateHealth);
+        nSession.addStreamListener("UPDTMANA", this::onMessagePlayerUpdateManapoint);
 
         nSession.addListener("ERRLOGIN", this::onMessagePlayerLoginResult);
         nSession.addListener("ERRREGISTER", this::onMessagePlayerRegisterResult);
@@ -136,34 +189,82 @@ public final class Controller {
     }
 
     /**
-     * Connects the session.
+     * Retrieves the latest event of the given type of the player.
+     *
+     * @param type The class of the event ({@link PlayerJoinEvent} or {@link PlayerUpdateStats}).
+     *
+     * @return The latest event of the given type or null if there isn't any.
      */
-    public void connect() {
-        if (!mConnected) {
-            mFramework.getSession().connect(SERVER_ADDRESS);
-        }
+    public <T extends Event> T getState(Class<T> type) {
+        return type.cast(mState.get(type));
+    }
+
+    /**
+     * Subscribe for the latest event of the given type of the player, the consumer receives the current
+     * event immediately (if any) and only the latest of those events published while it was busy.
+     *
+     * @param type     The class of the event ({@link PlayerJoinEvent} or {@link PlayerUpdateStats}).
+     * @param consumer The consumer of the events.
+     * @param executor The executor where to call the consumer.
+     *
+     * @return The subscription that has been created.
+     */
+    public <T extends Event> StateSubscription<Event> subscribeState(Class<T> type, Consumer<T> consumer,
+                                                                     Executor executor) {
+        return mState.subscribe(type, T -> consumer.accept(type.cast(T)), executor);
     }
 
     /**
-     * Disconnect the session.
+     * Connects the session without blocking the game loop.
+     *
+     * @return A future that is completed (on the game loop) once the session has been connected.
      */
-    public void disconnect() {
+    public CompletableFuture<Boolean> connect() {
+        return connect(SERVER_ADDRESS);
+    }
+
+    /**
+     * Connects the session to the given server (e.g a local one) without blocking the game loop.
+     *
+     * @param address The address of the server.
+     *
+     * @return A future that is completed (on the game loop) once the session has been connected.
+     */
+    public CompletableFuture<Boolean> connect(String address) {
         if (mConnected) {
-            mFramework.getSession().disconnect();
+            return CompletableFuture.completedFuture(Boolean.TRUE);
         }
+        return mFramework.getSession().connectAsync(address);
+    }
+
+    /**
+     * Disconnect the session without blocking the game loop.
+     *
+     * @return A future that is completed (on the game loop) once the session has been disconnected.
+     */
+    public CompletableFuture<Boolean> disconnect() {
+        mUsername = mPassword = null;
+
+        if (!mConnected) {
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        return mFramework.getSession().disconnectAsync();
     }
 
     /**
      * Authenticate the user.
      * <br/>
-     * NOTE: This action required to be connected.
+     * NOTE: This action required to be connected, and it's repeated automatically after reconnecting.
      *
      * @param username The username of the controller.
      * @param password The password of the controller.
      */
     public void authenticate(String username, String password) {
         if (mConnected && !mLogged) {
-            mFramework.getSession().send("CONNECT",
+            mUsername = username;
+            mPassword = password;
+
+            mFramework.getSession().sendImmediate("CONNECT",
                     Tuples.pair("name", username),
                     Tuples.pair("password", password));
         }
@@ -182,7 +283,7 @@ public final class Controller {
      */
     public void register(String username, String password, String email, boolean isMale, int race) {
         if (mConnected && !mLogged) {
-            mFramework.getSession().send("REGISTER",
+            mFramework.getSession().sendImmediate("REGISTER",
                     Tuples.pair("name", username),
                     Tuples.pair("password", password),
                     Tuples.pair("email", email),
@@ -218,8 +319,7 @@ public final class Controller {
         final boolean isAllowed = mLogged && mWorld.isValidMovementForCharacter(heading);
         if (isAllowed) {
             getWorld().getCharacter().setHeading(heading);
-            mFramework.getSession().send("POS",
-                    Tuples.pair("direccion", heading.ordinal() + 1));
+            mFramework.getSession().send(MESSAGE_MOVE, heading.ordinal() + 1);
         }
         return isAllowed;
     }
@@ -233,8 +333,7 @@ public final class Controller {
      */
     public void use(int slot) {
         if (mLogged) {
-            mFramework.getSession().send("UITEM",
-                    Tuples.pair("item", slot == 0 ? slot + 1 : slot));
+            mFramework.getSession().send(MESSAGE_USE, slot == 0 ? slot + 1 : slot);
         }
     }
 
@@ -249,9 +348,7 @@ public final class Controller {
      */
     public void throwSpell(int id, int x, int y) {
         if (mLogged) {
-            mFramework.getSession().send("ATKHECHI",
-                    Tuples.pair("hechizo", id),
-                    Tuples.pair("pos", new JsonObject().add("x", x).add("y", y)));
+            mFramework.getSession().send(MESSAGE_SPELL, id, x, y);
         }
     }
 
@@ -259,26 +356,56 @@ public final class Controller {
      * Handle {@link me.wolftein.steroid.framework.protocol.event.SessionConnectEvent}.
      */
     @EventHandler(priority = EventPriority.HIGH)
-    private void pfeOnSessionConnectEvent(SessionConnectEvent event) {
+    void pfeOnSessionConnectEvent(SessionConnectEvent event) {
         mConnected = true;
+
+        final String nUsername = mUsername;
+        final String nPassword = mPassword;
+        if (nUsername != null && nPassword != null) {
+            authenticate(nUsername, nPassword);
+        }
     }
 
     /**
      * Handle {@link me.wolftein.steroid.framework.protocol.event.SessionDisconnectEvent}.
      */
     @EventHandler(priority = EventPriority.HIGH_IGNORE_CANCELLED)
-    private void pfeOnSessionDisconnectEvent(SessionDisconnectEvent event) {
+    void pfeOnSessionDisconnectEvent(SessionDisconnectEvent event) {
         mConnected = mLogged = false;
+        mState.clear();
+
+        //! The world is rebuilt from scratch by the server once authenticated again, after every message
+        //! that is still pending has been applied.
+        mFramework.getScheduler().invokeTask(T -> {
+            mWorld.pfClear();
+            mOnline = 0;
+        });
     }
 
     /**
-     * Handle the message when an entity has been removed.
+     * Handle the message when the amount of online users has changed.
      *
-     * @param message The object to retrieve the information from.
+     * @param message The reader to retrieve the information from.
      */
-    private void onMessageEntityRemove(JsonObject message) {
-        final long nValue = getEntityIdFromValue(message.get("id"));
+    private void onMessageOnline(JsonReader message) {
+        mOnline = getIntFromReader(message, "usersOnline");
+    }
 
+    /**
+     * Handle the message when an entity has been removed.
+     *
+     * @param message The reader to retrieve the information from.
+     */
+    private void onMessageEntityRemove(JsonReader message) {
+        long nValue = 0L;
+        message.beginObject();
+        while (message.hasNext()) {
+            if (message.nextName().equals("id")) {
+                nValue = message.nextLong();
+            } else {
+                message.skipValue();
+            }
+        }
         mWorld.pfEntityUnregister(nValue);
     }
 
@@ -310,12 +437,28 @@ public final class Controller {
     /**
      * Handle the message when an entity has moved.
      *
-     * @param message The object to retrieve the information from.
-     */
-    private void onMessageEntityMove(JsonObject message) {
-        final long nValue = getEntityIdFromValue(message.get("id"));
-        final int nX = message.get("x").asInt();
-        final int nY = message.get("y").asInt();
+     * @param message The reader to retrieve the information from.
+     */
+    private void onMessageEntityMove(JsonReader message) {
+        long nValue = 0L;
+        int nX = 0, nY = 0;
+        message.beginObject();
+        while (message.hasNext()) {
+            switch (message.nextName()) {
+                case "id":
+                    nValue = message.nextLong();
+                    break;
+                case "x":
+                    nX = message.nextInt();
+                    break;
+                case "y":
+                    nY = message.nextInt();
+                    break;
+                default:
+                    message.skipValue();
+                    break;
+            }
+        }
 
         final WorldEntity nEntity = mWorld.pfEntityMove(nValue, nX, nY);
 
@@ -370,7 +513,9 @@ public final class Controller {
         for (int i = 0, j = nMotdArray.size(); i < j; i++) {
             nBuilder.append(nMotdArray.get(i).asString()).append("\n");
         }
-        mFramework.getEventManager().invokeAsyncEvent(new PlayerJoinEvent(nEntity, nBuilder.toString()));
+        final PlayerJoinEvent nEvent = new PlayerJoinEvent(nEntity, nBuilder.toString());
+        mState.publish(PlayerJoinEvent.class, nEvent);
+        mFramework.getEventManager().invokeAsyncEvent(nEvent);
     }
 
     /**
@@ -397,29 +542,33 @@ public final class Controller {
     /**
      * Handle the message when the player has updated health.
      *
-     * @param message The object to retrieve the information from.
+     * @param message The reader to retrieve the information from.
      */
-    private void onMessagePlayerUpdateHealth(JsonObject message) {
-        final int nHealth = message.get("hp").asInt();
+    private void onMessagePlayerUpdateHealth(JsonReader message) {
+        final int nHealth = getIntFromReader(message, "hp");
 
         final WorldEntity nEntity = mWorld.getCharacter();
         nEntity.setHealth(nHealth);
 
-        mFramework.getEventManager().invokeAsyncEvent(new PlayerUpdateStats(nEntity));
+        final PlayerUpdateStats nEvent = new PlayerUpdateStats(nEntity);
+        mState.publish(PlayerUpdateStats.class, nEvent);
+        mFramework.getEventManager().invokeAsyncEvent(nEvent);
     }
 
     /**
      * Handle the message when the player has updated mana.
      *
-     * @param message The object to retrieve the information from.
+     * @param message The reader to retrieve the information from.
      */
-    private void onMessagePlayerUpdateManapoint(JsonObject message) {
-        final int nManapoint = message.get("mana").asInt();
+    private void onMessagePlayerUpdateManapoint(JsonReader message) {
+        final int nManapoint = getIntFromReader(message, "mana");
 
         final WorldEntity nEntity = mWorld.getCharacter();
         nEntity.setManapoint(nManapoint);
 
-        mFramework.getEventManager().invokeAsyncEvent(new PlayerUpdateStats(nEntity));
+        final PlayerUpdateStats nEvent = new PlayerUpdateStats(nEntity);
+        mState.publish(PlayerUpdateStats.class, nEvent);
+        mFramework.getEventManager().invokeAsyncEvent(nEvent);
     }
 
     /**
@@ -446,6 +595,48 @@ public final class Controller {
         mFramework.getEventManager().invokeAsyncEvent(new PlayerErrorEvent(isValid, nMessage));
     }
 
+    /**
+     * Retrieves an integer property of the object from a {@link JsonReader}.
+     *
+     * @param message The reader to retrieve from.
+     * @param name    The name of the property.
+     *
+     * @return The value of the property, or zero if the object doesn't have it.
+     */
+    private int getIntFromReader(JsonReader message, String name) {
+        int nValue = 0;
+        message.beginObject();
+        while (message.hasNext()) {
+            if (message.nextName().equals(name)) {
+                nValue = message.nextInt();
+            } else {
+                message.skipValue();
+            }
+        }
+        return nValue;
+    }
+
+    /**
+     * Retrieves a long property of the object from a {@link JsonReader}.
+     *
+     * @param message The reader to retrieve from.
+     * @param name    The name of the property.
+     *
+     * @return The value of the property, or zero if the object doesn't have it.
+     */
+    private long getLongFromReader(JsonReader message, String name) {
+        long nValue = 0L;
+        message.beginObject();
+        while (message.hasNext()) {
+            if (message.nextName().equals(name)) {
+                nValue = message.nextLong();
+            } else {
+                message.skipValue();
+            }
+        }
+        return nValue;
+    }
+
     /**
      * Retrieves the unique identifier of the entity from a {@link com.eclipsesource.json.JsonValue}.
      * <br/>
@@ -18,12 +18,13 @@
 package me.wolftein.steroid.world.event;
 
 import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.IndexedEvent;
 import me.wolftein.steroid.world.WorldEntity;
 
 /**
  * Encapsulate an {@link Event} that define when {@link WorldEntity} is destroyed.
  */
-public final class EntityDestroyEvent extends Event {
+public final class EntityDestroyEvent extends Event implements IndexedEvent {
     private final WorldEntity mEntity;
 
     /**
@@ -42,4 +43,14 @@ public final class EntityDestroyEvent extends Event {
     public WorldEntity getEntity() {
         return mEntity;
     }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * NOTE: Events are indexed by the unique identifier of the entity.
+     */
+    @Override
+    public long getIndex() {
+        return mEntity.getId();
+    }
 }
\ No newline at end of file
@@ -18,12 +18,13 @@
 package me.wolftein.steroid.world.event;
 
 import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.IndexedEvent;
 import me.wolftein.steroid.world.WorldEntity;
 
 /**
  * Encapsulate an {@link Event} that define when {@link WorldEntity} is moved.
  */
-public final class EntityMoveEvent extends Event {
+public final class EntityMoveEvent extends Event implements IndexedEvent {
     private final WorldEntity mEntity;
 
     /**
@@ -60,4 +61,14 @@ public final class EntityMoveEvent extends Event {
     public int getY() {
         return mEntity.getY();
     }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * NOTE: Events are indexed by the unique identifier of the entity.
+     */
+    @Override
+    public long getIndex() {
+        return mEntity.getId();
+    }
 }
\ No newline at end of file
@@ -18,12 +18,13 @@
 package me.wolftein.steroid.world.event;
 
 import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.IndexedEvent;
 import me.wolftein.steroid.world.WorldEntity;
 
 /**
  * Encapsulate an {@link Event} that define when {@link WorldEntity} is created and its the player.
  */
-public final class PlayerJoinEvent extends Event {
+public final class PlayerJoinEvent extends Event implements IndexedEvent {
     private final WorldEntity mEntity;
     private final String mMessageOfTheDay;
 
@@ -53,4 +54,14 @@ public final class PlayerJoinEvent extends Event {
     public String getMessageOfTheDay() {
         return mMessageOfTheDay;
     }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * NOTE: Events are indexed by the unique identifier of the entity.
+     */
+    @Override
+    public long getIndex() {
+        return mEntity.getId();
+    }
 }
\ No newline at end of file
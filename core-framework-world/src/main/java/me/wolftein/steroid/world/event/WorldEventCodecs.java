@@ -0,0 +1,155 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.world.event;
+
+import me.wolftein.steroid.framework.event.journal.EventCodec;
+import me.wolftein.steroid.framework.event.journal.EventCodecs;
+import me.wolftein.steroid.world.Heading;
+import me.wolftein.steroid.world.WorldEntity;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encapsulate the {@link EventCodec}s of all world events.
+ */
+public final class WorldEventCodecs {
+    /**
+     * Register the codecs of all world events.
+     *
+     * @param codecs The registry where to register the codecs.
+     */
+    public static void register(EventCodecs codecs) {
+        codecs.register(EntityCreateEvent.class, new EventCodec<EntityCreateEvent>() {
+            @Override
+            public void encode(EntityCreateEvent event, ByteBuffer buffer) {
+                putEntity(buffer, event.getEntity());
+            }
+
+            @Override
+            public EntityCreateEvent decode(ByteBuffer buffer) {
+                return new EntityCreateEvent(getEntity(buffer));
+            }
+        });
+        codecs.register(EntityDestroyEvent.class, new EventCodec<EntityDestroyEvent>() {
+            @Override
+            public void encode(EntityDestroyEvent event, ByteBuffer buffer) {
+                putEntity(buffer, event.getEntity());
+            }
+
+            @Override
+            public EntityDestroyEvent decode(ByteBuffer buffer) {
+                return new EntityDestroyEvent(getEntity(buffer));
+            }
+        });
+        codecs.register(EntityMoveEvent.class, new EventCodec<EntityMoveEvent>() {
+            @Override
+            public void encode(EntityMoveEvent event, ByteBuffer buffer) {
+                putEntity(buffer, event.getEntity());
+            }
+
+            @Override
+            public EntityMoveEvent decode(ByteBuffer buffer) {
+                return new EntityMoveEvent(getEntity(buffer));
+            }
+        });
+        codecs.register(PlayerJoinEvent.class, new EventCodec<PlayerJoinEvent>() {
+            @Override
+            public void encode(PlayerJoinEvent event, ByteBuffer buffer) {
+                putEntity(buffer, event.getEntity());
+                EventCodec.putString(buffer, event.getMessageOfTheDay());
+            }
+
+            @Override
+            public PlayerJoinEvent decode(ByteBuffer buffer) {
+                return new PlayerJoinEvent(getEntity(buffer), EventCodec.getString(buffer));
+            }
+        });
+        codecs.register(PlayerUpdateStats.class, new EventCodec<PlayerUpdateStats>() {
+            @Override
+            public void encode(PlayerUpdateStats event, ByteBuffer buffer) {
+                putEntity(buffer, event.getEntity());
+            }
+
+            @Override
+            public PlayerUpdateStats decode(ByteBuffer buffer) {
+                return new PlayerUpdateStats(getEntity(buffer));
+            }
+        });
+        codecs.register(PlayerErrorEvent.class, new EventCodec<PlayerErrorEvent>() {
+            @Override
+            public void encode(PlayerErrorEvent event, ByteBuffer buffer) {
+                buffer.put((byte) (event.isValid() ? 1 : 0));
+                EventCodec.putString(buffer, event.getMessage());
+            }
+
+            @Override
+            public PlayerErrorEvent decode(ByteBuffer buffer) {
+                return new PlayerErrorEvent(buffer.get() == 1, EventCodec.getString(buffer));
+            }
+        });
+        codecs.register(PlayerRegisterEvent.class, new EventCodec<PlayerRegisterEvent>() {
+            @Override
+            public void encode(PlayerRegisterEvent event, ByteBuffer buffer) {
+                buffer.put((byte) (event.isValid() ? 1 : 0));
+                EventCodec.putString(buffer, event.getMessage());
+            }
+
+            @Override
+            public PlayerRegisterEvent decode(ByteBuffer buffer) {
+                return new PlayerRegisterEvent(buffer.get() == 1, EventCodec.getString(buffer));
+            }
+        });
+    }
+
+    /**
+     * Helper method to write an entity into a buffer.
+     *
+     * @param buffer The buffer where to write the entity.
+     * @param entity The entity to write.
+     */
+    private static void putEntity(ByteBuffer buffer, WorldEntity entity) {
+        buffer.putLong(entity.getId());
+        EventCodec.putString(buffer, entity.getName());
+        buffer.putInt(entity.getX()).putInt(entity.getY());
+        buffer.putInt(entity.getHealth()).putInt(entity.getMaxHealth());
+        buffer.putInt(entity.getManapoint()).putInt(entity.getMaxManapoint());
+        buffer.put((byte) (entity.getHeading() != null ? entity.getHeading().ordinal() : -1));
+        buffer.put((byte) (entity.isAdmin() ? 1 : 0));
+    }
+
+    /**
+     * Helper method to read an entity from a buffer.
+     *
+     * @param buffer The buffer where to read the entity from.
+     *
+     * @return A new entity with the fields that has been read.
+     */
+    private static WorldEntity getEntity(ByteBuffer buffer) {
+        final WorldEntity nEntity = new WorldEntity(buffer.getLong(), EventCodec.getString(buffer));
+        nEntity.setPosition(buffer.getInt(), buffer.getInt());
+        nEntity.setHealth(buffer.getInt());
+        nEntity.setMaxHealth(buffer.getInt());
+        nEntity.setManapoint(buffer.getInt());
+        nEntity.setMaxManapoint(buffer.getInt());
+
+        final byte nHeading = buffer.get();
+        nEntity.setHeading(nHeading >= 0 ? Heading.values()[nHeading] : null);
+        nEntity.setAdmin(buffer.get() == 1);
+        return nEntity;
+    }
+}
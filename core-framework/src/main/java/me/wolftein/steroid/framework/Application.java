@@ -19,6 +19,7 @@ package me.wolftein.steroid.framework;
 
 import me.wolftein.steroid.framework.event.EventManager;
 import me.wolftein.steroid.framework.protocol.Session;
+import me.wolftein.steroid.framework.protocol.SessionManager;
 import me.wolftein.steroid.framework.scheduler.Scheduler;
 
 /**
@@ -28,22 +29,92 @@ public final class Application {
     /**
      * An instance of the {@link Scheduler} that runs for 60fps.
      */
-    private final Scheduler mScheduler = new Scheduler(60L);
+    private final Scheduler mScheduler;
 
     /**
      * An instance of the {@link EventManager}.
      */
-    private final EventManager mEventManager = new EventManager(mScheduler);
+    private final EventManager mEventManager;
 
     /**
      * An instance of the {@link Session}.
      */
-    private final Session mSession = new Session(mEventManager);
+    private final Session mSession;
+
+    /**
+     * The manager of the {@link Session} (null if the session runs on its own event loop).
+     */
+    private final SessionManager mManager;
+
+    /**
+     * The listeners of the {@link Scheduler} that dispatch and flush the messages of the {@link Session}.
+     */
+    private final Runnable mDispatchListener;
+    private final Runnable mFlushListener;
+
+    /**
+     * True if the scheduler is owned (and therefore started and stopped) by the application.
+     */
+    private final boolean mOwner;
+
+    /**
+     * Default constructor for {@link Application}.
+     */
+    public Application() {
+        this(null);
+    }
+
+    /**
+     * Constructor for {@link Application} whose session runs on the shared event loop of a manager.
+     *
+     * @param manager The manager of the session, or null if the session runs on its own event loop.
+     */
+    public Application(SessionManager manager) {
+        this(manager, new Scheduler(60L), true);
+    }
+
+    /**
+     * Constructor for {@link Application} whose game loop is shared with other applications (e.g bots).
+     * <br/>
+     * NOTE: A shared scheduler is started (and stopped) by its owner, rather than by {@link #start()}.
+     *
+     * @param manager   The manager of the session, or null if the session runs on its own event loop.
+     * @param scheduler The scheduler of the application.
+     */
+    public Application(SessionManager manager, Scheduler scheduler) {
+        this(manager, scheduler, false);
+    }
+
+    /**
+     * Constructor for {@link Application}.
+     *
+     * @param manager   The manager of the session, or null if the session runs on its own event loop.
+     * @param scheduler The scheduler of the application.
+     * @param isOwner   True if the scheduler is owned by the application.
+     */
+    private Application(SessionManager manager, Scheduler scheduler, boolean isOwner) {
+        mScheduler = scheduler;
+        mEventManager = new EventManager(scheduler);
+        mManager = manager;
+        mSession = (manager != null ? manager.create(mEventManager) : new Session(mEventManager));
+        mOwner = isOwner;
+
+        // Messages received by the session are dispatched at the start of every tick (if enabled), and
+        // messages batched by the session are flushed at the end of every tick.
+        mDispatchListener = mSession::dispatch;
+        mFlushListener = mSession::flush;
+        mScheduler.addTickStartListener(mDispatchListener);
+        mScheduler.addTickListener(mFlushListener);
+    }
 
     /**
      * Start the execution of the framework.
      */
     public void start() {
+        if (!mOwner) {
+            throw new IllegalStateException(
+                    "Trying to execute a shared scheduler, which is executed by its owner.");
+        }
         if (mScheduler.isActive()) {
             throw new IllegalStateException(
                     "Trying to execute the scheduler which is already being executing.");
@@ -55,6 +126,10 @@ public final class Application {
      * Stops the execution of the framework.
      */
     public void stop() {
+        if (!mOwner) {
+            throw new IllegalStateException(
+                    "Trying to stop a shared scheduler, which is stopped by its owner.");
+        }
         if (!mScheduler.isActive()) {
             throw new IllegalStateException(
                     "Trying to stop the scheduler which is already stopped.");
@@ -62,6 +137,22 @@ public final class Application {
         mScheduler.stop();
     }
 
+    /**
+     * Destroys the framework, detaching it from the scheduler and destroying its session.
+     * <br/>
+     * NOTE: This is how an application leaves a shared scheduler, which keeps running for the others.
+     */
+    public void destroy() {
+        mScheduler.removeTickStartListener(mDispatchListener);
+        mScheduler.removeTickListener(mFlushListener);
+
+        if (mManager != null) {
+            mManager.destroy(mSession);
+        } else {
+            mSession.destroy();
+        }
+    }
+
     /**
      * Retrieves the version of the framework.
      *
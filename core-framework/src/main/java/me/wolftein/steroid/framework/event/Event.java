@@ -17,10 +17,28 @@
  */
 package me.wolftein.steroid.framework.event;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Encapsulate the base class for any event implementation.
  */
 public abstract class Event {
+    /**
+     * The next dense identifier to assign to a type of event.
+     */
+    private final static AtomicInteger TYPE_INDEX = new AtomicInteger();
+
+    /**
+     * The dense identifier assigned to each type of event (once per type).
+     */
+    private final static ClassValue<Integer> TYPES = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return TYPE_INDEX.getAndIncrement();
+        }
+    };
+
+    private final int mType;
     private boolean mCancelled;
     private boolean mCancellable;
 
@@ -30,6 +48,7 @@ public abstract class Event {
      * @param cancellable True if the event is allowed to be cancelled, false otherwise.
      */
     public Event(boolean cancellable) {
+        this.mType = getType(getClass());
         this.mCancelled = false;
         this.mCancellable = cancellable;
     }
@@ -53,4 +72,26 @@ public abstract class Event {
     public final void setCancelled(boolean cancel) {
         mCancelled = cancel;
     }
+
+    /**
+     * Retrieves the dense identifier of the type of this event.
+     * <br/>
+     * NOTE: Identifiers are only unique within the running process.
+     *
+     * @return The identifier of the type of the event.
+     */
+    public final int getType() {
+        return mType;
+    }
+
+    /**
+     * Retrieves the dense identifier of the given type of event.
+     *
+     * @param type The class of the event.
+     *
+     * @return The identifier of the type of the event.
+     */
+    static int getType(Class<?> type) {
+        return TYPES.get(type);
+    }
 }
@@ -17,35 +17,159 @@
  */
 package me.wolftein.steroid.framework.event;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.logging.Logger;
 
 /**
  * A wrapper class to store each event consumer, its priority and if it ignores cancelled events.
  */
 final class EventExecutor<T extends Event> implements Comparable<EventExecutor> {
+    /**
+     * The logger for those consumers that exceed the profiling threshold.
+     */
+    private final static Logger LOGGER = Logger.getLogger(EventManager.class.getName());
+
     protected final int mId;
+    protected final String mName;
     protected final Object mContainer;
+    protected final WeakReference<?> mReference;
     protected final Consumer<T> mFunction;
     protected final EventPriority mPriority;
 
+    /**
+     * True if the exceptions of the consumer are printed rather than thrown (as every {@code EventHandler}).
+     */
+    protected final boolean isGuarded;
+
+    /**
+     * The statistics of the executor (only updated while profiling).
+     */
+    private final LongAdder mCount = new LongAdder();
+    private final LongAdder mTotalTime = new LongAdder();
+    private final LongAdder mExceptions = new LongAdder();
+    private final LongAccumulator mMaxTime = new LongAccumulator(Math::max, 0L);
+
     /**
      * Default constructor for {@link EventExecutor}.
      */
-    protected EventExecutor(int id, Object container, Consumer<T> function, EventPriority priority) {
+    protected EventExecutor(int id, String name, Object container, Consumer<T> function, EventPriority priority,
+                            boolean isGuarded) {
         this.mId = id;
+        this.mName = name;
         this.mContainer = container;
+        this.mReference = null;
         this.mFunction = function;
         this.mPriority = priority;
+        this.isGuarded = isGuarded;
+    }
+
+    /**
+     * Constructor for {@link EventExecutor} that only holds a weak reference to its container.
+     * <br/>
+     * NOTE: The function must not hold a strong reference to the container.
+     */
+    protected EventExecutor(int id, String name, WeakReference<?> reference, Consumer<T> function,
+                            EventPriority priority, boolean isGuarded) {
+        this.mId = id;
+        this.mName = name;
+        this.mContainer = null;
+        this.mReference = reference;
+        this.mFunction = function;
+        this.mPriority = priority;
+        this.isGuarded = isGuarded;
+    }
+
+    /**
+     * Retrieves the container of this executor.
+     *
+     * @return The container of the executor or null if there isn't any (or has been collected).
+     */
+    public Object getContainer() {
+        return (mReference != null ? mReference.get() : mContainer);
+    }
+
+    /**
+     * Check whenever the container of this executor has been collected.
+     *
+     * @return True if the container has been collected, false otherwise.
+     */
+    public boolean isCollected() {
+        return mReference != null && mReference.get() == null;
     }
 
     /**
      * Execute this executor.
      *
-     * @param event The event to execute.
+     * @param event     The event to execute.
+     * @param threshold The slow threshold (in nanoseconds), 0 to profile without threshold
+     *                  or less than 0 to disable profiling.
+     */
+    public void execute(T event, long threshold) {
+        if (event.isCancelled() && !mPriority.doesIgnoresCancelled()) {
+            return;
+        }
+        if (threshold < 0L) {
+            invoke(event, false);
+            return;
+        }
+
+        final long nStart = System.nanoTime();
+        try {
+            invoke(event, true);
+        } finally {
+            final long nElapsed = System.nanoTime() - nStart;
+
+            mCount.increment();
+            mTotalTime.add(nElapsed);
+            mMaxTime.accumulate(nElapsed);
+            if (threshold > 0L && nElapsed >= threshold) {
+                LOGGER.warning("Slow event consumer " + mName + " took " + nElapsed + "ns");
+            }
+        }
+    }
+
+    /**
+     * Retrieves a snapshot of the statistics of this executor.
+     *
+     * @return A snapshot of the statistics.
+     */
+    public EventProfile getProfile() {
+        return new EventProfile(mId, mName, mPriority,
+                mCount.sum(), mTotalTime.sum(), mMaxTime.get(), mExceptions.sum());
+    }
+
+    /**
+     * Reset the statistics of this executor.
+     */
+    public void resetProfile() {
+        mCount.reset();
+        mTotalTime.reset();
+        mExceptions.reset();
+        mMaxTime.reset();
+    }
+
+    /**
+     * Invoke the consumer of this executor.
+     * <br/>
+     * NOTE: Exceptions are only caught to be counted, and then thrown unless the executor is guarded.
+     *
+     * @param event       The event to execute.
+     * @param isProfiling True if the exceptions are counted.
      */
-    public void execute(T event) {
-        if (!event.isCancelled() || mPriority.doesIgnoresCancelled()) {
+    private void invoke(T event, boolean isProfiling) {
+        try {
             mFunction.accept(event);
+        } catch (RuntimeException exception) {
+            if (isProfiling) {
+                mExceptions.increment();
+            }
+            if (!isGuarded) {
+                throw exception;
+            }
+            exception.printStackTrace();
         }
     }
 
@@ -72,4 +196,4 @@ final class EventExecutor<T extends Event> implements Comparable<EventExecutor>
     public boolean equals(Object obj) {
         return (obj instanceof EventExecutor && super.equals(obj));
     }
-}
\ No newline at end of file
+}
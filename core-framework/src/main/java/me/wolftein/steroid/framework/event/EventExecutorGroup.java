@@ -0,0 +1,401 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+import com.gs.collections.api.map.primitive.MutableLongObjectMap;
+import com.gs.collections.impl.factory.primitive.LongObjectMaps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Encapsulate all {@link EventExecutor}s of a single type of {@link Event}, sorted by priority.
+ * <br/>
+ * NOTE: Arrays are copied on write, since events are dispatched way more often than registered.
+ */
+final class EventExecutorGroup {
+    /**
+     * Updater for purging collected executors without holding the lock of the group.
+     */
+    @SuppressWarnings("rawtypes")
+    private final static AtomicReferenceFieldUpdater<EventExecutorGroup, EventExecutor[]> EXECUTORS
+            = AtomicReferenceFieldUpdater.newUpdater(EventExecutorGroup.class, EventExecutor[].class, "mExecutors");
+
+    /**
+     * An empty array shared by all groups.
+     */
+    private final static EventExecutor<?>[] EMPTY = new EventExecutor<?>[0];
+
+    /**
+     * Define how many stripes the indexed executors are split into (as a power of two).
+     */
+    private final static int STRIPE_BITS = 6;
+
+    /**
+     * The executors that are executed for every event.
+     */
+    private volatile EventExecutor<?>[] mExecutors = EMPTY;
+
+    /**
+     * The executors that are only executed for those events with the same index, split into stripes (null if
+     * empty) so that subscribing an index only copies its own stripe.
+     */
+    private final AtomicReferenceArray<MutableLongObjectMap<EventExecutor<?>[]>> mIndex
+            = new AtomicReferenceArray<>(1 << STRIPE_BITS);
+
+    /**
+     * The number of indices that have any executor.
+     */
+    private volatile int mIndexCount;
+
+    /**
+     * Adds an executor that is executed for every event.
+     *
+     * @param executor The executor to add.
+     */
+    public synchronized void add(EventExecutor<?> executor) {
+        mExecutors = insert(mExecutors, executor);
+    }
+
+    /**
+     * Adds an executor that is only executed for events with the given index.
+     *
+     * @param index    The index of the executor.
+     * @param executor The executor to add.
+     */
+    public synchronized void add(long index, EventExecutor<?> executor) {
+        final EventExecutor<?>[] nExecutors = getIndexed(index);
+        setIndexed(index, insert(nExecutors != null ? nExecutors : EMPTY, executor));
+    }
+
+    /**
+     * Removes all executors that matches the given predicate.
+     *
+     * @param predicate The predicate for filtering those executors.
+     *
+     * @return True if any executor has been removed, false otherwise.
+     */
+    public synchronized boolean removeIf(Predicate<EventExecutor<?>> predicate) {
+        final EventExecutor<?>[] nExecutors = remove(mExecutors, predicate);
+        boolean isRemoved = (nExecutors != mExecutors);
+        mExecutors = nExecutors;
+
+        for (int i = 0; i < mIndex.length(); i++) {
+            final MutableLongObjectMap<EventExecutor<?>[]> nStripe = mIndex.get(i);
+            if (nStripe == null) {
+                continue;
+            }
+            MutableLongObjectMap<EventExecutor<?>[]> nCopy = null;
+            for (final long index : nStripe.keySet().toArray()) {
+                final EventExecutor<?>[] nOld = nStripe.get(index);
+                final EventExecutor<?>[] nNew = remove(nOld, predicate);
+                if (nNew == nOld) {
+                    continue;
+                }
+                if (nCopy == null) {
+                    nCopy = LongObjectMaps.mutable.withAll(nStripe);
+                }
+                if (nNew.length > 0) {
+                    nCopy.put(index, nNew);
+                } else {
+                    nCopy.remove(index);
+                }
+            }
+            if (nCopy != null) {
+                mIndex.set(i, nCopy.isEmpty() ? null : nCopy);
+                mIndexCount += nCopy.size() - nStripe.size();
+                isRemoved = true;
+            }
+        }
+        return isRemoved;
+    }
+
+    /**
+     * Check if the group doesn't have any executor.
+     *
+     * @return True if the group doesn't have any executor, false otherwise.
+     */
+    public boolean isEmpty() {
+        return mExecutors.length == 0 && mIndexCount == 0;
+    }
+
+    /**
+     * Iterate over all executors of the group.
+     *
+     * @param consumer The consumer to call for each executor.
+     */
+    public void forEach(Consumer<EventExecutor<?>> consumer) {
+        Arrays.stream(mExecutors).forEach(consumer);
+        for (int i = 0; i < mIndex.length(); i++) {
+            final MutableLongObjectMap<EventExecutor<?>[]> nStripe = mIndex.get(i);
+            if (nStripe != null) {
+                nStripe.forEachValue(T -> Arrays.stream(T).forEach(consumer));
+            }
+        }
+    }
+
+    /**
+     * Execute all executors of the group for the given event.
+     *
+     * @param event     The event to execute.
+     * @param threshold The profiling threshold (See {@link EventExecutor#execute(Event, long)}).
+     */
+    public void execute(Event event, long threshold) {
+        final EventExecutor<?>[] nExecutors = mExecutors;
+        final EventExecutor<?>[] nIndexed = (event instanceof IndexedEvent
+                ? getIndexed(((IndexedEvent) event).getIndex())
+                : null);
+
+        if (nIndexed == null) {
+            boolean isCollected = false;
+            for (final EventExecutor<?> executor : nExecutors) {
+                if (executor.isCollected()) {
+                    isCollected = true;
+                } else {
+                    execute(executor, event, threshold);
+                }
+            }
+            if (isCollected) {
+                purge(nExecutors);
+            }
+            return;
+        }
+
+        // Merge both sorted arrays, those that are not indexed go first on the same priority.
+        boolean isCollected = false;
+        boolean isIndexedCollected = false;
+        int i = 0, j = 0;
+        while (i < nExecutors.length || j < nIndexed.length) {
+            if (j == nIndexed.length
+                    || (i < nExecutors.length && nExecutors[i].compareTo(nIndexed[j]) <= 0)) {
+                final EventExecutor<?> nExecutor = nExecutors[i++];
+                if (nExecutor.isCollected()) {
+                    isCollected = true;
+                } else {
+                    execute(nExecutor, event, threshold);
+                }
+            } else {
+                final EventExecutor<?> nExecutor = nIndexed[j++];
+                if (nExecutor.isCollected()) {
+                    isIndexedCollected = true;
+                } else {
+                    execute(nExecutor, event, threshold);
+                }
+            }
+        }
+        if (isCollected) {
+            purge(nExecutors);
+        }
+        if (isIndexedCollected) {
+            purge(((IndexedEvent) event).getIndex(), nIndexed);
+        }
+    }
+
+    /**
+     * Purge all executors whose container has been collected.
+     * <br/>
+     * NOTE: The array is only replaced if it hasn't changed, otherwise it will be purged on the next dispatch.
+     *
+     * @param executors The array of executors that contains collected executors.
+     */
+    private void purge(EventExecutor<?>[] executors) {
+        EXECUTORS.compareAndSet(this, executors, remove(executors, EventExecutor::isCollected));
+    }
+
+    /**
+     * Purge all executors of the given index whose container has been collected.
+     * <br/>
+     * NOTE: The array is only replaced if it hasn't changed, otherwise it will be purged on the next dispatch.
+     *
+     * @param index     The index of the executors.
+     * @param executors The array of executors that contains collected executors.
+     */
+    private synchronized void purge(long index, EventExecutor<?>[] executors) {
+        if (getIndexed(index) == executors) {
+            setIndexed(index, remove(executors, EventExecutor::isCollected));
+        }
+    }
+
+    /**
+     * Retrieves the executors of the given index.
+     *
+     * @param index The index of the executors.
+     *
+     * @return The executors of the given index or null if there isn't any.
+     */
+    private EventExecutor<?>[] getIndexed(long index) {
+        final MutableLongObjectMap<EventExecutor<?>[]> nStripe = mIndex.get(getStripe(index));
+        return (nStripe != null ? nStripe.get(index) : null);
+    }
+
+    /**
+     * Replaces the executors of the given index, copying only the stripe of the index.
+     * <br/>
+     * NOTE: Must be called while holding the lock of the group.
+     *
+     * @param index     The index of the executors.
+     * @param executors The new executors of the index (empty to remove the index).
+     */
+    private void setIndexed(long index, EventExecutor<?>[] executors) {
+        final int nSlot = getStripe(index);
+        final MutableLongObjectMap<EventExecutor<?>[]> nOld = mIndex.get(nSlot);
+        final MutableLongObjectMap<EventExecutor<?>[]> nNew = (nOld != null
+                ? LongObjectMaps.mutable.withAll(nOld)
+                : LongObjectMaps.mutable.empty());
+        if (executors.length > 0) {
+            nNew.put(index, executors);
+        } else {
+            nNew.remove(index);
+        }
+        mIndex.set(nSlot, nNew.isEmpty() ? null : nNew);
+        mIndexCount += nNew.size() - (nOld != null ? nOld.size() : 0);
+    }
+
+    /**
+     * Retrieves the stripe of the given index.
+     */
+    private static int getStripe(long index) {
+        return (int) ((index * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS));
+    }
+
+    /**
+     * Execute all executors of the group for the given event, those executors on the same tier of
+     * {@link EventPriority#getPriority()} are executed in parallel while tiers are executed in order.
+     * <br/>
+     * NOTE: Executors are forked into the {@link java.util.concurrent.ForkJoinPool} of the caller (or the
+     *       common pool if the caller isn't running in one).
+     *
+     * @param event     The event to execute.
+     * @param threshold The profiling threshold (See {@link EventExecutor#execute(Event, long)}).
+     */
+    public void executeParallel(Event event, long threshold) {
+        final EventExecutor<?>[] nExecutors = getExecutors(event);
+        boolean isCollected = false;
+
+        for (int start = 0, end; start < nExecutors.length; start = end) {
+            final int nTier = nExecutors[start].mPriority.getPriority();
+            for (end = start + 1; end < nExecutors.length; end++) {
+                if (nExecutors[end].mPriority.getPriority() != nTier) {
+                    break;
+                }
+            }
+
+            if (end - start == 1) {
+                if (nExecutors[start].isCollected()) {
+                    isCollected = true;
+                } else {
+                    execute(nExecutors[start], event, threshold);
+                }
+            } else {
+                final List<ForkJoinTask<?>> nTasks = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    final EventExecutor<?> nExecutor = nExecutors[i];
+                    if (nExecutor.isCollected()) {
+                        isCollected = true;
+                    } else {
+                        nTasks.add(ForkJoinTask.adapt(() -> execute(nExecutor, event, threshold)));
+                    }
+                }
+                ForkJoinTask.invokeAll(nTasks);
+            }
+        }
+
+        //! The merged array isn't owned by the group, so the collected executors are purged from their origin.
+        if (isCollected) {
+            final EventExecutor<?>[] nShared = mExecutors;
+            if (Arrays.stream(nShared).anyMatch(EventExecutor::isCollected)) {
+                purge(nShared);
+            }
+            if (event instanceof IndexedEvent) {
+                final long nIndex = ((IndexedEvent) event).getIndex();
+                final EventExecutor<?>[] nIndexed = getIndexed(nIndex);
+                if (nIndexed != null && Arrays.stream(nIndexed).anyMatch(EventExecutor::isCollected)) {
+                    purge(nIndex, nIndexed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves all executors of the group for the given event, sorted by priority.
+     *
+     * @param event The event to retrieve the executors for.
+     *
+     * @return An array that contains all executors for the given event.
+     */
+    private EventExecutor<?>[] getExecutors(Event event) {
+        final EventExecutor<?>[] nExecutors = mExecutors;
+        final EventExecutor<?>[] nIndexed = (event instanceof IndexedEvent
+                ? getIndexed(((IndexedEvent) event).getIndex())
+                : null);
+        if (nIndexed == null) {
+            return nExecutors;
+        }
+
+        final EventExecutor<?>[] nMerged = new EventExecutor<?>[nExecutors.length + nIndexed.length];
+        for (int i = 0, j = 0, k = 0; k < nMerged.length; k++) {
+            if (j == nIndexed.length || (i < nExecutors.length && nExecutors[i].compareTo(nIndexed[j]) <= 0)) {
+                nMerged[k] = nExecutors[i++];
+            } else {
+                nMerged[k] = nIndexed[j++];
+            }
+        }
+        return nMerged;
+    }
+
+    /**
+     * Execute an executor of the group for the given event.
+     * <br/>
+     * NOTE: Every executor of the group belongs to the type of the event (or one of its super types).
+     */
+    @SuppressWarnings("unchecked")
+    private static void execute(EventExecutor<?> executor, Event event, long threshold) {
+        ((EventExecutor<Event>) executor).execute(event, threshold);
+    }
+
+    /**
+     * Insert an executor into a sorted array keeping the order of registration on the same priority.
+     */
+    private static EventExecutor<?>[] insert(EventExecutor<?>[] array, EventExecutor<?> executor) {
+        int position = array.length;
+        while (position > 0 && array[position - 1].compareTo(executor) > 0) {
+            position--;
+        }
+        final EventExecutor<?>[] nArray = new EventExecutor<?>[array.length + 1];
+        System.arraycopy(array, 0, nArray, 0, position);
+        System.arraycopy(array, position, nArray, position + 1, array.length - position);
+        nArray[position] = executor;
+        return nArray;
+    }
+
+    /**
+     * Removes all executors from an array that matches the given predicate.
+     */
+    private static EventExecutor<?>[] remove(EventExecutor<?>[] array, Predicate<EventExecutor<?>> predicate) {
+        final EventExecutor<?>[] nArray = Arrays.stream(array)
+                .filter(predicate.negate())
+                .toArray(EventExecutor<?>[]::new);
+        return (nArray.length == array.length ? array : nArray);
+    }
+}
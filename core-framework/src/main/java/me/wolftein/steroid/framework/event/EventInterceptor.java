@@ -0,0 +1,42 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+/**
+ * Define an interceptor that is notified of every {@link Event} before being dispatched.
+ * <br/>
+ * NOTE: Interceptors are called from the thread that dispatches the event, so they must never block.
+ */
+public interface EventInterceptor {
+    /**
+     * Check if the interceptor observes the given type of event, producers that check whenever an event
+     * is subscribed will skip building the events of those types nobody observes.
+     *
+     * @param type The type of the event.
+     *
+     * @return True if the interceptor observes the events of the given type, false otherwise.
+     */
+    public boolean isObserving(Class<? extends Event> type);
+
+    /**
+     * Called when an event is about to be dispatched.
+     *
+     * @param event The event to be dispatched.
+     */
+    public void onEvent(Event event);
+}
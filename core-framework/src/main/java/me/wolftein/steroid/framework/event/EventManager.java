@@ -18,15 +18,19 @@
 package me.wolftein.steroid.framework.event;
 
 import com.gs.collections.api.map.primitive.MutableIntIntMap;
-import com.gs.collections.api.map.primitive.MutableIntObjectMap;
 import com.gs.collections.impl.factory.primitive.IntIntMaps;
-import com.gs.collections.impl.factory.primitive.IntObjectMaps;
 import me.wolftein.steroid.framework.event.annotation.EventHandler;
 import me.wolftein.steroid.framework.scheduler.Scheduler;
 import net.jodah.typetools.TypeResolver;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -34,11 +38,55 @@ import java.util.function.Predicate;
  * Define a service for subscribing to {@link Event}s.
  */
 public final class EventManager {
+    /**
+     * Cache of the {@link EventRegistration} generated for each type of listener (or null if there isn't any).
+     */
+    private final static ClassValue<EventRegistration> REGISTRATIONS = new ClassValue<EventRegistration>() {
+        @Override
+        protected EventRegistration computeValue(Class<?> type) {
+            try {
+                return (EventRegistration) Class.forName(
+                        type.getName() + EventRegistration.SUFFIX, true, type.getClassLoader()).newInstance();
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                return null;
+            }
+        }
+    };
+
     private final Scheduler mScheduler;
     private final MutableIntIntMap mIds = IntIntMaps.mutable.empty();
-    private final MutableIntObjectMap<PriorityQueue<EventExecutor>> mEvents = IntObjectMaps.mutable.empty();
     private int mIndex;
 
+    /**
+     * The group of executors of each type of event, indexed by the dense identifier of the type.
+     */
+    private volatile EventExecutorGroup[] mEvents = new EventExecutorGroup[0];
+
+    /**
+     * The interceptors notified before dispatching any event.
+     */
+    private volatile EventInterceptor[] mInterceptors = new EventInterceptor[0];
+
+    /**
+     * The profiling threshold (in nanoseconds) or less than 0 if profiling is disabled.
+     */
+    private volatile long mProfilingThreshold = -1L;
+
+    /**
+     * The ring buffer for asynchronous events or null if asynchronous events are executed by the scheduler.
+     */
+    private volatile EventRingBuffer mRingBuffer;
+
+    /**
+     * The bounded queue for asynchronous events or null if asynchronous events are not bounded.
+     */
+    private volatile EventQueue mQueue;
+
+    /**
+     * True if asynchronous events execute the consumers of the same tier in parallel.
+     */
+    private volatile boolean mParallel;
+
     /**
      * Dependency constructor for {@link EventManager}.
      */
@@ -54,11 +102,7 @@ public final class EventManager {
      * @return The event that has been invoked.
      */
     public <T extends Event> T invokeEvent(T event) {
-        final PriorityQueue<EventExecutor> executors = mEvents.get(event.getClass().hashCode());
-        if (executors != null) {
-            executors.forEach(executor -> executor.execute(event));
-        }
-        return event;
+        return dispatch(event, false);
     }
 
     /**
@@ -80,7 +124,15 @@ public final class EventManager {
      * @param event The event to be invoked by the manager.
      */
     public <T extends Event> void invokeAsyncEvent(T event) {
-        mScheduler.invokeAsyncTask(T -> invokeEvent(event));
+        final EventQueue nQueue = mQueue;
+        final EventRingBuffer nRingBuffer = mRingBuffer;
+        if (nQueue != null) {
+            nQueue.publish(event, null);
+        } else if (nRingBuffer != null) {
+            nRingBuffer.publish(event, null);
+        } else {
+            mScheduler.invokeAsyncTask(T -> dispatch(event, mParallel));
+        }
     }
 
     /**
@@ -90,7 +142,175 @@ public final class EventManager {
      * @param consumer The consumer to be called after being invoked.
      */
     public <T extends Event> void invokeAsyncEvent(T event, Consumer<T> consumer) {
-        mScheduler.invokeAsyncTask(T -> invokeEvent(event, consumer));
+        final EventQueue nQueue = mQueue;
+        final EventRingBuffer nRingBuffer = mRingBuffer;
+        if (nQueue != null) {
+            nQueue.publish(event, consumer);
+        } else if (nRingBuffer != null) {
+            nRingBuffer.publish(event, consumer);
+        } else {
+            mScheduler.invokeAsyncTask(T -> consumer.accept(dispatch(event, mParallel)));
+        }
+    }
+
+    /**
+     * Retrieves the {@link Scheduler} of the manager.
+     *
+     * @return The scheduler of the manager.
+     */
+    public Scheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Execute the consumers of asynchronous events on the same tier of {@link EventPriority#getPriority()}
+     * in parallel, tiers are still executed in order.
+     * <br/>
+     * NOTE: Consumers on the same tier must not depend on each other (e.g cancelling the event).
+     */
+    public void enableParallelDispatch() {
+        mParallel = true;
+    }
+
+    /**
+     * Execute the consumers of asynchronous events one after another.
+     */
+    public void disableParallelDispatch() {
+        mParallel = false;
+    }
+
+    /**
+     * Check if the consumers of asynchronous events on the same tier are executed in parallel.
+     *
+     * @return True if the consumers are executed in parallel, false otherwise.
+     */
+    public boolean isParallelDispatch() {
+        return mParallel;
+    }
+
+    /**
+     * Check if an event of the given type will be observed by any consumer or interceptor, allowing
+     * producers to avoid building expensive events nobody is going to look at.
+     *
+     * @param type The type of the event.
+     *
+     * @return True if the event has any consumer or interceptor observing it, false otherwise.
+     */
+    public boolean isSubscribed(Class<? extends Event> type) {
+        for (final EventInterceptor interceptor : mInterceptors) {
+            if (interceptor.isObserving(type)) {
+                return true;
+            }
+        }
+        final EventExecutorGroup[] nEvents = mEvents;
+        final int nType = Event.getType(type);
+        return nType < nEvents.length && nEvents[nType] != null && !nEvents[nType].isEmpty();
+    }
+
+    /**
+     * Dispatch an event to all its consumers.
+     *
+     * @param event      The event to be dispatched.
+     * @param isParallel True if the consumers on the same tier are executed in parallel.
+     *
+     * @return The event that has been dispatched.
+     */
+    protected <T extends Event> T dispatch(T event, boolean isParallel) {
+        for (final EventInterceptor interceptor : mInterceptors) {
+            interceptor.onEvent(event);
+        }
+
+        final EventExecutorGroup[] nEvents = mEvents;
+        final int nType = event.getType();
+        if (nType < nEvents.length && nEvents[nType] != null) {
+            if (isParallel) {
+                nEvents[nType].executeParallel(event, mProfilingThreshold);
+            } else {
+                nEvents[nType].execute(event, mProfilingThreshold);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Dispatch asynchronous events through a preallocated ring buffer consumed by a single thread,
+     * instead of creating a task on the {@link Scheduler} for each event.
+     *
+     * @param capacity The capacity of the ring buffer (must be a power of two).
+     */
+    public synchronized void enableRingBuffer(int capacity) {
+        if (mRingBuffer != null || mQueue != null) {
+            throw new IllegalStateException("Ring buffer or bounded queue has been already enabled");
+        }
+        final EventRingBuffer nRingBuffer = new EventRingBuffer(this, capacity);
+        nRingBuffer.start();
+        mRingBuffer = nRingBuffer;
+    }
+
+    /**
+     * Dispatch asynchronous events through the {@link Scheduler} again, after dispatching all events
+     * pending in the ring buffer.
+     * <br/>
+     * NOTE: Events being published while disabling the ring buffer are dispatched by their producer.
+     */
+    public synchronized void disableRingBuffer() {
+        final EventRingBuffer nRingBuffer = mRingBuffer;
+        if (nRingBuffer == null) {
+            throw new IllegalStateException("Ring buffer has not been enabled");
+        }
+        mRingBuffer = null;
+        nRingBuffer.stop();
+    }
+
+    /**
+     * Dispatch asynchronous events through a bounded queue consumed by a single thread, applying the
+     * {@link EventQueuePolicy} of each type of event when the queue is full.
+     *
+     * @param capacity The maximum number of pending events.
+     * @param policy   The policy of those types without a policy.
+     *
+     * @return The queue that has been enabled, for configuring policies and reading its statistics.
+     */
+    public synchronized EventQueue enableEventQueue(int capacity, EventQueuePolicy policy) {
+        if (mRingBuffer != null || mQueue != null) {
+            throw new IllegalStateException("Ring buffer or bounded queue has been already enabled");
+        }
+        final EventQueue nQueue = new EventQueue(this, capacity, policy);
+        nQueue.start();
+        mQueue = nQueue;
+        return nQueue;
+    }
+
+    /**
+     * Dispatch asynchronous events through the {@link Scheduler} again, after dispatching all events
+     * pending in the bounded queue.
+     */
+    public synchronized void disableEventQueue() {
+        final EventQueue nQueue = mQueue;
+        if (nQueue == null) {
+            throw new IllegalStateException("Bounded queue has not been enabled");
+        }
+        mQueue = null;
+        nQueue.stop();
+    }
+
+    /**
+     * Retrieves the bounded queue for asynchronous events.
+     *
+     * @return The bounded queue or null if it is not enabled.
+     */
+    public EventQueue getEventQueue() {
+        return mQueue;
+    }
+
+    /**
+     * Retrieves the number of asynchronous events pending in the ring buffer.
+     *
+     * @return The number of events pending or 0 if the ring buffer is not enabled.
+     */
+    public long getRingBufferPending() {
+        final EventRingBuffer nRingBuffer = mRingBuffer;
+        return (nRingBuffer != null ? nRingBuffer.getPending() : 0L);
     }
 
     /**
@@ -113,25 +333,185 @@ public final class EventManager {
      * @return An unique identifier for the consumer.
      */
     public <T extends Event> int registerEvent(Consumer<T> consumer, EventPriority priority) {
-        final Class<?> clazz = TypeResolver.resolveRawArgument(Consumer.class, consumer.getClass());
+        @SuppressWarnings("unchecked")
+        final Class<T> clazz = (Class<T>) TypeResolver.resolveRawArgument(Consumer.class, consumer.getClass());
+        return registerEvent(null, clazz, consumer, priority);
+    }
+
+    /**
+     * Subscribe for the given {@link Event} type on behalf of a listener.
+     *
+     * @param listener The object that contains the consumer or null if there isn't any.
+     * @param type     The class of the event to register.
+     * @param consumer The consumer to register to the given event.
+     * @param priority The priority of the consumer.
+     *
+     * @return An unique identifier for the consumer.
+     */
+    public <T extends Event> int registerEvent(Object listener, Class<T> type, Consumer<T> consumer,
+                                               EventPriority priority) {
+        return registerEvent(listener, type, consumer, priority, null);
+    }
+
+    /**
+     * Subscribe for the given {@link Event} type on behalf of a method of a listener.
+     *
+     * @param listener The object that contains the consumer or null if there isn't any.
+     * @param type     The class of the event to register.
+     * @param consumer The consumer to register to the given event.
+     * @param priority The priority of the consumer.
+     * @param method   The name of the method of the listener or null if there isn't any.
+     *
+     * @return An unique identifier for the consumer.
+     */
+    public <T extends Event> int registerEvent(Object listener, Class<T> type, Consumer<T> consumer,
+                                               EventPriority priority, String method) {
+        final int id = mIndex++;
+        mIds.put(id, Event.getType(type));
+
+        getExecutorGroup(type).add(new EventExecutor<>(
+                id, getExecutorName(id, listener, type, method), listener, consumer, priority, false));
+        return id;
+    }
 
+    /**
+     * Subscribe a method of a listener for the given {@link Event} type.
+     * <br/>
+     * NOTE: This is the entry used by every generated {@link EventRegistration}.
+     *
+     * @param listener The object that contains the method.
+     * @param type     The class of the event to register.
+     * @param handler  The handler that calls the method of the given listener.
+     * @param priority The priority of the method.
+     * @param method   The name of the method.
+     * @param isWeak   True if the listener is only weakly referenced.
+     *
+     * @return An unique identifier for the method, or -1 if the listener is only weakly referenced (which can only
+     *         be unsubscribed by {@link #unregisterEvents(Object)}).
+     */
+    public <L, T extends Event> int registerEvent(L listener, Class<T> type, BiConsumer<L, T> handler,
+                                                  EventPriority priority, String method, boolean isWeak) {
+        // NOTE: Exceptions thrown by methods are printed rather than thrown (as always has been).
         final int id = mIndex++;
-        mIds.put(id, clazz.hashCode());
+        if (!isWeak) {
+            mIds.put(id, Event.getType(type));
+            getExecutorGroup(type).add(new EventExecutor<>(id, getExecutorName(id, listener, type, method),
+                    listener, (T event) -> handler.accept(listener, event), priority, true));
+            return id;
+        }
+
+        // NOTE: Weak executors are not tracked by identifier, since they may be purged at any time (by any thread
+        //       that dispatches), therefore no identifier is returned to unsubscribe them.
+        final WeakReference<L> nReference = new WeakReference<>(listener);
+        getExecutorGroup(type).add(new EventExecutor<>(
+                id, getExecutorName(id, listener, type, method), nReference, (T event) -> {
+            final L nListener = nReference.get();
+            if (nListener != null) {
+                handler.accept(nListener, event);
+            }
+        }, priority, true));
+        return -1;
+    }
+
+    /**
+     * Subscribe for a particular {@link IndexedEvent} with {@link EventPriority#NORMAL} priority, the consumer
+     * will only be executed for those events with the given index.
+     *
+     * @param index    The index of the events to subscribe.
+     * @param consumer The consumer to register to the given event.
+     *
+     * @return An unique identifier for the consumer.
+     */
+    public <T extends Event & IndexedEvent> int registerIndexedEvent(long index, Consumer<T> consumer) {
+        return registerIndexedEvent(index, consumer, EventPriority.NORMAL);
+    }
+
+    /**
+     * Subscribe for a particular {@link IndexedEvent} with the given {@link EventPriority}, the consumer
+     * will only be executed for those events with the given index.
+     *
+     * @param index    The index of the events to subscribe.
+     * @param consumer The consumer to register to the given event.
+     * @param priority The priority of the consumer.
+     *
+     * @return An unique identifier for the consumer.
+     */
+    public <T extends Event & IndexedEvent> int registerIndexedEvent(long index, Consumer<T> consumer,
+                                                                     EventPriority priority) {
+        @SuppressWarnings("unchecked")
+        final Class<T> clazz = (Class<T>) TypeResolver.resolveRawArgument(Consumer.class, consumer.getClass());
+        return registerIndexedEvent(null, clazz, index, consumer, priority);
+    }
 
-        PriorityQueue<EventExecutor> executor = mEvents.get(clazz.hashCode());
-        if (executor == null) {
-            mEvents.put(clazz.hashCode(), executor = new PriorityQueue<>());
+    /**
+     * Subscribe for the given {@link IndexedEvent} type on behalf of a listener, the consumer will only be
+     * executed for those events with the given index.
+     *
+     * @param listener The object that contains the consumer or null if there isn't any.
+     * @param type     The class of the event to register.
+     * @param index    The index of the events to subscribe.
+     * @param consumer The consumer to register to the given event.
+     * @param priority The priority of the consumer.
+     *
+     * @return An unique identifier for the consumer.
+     */
+    public <T extends Event> int registerIndexedEvent(Object listener, Class<T> type, long index,
+                                                      Consumer<T> consumer, EventPriority priority) {
+        if (!IndexedEvent.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Cannot subscribe by index to an event that is not indexed");
         }
-        executor.add(new EventExecutor<>(id, null, consumer, priority));
+        final int id = mIndex++;
+        mIds.put(id, Event.getType(type));
+
+        getExecutorGroup(type).add(index, new EventExecutor<>(
+                id, getExecutorName(id, listener, type, null), listener, consumer, priority, false));
         return id;
     }
 
     /**
      * Subscribe any number of consumers for any number of {@link Event}s.
+     * <br/>
+     * NOTE: The {@link EventRegistration} generated at compile time is preferred, reflection is only
+     *       used for those listeners that hasn't been processed (or have private handlers).
      *
      * @param listener The object that contains the consumers.
      */
     public void registerEvents(Object listener) {
+        registerEvents(listener, false);
+    }
+
+    /**
+     * Subscribe any number of consumers for any number of {@link Event}s, holding only a weak reference
+     * to the listener. Once the listener is collected its consumers are purged lazily while dispatching.
+     *
+     * @param listener The object that contains the consumers.
+     */
+    public void registerWeakEvents(Object listener) {
+        registerEvents(listener, true);
+    }
+
+    /**
+     * Subscribe any number of consumers for any number of {@link Event}s.
+     *
+     * @param listener The object that contains the consumers.
+     * @param isWeak   True if the listener is only weakly referenced.
+     */
+    private void registerEvents(Object listener, boolean isWeak) {
+        final EventRegistration registration = REGISTRATIONS.get(listener.getClass());
+        if (registration != null) {
+            registration.register(this, listener, isWeak);
+        } else {
+            registerEventsReflectively(listener, isWeak);
+        }
+    }
+
+    /**
+     * Subscribe any number of consumers for any number of {@link Event}s using reflection.
+     *
+     * @param listener The object that contains the consumers.
+     * @param isWeak   True if the listener is only weakly referenced.
+     */
+    private void registerEventsReflectively(Object listener, boolean isWeak) {
         final Method[] methods = listener.getClass().getDeclaredMethods();
         for (final Method method : methods) {
             // Only those methods with EventHandler annotation.
@@ -147,18 +527,17 @@ public final class EventManager {
 
             final EventHandler annotation = method.getAnnotation(EventHandler.class);
 
-            final Class<?> clazz = method.getParameterTypes()[0];
-            PriorityQueue<EventExecutor> executor = mEvents.get(clazz.hashCode());
-            if (executor == null) {
-                mEvents.put(clazz.hashCode(), executor = new PriorityQueue<>());
-            }
-            executor.add(new EventExecutor<>(mIndex++, listener, (e) -> {
+            @SuppressWarnings("unchecked")
+            final Class<Event> clazz = (Class<Event>) method.getParameterTypes()[0];
+            registerEvent(listener, clazz, (Object container, Event e) -> {
                 try {
-                    method.invoke(listener, e);
-                } catch (Exception ignored) {
-                    ignored.printStackTrace();
+                    method.invoke(container, e);
+                } catch (InvocationTargetException exception) {
+                    throw new IllegalStateException(exception.getCause());
+                } catch (IllegalAccessException exception) {
+                    throw new IllegalStateException(exception);
                 }
-            }, annotation.priority()));
+            }, annotation.priority(), method.getName(), isWeak);
         }
     }
 
@@ -168,14 +547,14 @@ public final class EventManager {
      * @param id The unique identifier for the event.
      */
     public void unregisterEvent(int id) {
-        final int type = mIds.get(id);
-        final PriorityQueue<EventExecutor> executors = mEvents.get(type);
+        final int type = mIds.getIfAbsent(id, -1);
+        final EventExecutorGroup[] nEvents = mEvents;
 
-        if (executors == null) {
+        if (type < 0 || type >= nEvents.length || nEvents[type] == null) {
             throw new IllegalStateException("No events to unregistered of the given type");
         }
-        final boolean isRemoved = executors.removeIf(
-                (EventExecutor executor) -> executor.mId == id
+        final boolean isRemoved = nEvents[type].removeIf(
+                (EventExecutor<?> executor) -> executor.mId == id
         );
         if (!isRemoved) {
             throw new IllegalStateException("Failed to unregister event from given plug-in");
@@ -188,15 +567,142 @@ public final class EventManager {
      * @param listener The object that contains the consumers.
      */
     public void unregisterEvents(Object listener) {
-        final Predicate<EventExecutor> predicate = executor ->
-                executor.mContainer != null && executor.mContainer.equals(listener);
-        mEvents.forEachValue(collection -> collection.removeIf(predicate));
+        final Predicate<EventExecutor<?>> predicate = executor -> {
+            final Object nContainer = executor.getContainer();
+            final boolean isOwned = nContainer != null && nContainer.equals(listener);
+            if (isOwned) {
+                mIds.remove(executor.mId);
+            }
+            return isOwned;
+        };
+        forEachExecutorGroup(group -> group.removeIf(predicate));
+    }
+
+    /**
+     * Adds an interceptor that is notified before dispatching any event.
+     *
+     * @param interceptor The interceptor to add.
+     */
+    public synchronized void addInterceptor(EventInterceptor interceptor) {
+        final EventInterceptor[] nInterceptors = Arrays.copyOf(mInterceptors, mInterceptors.length + 1);
+        nInterceptors[mInterceptors.length] = interceptor;
+        mInterceptors = nInterceptors;
+    }
+
+    /**
+     * Removes an interceptor previously added.
+     *
+     * @param interceptor The interceptor to remove.
+     */
+    public synchronized void removeInterceptor(EventInterceptor interceptor) {
+        mInterceptors = Arrays.stream(mInterceptors)
+                .filter(T -> T != interceptor)
+                .toArray(EventInterceptor[]::new);
+    }
+
+    /**
+     * Enable the profiling of every consumer, those consumers that exceed the threshold will be logged.
+     *
+     * @param threshold The slow threshold or 0 to disable logging of slow consumers.
+     * @param unit      The unit of the threshold.
+     */
+    public void enableProfiling(long threshold, TimeUnit unit) {
+        if (threshold < 0L) {
+            throw new IllegalArgumentException("Profiling threshold cannot be negative");
+        }
+        mProfilingThreshold = unit.toNanos(threshold);
+    }
+
+    /**
+     * Disable the profiling of every consumer.
+     */
+    public void disableProfiling() {
+        mProfilingThreshold = -1L;
+    }
+
+    /**
+     * Check if the profiling of consumers is enabled.
+     *
+     * @return True if the profiling is enabled, false otherwise.
+     */
+    public boolean isProfiling() {
+        return mProfilingThreshold >= 0L;
+    }
+
+    /**
+     * Retrieves a snapshot of the profile of every consumer.
+     *
+     * @return A list that contains the profile of every consumer.
+     */
+    public List<EventProfile> getProfiles() {
+        final List<EventProfile> nProfiles = new ArrayList<>();
+        forEachExecutorGroup(group -> group.forEach(executor -> nProfiles.add(executor.getProfile())));
+        return nProfiles;
+    }
+
+    /**
+     * Reset the profile of every consumer.
+     */
+    public void resetProfiles() {
+        forEachExecutorGroup(group -> group.forEach(EventExecutor::resetProfile));
+    }
+
+    /**
+     * Retrieves the name of an executor, used for identifying it while profiling.
+     *
+     * @param id       The unique identifier of the executor.
+     * @param listener The object that contains the consumer or null if there isn't any.
+     * @param type     The class of the event.
+     * @param method   The name of the method of the listener or null if there isn't any.
+     *
+     * @return The name of the executor.
+     */
+    private String getExecutorName(int id, Object listener, Class<?> type, String method) {
+        final String nOwner = (listener != null ? listener.getClass().getName() : "consumer#" + id);
+        return nOwner + (method != null ? "#" + method : "") + "(" + type.getSimpleName() + ")";
+    }
+
+    /**
+     * Retrieves (or create) the group of executors for the given type of {@link Event}.
+     *
+     * @param type The class of the event.
+     *
+     * @return The group of executors for the given type.
+     */
+    private EventExecutorGroup getExecutorGroup(Class<?> type) {
+        final int nType = Event.getType(type);
+
+        EventExecutorGroup[] nEvents = mEvents;
+        if (nType >= nEvents.length) {
+            nEvents = Arrays.copyOf(nEvents, Math.max(nType + 1, nEvents.length * 2));
+        } else if (nEvents[nType] != null) {
+            return nEvents[nType];
+        } else {
+            nEvents = nEvents.clone();
+        }
+        final EventExecutorGroup nGroup = nEvents[nType] = new EventExecutorGroup();
+        mEvents = nEvents;
+        return nGroup;
+    }
+
+    /**
+     * Iterate over every group of executors.
+     *
+     * @param consumer The consumer to call for each group.
+     */
+    private void forEachExecutorGroup(Consumer<EventExecutorGroup> consumer) {
+        for (final EventExecutorGroup group : mEvents) {
+            if (group != null) {
+                consumer.accept(group);
+            }
+        }
     }
 
     /**
      * Unregister all {@link Event}s.
      */
     public void unregisterAllEvents() {
-        mEvents.clear();
+        mIds.clear();
+        mEvents = new EventExecutorGroup[0];
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+/**
+ * Encapsulate a snapshot of the dispatch statistics of a single {@link EventExecutor}.
+ */
+public final class EventProfile {
+    private final int mId;
+    private final String mName;
+    private final EventPriority mPriority;
+    private final long mCount;
+    private final long mTotalTime;
+    private final long mMaxTime;
+    private final long mExceptions;
+
+    /**
+     * Default constructor for {@link EventProfile}.
+     */
+    protected EventProfile(int id, String name, EventPriority priority,
+                           long count, long totalTime, long maxTime, long exceptions) {
+        this.mId = id;
+        this.mName = name;
+        this.mPriority = priority;
+        this.mCount = count;
+        this.mTotalTime = totalTime;
+        this.mMaxTime = maxTime;
+        this.mExceptions = exceptions;
+    }
+
+    /**
+     * Retrieves the unique identifier of the consumer.
+     *
+     * @return The unique identifier of the consumer.
+     */
+    public int getId() {
+        return mId;
+    }
+
+    /**
+     * Retrieves the name of the consumer (listener and method, or the identifier of the consumer).
+     *
+     * @return The name of the consumer.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Retrieves the priority of the consumer.
+     *
+     * @return The priority of the consumer.
+     */
+    public EventPriority getPriority() {
+        return mPriority;
+    }
+
+    /**
+     * Retrieves the number of times the consumer has been invoked.
+     *
+     * @return The number of invocations.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Retrieves the total time spent in the consumer.
+     *
+     * @return The total time (in nanoseconds).
+     */
+    public long getTotalTime() {
+        return mTotalTime;
+    }
+
+    /**
+     * Retrieves the maximum time spent in a single invocation of the consumer.
+     *
+     * @return The maximum time (in nanoseconds).
+     */
+    public long getMaxTime() {
+        return mMaxTime;
+    }
+
+    /**
+     * Retrieves the average time spent in a single invocation of the consumer.
+     *
+     * @return The average time (in nanoseconds).
+     */
+    public long getAverageTime() {
+        return (mCount == 0 ? 0L : mTotalTime / mCount);
+    }
+
+    /**
+     * Retrieves the number of exceptions thrown by the consumer.
+     *
+     * @return The number of exceptions.
+     */
+    public long getExceptions() {
+        return mExceptions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return mName + " [count=" + mCount + ", total=" + mTotalTime + "ns, max=" + mMaxTime
+                + "ns, exceptions=" + mExceptions + "]";
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+import com.gs.collections.api.map.primitive.MutableIntObjectMap;
+import com.gs.collections.api.map.primitive.MutableLongObjectMap;
+import com.gs.collections.impl.factory.primitive.IntObjectMaps;
+import com.gs.collections.impl.factory.primitive.LongObjectMaps;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a bounded queue for dispatching asynchronous {@link Event}s, with a {@link EventQueuePolicy}
+ * for each type of event that defines what happens when the queue is full.
+ */
+public final class EventQueue implements Runnable {
+    private final EventManager mManager;
+    private final int mCapacity;
+    private final EventQueuePolicy mDefaultPolicy;
+    private final ArrayDeque<Entry> mQueue;
+    private final MutableIntObjectMap<MutableLongObjectMap<Entry>> mConflated = IntObjectMaps.mutable.empty();
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mNotEmpty = mLock.newCondition();
+    private final Condition mNotFull = mLock.newCondition();
+    private final Thread mThread;
+    private volatile EventQueuePolicy[] mPolicies = new EventQueuePolicy[0];
+    private volatile boolean mActive;
+
+    /**
+     * The statistics of the queue.
+     */
+    private final LongAdder mDropped = new LongAdder();
+    private final LongAdder mConflations = new LongAdder();
+    private final LongAdder mBlocked = new LongAdder();
+
+    /**
+     * Default constructor for {@link EventQueue}.
+     *
+     * @param manager  The manager that dispatches the events.
+     * @param capacity The maximum number of pending events.
+     * @param policy   The policy of those types without a policy.
+     */
+    protected EventQueue(EventManager manager, int capacity, EventQueuePolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of the queue must be positive");
+        }
+        this.mManager = manager;
+        this.mCapacity = capacity;
+        this.mDefaultPolicy = policy;
+        this.mQueue = new ArrayDeque<>(capacity);
+        this.mThread = new Thread(this, "EventQueue");
+        this.mThread.setDaemon(true);
+    }
+
+    /**
+     * Change the policy for the given type of event.
+     *
+     * @param type   The class of the event.
+     * @param policy The policy of the event.
+     */
+    public synchronized void setPolicy(Class<? extends Event> type, EventQueuePolicy policy) {
+        final int nType = Event.getType(type);
+        final EventQueuePolicy[] nPolicies = (nType < mPolicies.length
+                ? mPolicies.clone()
+                : Arrays.copyOf(mPolicies, nType + 1));
+        nPolicies[nType] = policy;
+        mPolicies = nPolicies;
+    }
+
+    /**
+     * Retrieves the policy for the given type of event.
+     *
+     * @param type The class of the event.
+     *
+     * @return The policy of the event.
+     */
+    public EventQueuePolicy getPolicy(Class<? extends Event> type) {
+        return getPolicy(Event.getType(type));
+    }
+
+    /**
+     * Retrieves the number of events pending to be dispatched.
+     *
+     * @return The number of events pending.
+     */
+    public int getDepth() {
+        mLock.lock();
+        try {
+            return mQueue.size();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of events pending to be dispatched.
+     *
+     * @return The capacity of the queue.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Retrieves the number of events that has been dropped.
+     *
+     * @return The number of events dropped.
+     */
+    public long getDropped() {
+        return mDropped.sum();
+    }
+
+    /**
+     * Retrieves the number of events that has been replaced by a newer event.
+     *
+     * @return The number of events conflated.
+     */
+    public long getConflations() {
+        return mConflations.sum();
+    }
+
+    /**
+     * Retrieves the number of times a producer has been blocked.
+     *
+     * @return The number of times a producer has been blocked.
+     */
+    public long getBlocked() {
+        return mBlocked.sum();
+    }
+
+    /**
+     * Starts the consumer of the queue.
+     */
+    protected void start() {
+        mActive = true;
+        mThread.start();
+    }
+
+    /**
+     * Stops the consumer of the queue, after dispatching all events pending.
+     */
+    protected void stop() {
+        mLock.lock();
+        try {
+            mActive = false;
+            mNotEmpty.signalAll();
+            mNotFull.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+        try {
+            mThread.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publish an event into the queue, applying the policy of the event if the queue is full.
+     * <br/>
+     * NOTE: The event is dispatched on the calling thread if the queue has been stopped, or if it would
+     *       block the consumer itself.
+     *
+     * @param event    The event to be published.
+     * @param consumer The consumer to be called after being invoked or null if there isn't any.
+     */
+    protected <T extends Event> void publish(T event, Consumer<T> consumer) {
+        if (!enqueue(event, consumer)) {
+            execute(event, consumer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (true) {
+            final Entry nEntry;
+            mLock.lock();
+            try {
+                while (mActive && mQueue.isEmpty()) {
+                    mNotEmpty.awaitUninterruptibly();
+                }
+                if (mQueue.isEmpty()) {
+                    return;
+                }
+                nEntry = mQueue.poll();
+                removeConflated(nEntry);
+                mNotFull.signal();
+            } finally {
+                mLock.unlock();
+            }
+            execute(nEntry.mEvent, nEntry.mConsumer);
+        }
+    }
+
+    /**
+     * Enqueue an event, applying the policy of the event if the queue is full.
+     *
+     * @param event    The event to be enqueued.
+     * @param consumer The consumer to be called after being invoked or null if there isn't any.
+     *
+     * @return False if the event must be dispatched by the caller, true otherwise (even if dropped).
+     */
+    private boolean enqueue(Event event, Consumer<?> consumer) {
+        final int nType = event.getType();
+        final EventQueuePolicy nPolicy = getPolicy(nType);
+        final long nKey = (event instanceof IndexedEvent ? ((IndexedEvent) event).getIndex() : 0L);
+
+        mLock.lock();
+        try {
+            if (!mActive) {
+                return false;
+            }
+
+            if (nPolicy == EventQueuePolicy.CONFLATE) {
+                final Entry nPending = getConflated(nType).get(nKey);
+                if (nPending != null) {
+                    nPending.mEvent = event;
+                    nPending.mConsumer = consumer;
+                    mConflations.increment();
+                    return true;
+                }
+            }
+
+            if (mQueue.size() >= mCapacity) {
+                switch (nPolicy) {
+                    case BLOCK:
+                        if (Thread.currentThread() == mThread) {
+                            return false;
+                        }
+                        mBlocked.increment();
+                        while (mActive && mQueue.size() >= mCapacity) {
+                            mNotFull.awaitUninterruptibly();
+                        }
+
+                        //! The consumer may have already finished, so the event must not be queued.
+                        if (!mActive) {
+                            return false;
+                        }
+                        break;
+                    case DROP_NEWEST:
+                        mDropped.increment();
+                        return true;
+                    default:
+                        mDropped.increment();
+                        if (!removeOldest(nType)) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+
+            final Entry nEntry = new Entry(event, consumer, nType, nKey);
+            if (nPolicy == EventQueuePolicy.CONFLATE) {
+                getConflated(nType).put(nKey, nEntry);
+            }
+            mQueue.add(nEntry);
+            mNotEmpty.signal();
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Dispatch an event and call its consumer.
+     *
+     * @param event    The event to be dispatched.
+     * @param consumer The consumer to be called after being invoked or null if there isn't any.
+     */
+    private void execute(Event event, Consumer<?> consumer) {
+        @SuppressWarnings("unchecked")
+        final Consumer<Event> nConsumer = (Consumer<Event>) consumer;
+        try {
+            mManager.dispatch(event, mManager.isParallelDispatch());
+            if (nConsumer != null) {
+                nConsumer.accept(event);
+            }
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the oldest pending event of the given type.
+     * <br/>
+     * NOTE: Must be called while holding the lock.
+     *
+     * @param type The identifier of the type.
+     *
+     * @return True if an event has been removed, false otherwise.
+     */
+    private boolean removeOldest(int type) {
+        final Iterator<Entry> iterator = mQueue.iterator();
+        while (iterator.hasNext()) {
+            final Entry nEntry = iterator.next();
+            if (nEntry.mType == type) {
+                iterator.remove();
+                removeConflated(nEntry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the pending entries that can be conflated for the given type.
+     * <br/>
+     * NOTE: Must be called while holding the lock.
+     *
+     * @param type The identifier of the type.
+     *
+     * @return The pending entries of the type by index.
+     */
+    private MutableLongObjectMap<Entry> getConflated(int type) {
+        return mConflated.getIfAbsentPut(type, LongObjectMaps.mutable::empty);
+    }
+
+    /**
+     * Removes an entry from the pending entries that can be conflated.
+     * <br/>
+     * NOTE: Must be called while holding the lock.
+     *
+     * @param entry The entry to remove.
+     */
+    private void removeConflated(Entry entry) {
+        final MutableLongObjectMap<Entry> nEntries = mConflated.get(entry.mType);
+        if (nEntries != null && nEntries.get(entry.mKey) == entry) {
+            nEntries.remove(entry.mKey);
+        }
+    }
+
+    /**
+     * Retrieves the policy for the given identifier of a type.
+     *
+     * @param type The identifier of the type.
+     *
+     * @return The policy of the type.
+     */
+    private EventQueuePolicy getPolicy(int type) {
+        final EventQueuePolicy[] nPolicies = mPolicies;
+        return (type < nPolicies.length && nPolicies[type] != null ? nPolicies[type] : mDefaultPolicy);
+    }
+
+    /**
+     * Encapsulate an event pending to be dispatched.
+     */
+    private final static class Entry {
+        private final int mType;
+        private final long mKey;
+        private Event mEvent;
+        private Consumer<?> mConsumer;
+
+        /**
+         * Default constructor for {@link Entry}.
+         */
+        private Entry(Event event, Consumer<?> consumer, int type, long key) {
+            this.mEvent = event;
+            this.mConsumer = consumer;
+            this.mType = type;
+            this.mKey = key;
+        }
+    }
+}
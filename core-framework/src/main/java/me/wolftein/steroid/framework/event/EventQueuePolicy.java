@@ -0,0 +1,41 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+/**
+ * Enumerates all policies of the {@link EventQueue} when it is full.
+ */
+public enum EventQueuePolicy {
+    /**
+     * The producer waits until there is room for the event.
+     */
+    BLOCK,
+    /**
+     * The oldest pending event of the same type is dropped in favour of the new event.
+     */
+    DROP_OLDEST,
+    /**
+     * The new event is dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * A pending event of the same type (and index, see {@link IndexedEvent}) is replaced by the new event,
+     * even if the queue is not full.
+     */
+    CONFLATE
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+import me.wolftein.steroid.framework.event.annotation.EventHandler;
+
+/**
+ * Define a registration generated at compile time for every type that contains {@link EventHandler}s.
+ * <br/>
+ * NOTE: Implementations are generated by the annotation processor as {@code <Listener>$$EventRegistration}
+ * and are looked up by name, so obfuscators must keep the name of both the registration and its listener
+ * (e.g {@code -keep class **$$EventRegistration} and {@code -keepnames} for the listeners with ProGuard).
+ */
+public interface EventRegistration {
+    /**
+     * Define the suffix appended to the binary name of the listener for the generated registration.
+     */
+    public final static String SUFFIX = "$$EventRegistration";
+
+    /**
+     * Subscribe all handlers of the listener into the given {@link EventManager}.
+     *
+     * @param manager  The manager where to subscribe the handlers.
+     * @param listener The object that contains the handlers.
+     * @param isWeak   True if the listener is only weakly referenced.
+     */
+    public void register(EventManager manager, Object listener, boolean isWeak);
+}
@@ -0,0 +1,260 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a preallocated ring buffer for dispatching asynchronous {@link Event}s (In the style of the
+ * LMAX Disruptor), publishing an event only claims a sequence and writes into an existing slot, while a
+ * single consumer thread dispatches every available event in batches.
+ */
+final class EventRingBuffer implements Runnable {
+    /**
+     * Define how many times the consumer spins before yielding and parking.
+     */
+    private final static int SPIN_TRIES = 100;
+    private final static int YIELD_TRIES = 200;
+
+    /**
+     * Define how many nanoseconds the consumer park while idle.
+     */
+    private final static long PARK_TIME = 100_000L;
+
+    private final EventManager mManager;
+    private final int mMask;
+    private final Event[] mEvents;
+    private final Consumer<?>[] mConsumers;
+
+    /**
+     * The sequence that has been published on each slot (Availability barrier).
+     */
+    private final AtomicLongArray mPublished;
+
+    /**
+     * The last sequence claimed by the producers.
+     */
+    private final AtomicLong mClaimed = new AtomicLong(-1L);
+
+    /**
+     * The last sequence dispatched by the consumer (Gating barrier).
+     */
+    private final AtomicLong mConsumed = new AtomicLong(-1L);
+
+    private final Thread mThread;
+    private volatile boolean mActive;
+
+    /**
+     * Default constructor for {@link EventRingBuffer}.
+     *
+     * @param manager  The manager that dispatches the events.
+     * @param capacity The number of slots (must be a power of two).
+     */
+    protected EventRingBuffer(EventManager manager, int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity of the ring buffer must be a power of two");
+        }
+        this.mManager = manager;
+        this.mMask = capacity - 1;
+        this.mEvents = new Event[capacity];
+        this.mConsumers = new Consumer<?>[capacity];
+        this.mPublished = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mPublished.set(i, -1L);
+        }
+        this.mThread = new Thread(this, "EventRingBuffer");
+        this.mThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the consumer of the ring buffer.
+     */
+    public void start() {
+        mActive = true;
+        mThread.start();
+    }
+
+    /**
+     * Stops the consumer of the ring buffer, after dispatching all events already published.
+     */
+    public void stop() {
+        mActive = false;
+        LockSupport.unpark(mThread);
+        drain();
+    }
+
+    /**
+     * Publish an event into the ring buffer, waiting if the ring buffer is full.
+     * <br/>
+     * NOTE: The event is dispatched on the calling thread if the ring buffer has been stopped, or if it is
+     *       full and the calling thread is the consumer itself (which would wait on itself).
+     *
+     * @param event    The event to be published.
+     * @param consumer The consumer to be called after being invoked or null if there isn't any.
+     */
+    public <T extends Event> void publish(T event, Consumer<T> consumer) {
+        if (!mActive) {
+            execute(event, consumer);
+            return;
+        }
+
+        //! A sequence is only claimed once its slot is free, so a producer never holds a sequence
+        //! the consumer is waiting on while the ring buffer is being stopped.
+        long nSequence;
+        do {
+            nSequence = mClaimed.get() + 1L;
+            while (nSequence - mEvents.length > mConsumed.get()) {
+                if (!mActive || Thread.currentThread() == mThread) {
+                    execute(event, consumer);
+                    return;
+                }
+                Thread.yield();
+            }
+        } while (!mClaimed.compareAndSet(nSequence - 1L, nSequence));
+
+        final int nSlot = (int) nSequence & mMask;
+        mEvents[nSlot] = event;
+        mConsumers[nSlot] = consumer;
+        mPublished.lazySet(nSlot, nSequence);
+
+        //! The consumer may have finished before the sequence was claimed, the event is then
+        //! dispatched by the producer itself (unless stop() already did).
+        if (!mActive && Thread.currentThread() != mThread) {
+            drain();
+        }
+    }
+
+    /**
+     * Retrieves the number of events pending to be dispatched.
+     *
+     * @return The number of events pending.
+     */
+    public long getPending() {
+        return mClaimed.get() - mConsumed.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        long nNext = mConsumed.get() + 1L;
+        int nIdle = 0;
+
+        while (mActive || nNext <= mClaimed.get()) {
+            // Find the highest contiguous sequence that has been published.
+            long nAvailable = nNext - 1L;
+            while (mPublished.get((int) (nAvailable + 1L) & mMask) == nAvailable + 1L) {
+                nAvailable++;
+            }
+            if (nAvailable < nNext) {
+                nIdle = idle(nIdle);
+                continue;
+            }
+            nIdle = 0;
+
+            // Dispatch the entire batch before releasing the slots to the producers.
+            for (long sequence = nNext; sequence <= nAvailable; sequence++) {
+                dispatch((int) sequence & mMask);
+            }
+            mConsumed.lazySet(nAvailable);
+            nNext = nAvailable + 1L;
+        }
+    }
+
+    /**
+     * Wait until the consumer has finished, and dispatch every event that has been published after it.
+     */
+    private synchronized void drain() {
+        //! The consumer must have finished, otherwise the events would be dispatched twice.
+        boolean isInterrupted = false;
+        while (mThread.isAlive()) {
+            try {
+                mThread.join();
+            } catch (InterruptedException ignored) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        long nNext = mConsumed.get() + 1L;
+        while (nNext <= mClaimed.get()) {
+            final int nSlot = (int) nNext & mMask;
+            while (mPublished.get(nSlot) != nNext) {
+                Thread.yield();
+            }
+            dispatch(nSlot);
+            mConsumed.lazySet(nNext++);
+        }
+    }
+
+    /**
+     * Dispatch the event at the given slot.
+     *
+     * @param slot The slot of the event.
+     */
+    private void dispatch(int slot) {
+        final Event nEvent = mEvents[slot];
+        final Consumer<?> nConsumer = mConsumers[slot];
+        mEvents[slot] = null;
+        mConsumers[slot] = null;
+        execute(nEvent, nConsumer);
+    }
+
+    /**
+     * Dispatch an event and call its consumer.
+     *
+     * @param event    The event to be dispatched.
+     * @param consumer The consumer to be called after being invoked or null if there isn't any.
+     */
+    private void execute(Event event, Consumer<?> consumer) {
+        @SuppressWarnings("unchecked")
+        final Consumer<Event> nConsumer = (Consumer<Event>) consumer;
+        try {
+            mManager.dispatch(event, mManager.isParallelDispatch());
+            if (nConsumer != null) {
+                nConsumer.accept(event);
+            }
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Wait while there isn't any event to dispatch.
+     *
+     * @param tries The number of times the consumer has been idle.
+     *
+     * @return The new number of times the consumer has been idle.
+     */
+    private int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            return tries + 1;
+        } else if (tries < YIELD_TRIES) {
+            Thread.yield();
+            return tries + 1;
+        }
+        LockSupport.parkNanos(PARK_TIME);
+        return tries;
+    }
+}
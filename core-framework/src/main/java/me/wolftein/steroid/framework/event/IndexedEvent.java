@@ -0,0 +1,31 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event;
+
+/**
+ * Define an {@link Event} that can be subscribed by an index (e.g the identifier of an entity), so only
+ * those consumers subscribed to the same index are executed.
+ */
+public interface IndexedEvent {
+    /**
+     * Retrieves the index of the event.
+     *
+     * @return The index of the event.
+     */
+    public long getIndex();
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event.journal;
+
+import me.wolftein.steroid.framework.event.Event;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Define how an {@link Event} is written into (and read from) the {@link EventJournal}.
+ */
+public interface EventCodec<T extends Event> {
+    /**
+     * Encode the fields of the event.
+     *
+     * @param event  The event to encode.
+     * @param buffer The buffer where to write the fields.
+     */
+    public void encode(T event, ByteBuffer buffer);
+
+    /**
+     * Decode a new event from its fields.
+     *
+     * @param buffer The buffer where to read the fields from.
+     *
+     * @return A new event with the given fields.
+     */
+    public T decode(ByteBuffer buffer);
+
+    /**
+     * Helper method to write a string (that may be null) into a buffer.
+     *
+     * @param buffer The buffer where to write the string.
+     * @param value  The string to write.
+     */
+    public static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            final byte[] nBytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(nBytes.length).put(nBytes);
+        }
+    }
+
+    /**
+     * Helper method to read a string (that may be null) from a buffer.
+     *
+     * @param buffer The buffer where to read the string from.
+     *
+     * @return The string that has been read.
+     */
+    public static String getString(ByteBuffer buffer) {
+        final int nLength = buffer.getInt();
+        if (nLength < 0) {
+            return null;
+        }
+        final byte[] nBytes = new byte[nLength];
+        buffer.get(nBytes);
+        return new String(nBytes, StandardCharsets.UTF_8);
+    }
+}
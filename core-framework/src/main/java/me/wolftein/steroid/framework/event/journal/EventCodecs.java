@@ -0,0 +1,66 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event.journal;
+
+import me.wolftein.steroid.framework.event.Event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encapsulate the {@link EventCodec} of each type of {@link Event} that can be journaled.
+ */
+public final class EventCodecs {
+    private final Map<Class<?>, EventCodec<?>> mCodecs = new ConcurrentHashMap<>();
+
+    /**
+     * Register the codec for the given type of event.
+     *
+     * @param type  The class of the event.
+     * @param codec The codec of the event.
+     *
+     * @return A reference to this registry.
+     */
+    public <T extends Event> EventCodecs register(Class<T> type, EventCodec<T> codec) {
+        mCodecs.put(type, codec);
+        return this;
+    }
+
+    /**
+     * Retrieves the codec for the given type of event.
+     *
+     * @param type The class of the event.
+     *
+     * @return The codec of the event or null if there isn't any.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Event> EventCodec<T> get(Class<T> type) {
+        return (EventCodec<T>) mCodecs.get(type);
+    }
+
+    /**
+     * Check if there is a codec for the given type of event.
+     *
+     * @param type The class of the event.
+     *
+     * @return True if there is a codec for the event, false otherwise.
+     */
+    public boolean contains(Class<? extends Event> type) {
+        return mCodecs.containsKey(type);
+    }
+}
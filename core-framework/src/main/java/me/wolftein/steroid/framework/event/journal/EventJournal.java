@@ -0,0 +1,369 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event.journal;
+
+import com.gs.collections.api.set.primitive.MutableIntSet;
+import com.gs.collections.impl.factory.primitive.IntSets;
+import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.EventInterceptor;
+import me.wolftein.steroid.framework.event.EventManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Encapsulate an {@link EventInterceptor} that records every dispatched {@link Event} into append-only,
+ * memory-mapped segment files.
+ * <br/>
+ * Each record is {@code [int size][int type][long timestamp][fields]}, the name of each type is written
+ * once per segment in a definition record. Events are encoded into preallocated slots by the dispatching
+ * thread and written by a background thread, if there isn't any free slot the record is dropped instead
+ * of blocking the dispatching thread.
+ */
+public final class EventJournal implements EventInterceptor {
+    /**
+     * Define the type of a record that defines the name of a type.
+     */
+    protected final static int RECORD_DEFINITION = -1;
+
+    /**
+     * Define the size of the header of a record.
+     */
+    protected final static int RECORD_HEADER = 16;
+
+    /**
+     * Define the prefix and suffix of the name of each segment.
+     */
+    protected final static String SEGMENT_PREFIX = "journal-";
+    protected final static String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Define the default configuration of the journal.
+     */
+    private final static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private final static int DEFAULT_CAPACITY = 8192;
+    private final static int DEFAULT_RECORD_SIZE = 4096;
+
+    private final Path mDirectory;
+    private final EventCodecs mCodecs;
+    private final int mSegmentSize;
+
+    /**
+     * The preallocated slots (See {@link me.wolftein.steroid.framework.event.EventManager#enableRingBuffer(int)}).
+     */
+    private final int mMask;
+    private final ByteBuffer[] mRecords;
+    private final Class<?>[] mTypes;
+    private final int[] mIds;
+    private final long[] mTimestamps;
+    private final AtomicLongArray mPublished;
+    private final AtomicLong mClaimed = new AtomicLong(-1L);
+    private final AtomicLong mConsumed = new AtomicLong(-1L);
+
+    private final LongAdder mDropped = new LongAdder();
+    private final LongAdder mWritten = new LongAdder();
+
+    /**
+     * The state of the background thread.
+     */
+    private final MutableIntSet mDefinitions = IntSets.mutable.empty();
+    private Thread mThread;
+    private volatile boolean mActive;
+    private FileChannel mChannel;
+    private MappedByteBuffer mSegment;
+    private int mSegmentIndex;
+
+    /**
+     * Default constructor for {@link EventJournal}.
+     *
+     * @param directory The directory where to write the segments.
+     * @param codecs    The codecs of the events.
+     */
+    public EventJournal(Path directory, EventCodecs codecs) {
+        this(directory, codecs, DEFAULT_SEGMENT_SIZE, DEFAULT_CAPACITY, DEFAULT_RECORD_SIZE);
+    }
+
+    /**
+     * Constructor for {@link EventJournal}.
+     *
+     * @param directory   The directory where to write the segments.
+     * @param codecs      The codecs of the events.
+     * @param segmentSize The size (in bytes) of each segment.
+     * @param capacity    The number of records that can be pending (must be a power of two).
+     * @param recordSize  The maximum size (in bytes) of the fields of a record.
+     */
+    public EventJournal(Path directory, EventCodecs codecs, int segmentSize, int capacity, int recordSize) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity of the journal must be a power of two");
+        }
+        this.mDirectory = directory;
+        this.mCodecs = codecs;
+        this.mSegmentSize = segmentSize;
+        this.mMask = capacity - 1;
+        this.mRecords = new ByteBuffer[capacity];
+        this.mTypes = new Class<?>[capacity];
+        this.mIds = new int[capacity];
+        this.mTimestamps = new long[capacity];
+        this.mPublished = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mRecords[i] = ByteBuffer.allocate(recordSize);
+            mPublished.set(i, -1L);
+        }
+    }
+
+    /**
+     * Starts recording the events of the given manager.
+     *
+     * @param manager The manager to record from.
+     */
+    public void start(EventManager manager) {
+        if (mActive) {
+            throw new IllegalStateException("Journal has been already started.");
+        }
+        try {
+            Files.createDirectories(mDirectory);
+            try (final Stream<Path> nFiles = Files.list(mDirectory)) {
+                //! Continue after the highest segment, as older segments may have been deleted.
+                mSegmentIndex = nFiles.mapToInt(EventJournal::getSegmentIndex).max().orElse(-1) + 1;
+            }
+            openSegment();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        mActive = true;
+        mThread = new Thread(this::run, "EventJournal");
+        mThread.setDaemon(true);
+        mThread.start();
+        manager.addInterceptor(this);
+    }
+
+    /**
+     * Stops recording the events of the given manager, after writing all records pending.
+     *
+     * @param manager The manager to stop recording from.
+     */
+    public void stop(EventManager manager) {
+        if (!mActive) {
+            throw new IllegalStateException("Journal has not been started.");
+        }
+        manager.removeInterceptor(this);
+
+        mActive = false;
+        LockSupport.unpark(mThread);
+        try {
+            mThread.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves the number of records that has been dropped (Journal full, record too big or failed to encode).
+     *
+     * @return The number of records dropped.
+     */
+    public long getDropped() {
+        return mDropped.sum();
+    }
+
+    /**
+     * Retrieves the number of records that has been written.
+     *
+     * @return The number of records written.
+     */
+    public long getWritten() {
+        return mWritten.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * NOTE: Only the types with a codec are observed, since the rest are recorded without their fields.
+     */
+    @Override
+    public boolean isObserving(Class<? extends Event> type) {
+        return mCodecs.contains(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEvent(Event event) {
+        @SuppressWarnings("unchecked")
+        final EventCodec<Event> nCodec = mCodecs.get((Class<Event>) event.getClass());
+
+        // Claim a slot, or drop the record if the writer is behind.
+        long nSequence;
+        do {
+            nSequence = mClaimed.get() + 1L;
+            if (nSequence - mRecords.length > mConsumed.get()) {
+                mDropped.increment();
+                return;
+            }
+        } while (!mClaimed.compareAndSet(nSequence - 1L, nSequence));
+
+        final int nSlot = (int) nSequence & mMask;
+        final ByteBuffer nRecord = mRecords[nSlot];
+        nRecord.clear();
+
+        // NOTE: The slot is always published (even if the codec fails), a null type tells the writer to skip it.
+        Class<?> nType = event.getClass();
+        if (nCodec != null) {
+            try {
+                nCodec.encode(event, nRecord);
+            } catch (RuntimeException exception) {
+                mDropped.increment();
+                nType = null;
+            }
+        }
+        nRecord.flip();
+        mTypes[nSlot] = nType;
+        mIds[nSlot] = event.getType();
+        mTimestamps[nSlot] = System.nanoTime();
+        mPublished.lazySet(nSlot, nSequence);
+    }
+
+    /**
+     * Write every record published, until the journal is stopped.
+     */
+    private void run() {
+        long nNext = 0L;
+        try {
+            while (mActive || nNext <= mClaimed.get()) {
+                long nAvailable = nNext - 1L;
+                while (mPublished.get((int) (nAvailable + 1L) & mMask) == nAvailable + 1L) {
+                    nAvailable++;
+                }
+                if (nAvailable < nNext) {
+                    LockSupport.parkNanos(1_000_000L);
+                    continue;
+                }
+                for (long sequence = nNext; sequence <= nAvailable; sequence++) {
+                    write((int) sequence & mMask);
+                }
+                mConsumed.lazySet(nAvailable);
+                nNext = nAvailable + 1L;
+            }
+            mSegment.force();
+            mChannel.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the record at the given slot into the segment.
+     *
+     * @param slot The slot of the record.
+     */
+    private void write(int slot) throws IOException {
+        final Class<?> nType = mTypes[slot];
+        final ByteBuffer nRecord = mRecords[slot];
+        mTypes[slot] = null;
+        if (nType == null) {
+            return;
+        }
+
+        final int nId = mIds[slot];
+        final byte[] nName = nType.getName().getBytes(StandardCharsets.UTF_8);
+        final int nDefinitionSize = RECORD_HEADER + 8 + nName.length;
+        final int nSize = RECORD_HEADER + nRecord.remaining();
+        if (nSize + nDefinitionSize > mSegmentSize) {
+            mDropped.increment();
+            return;
+        }
+
+        if (mSegment.remaining() < nSize + (mDefinitions.contains(nId) ? 0 : nDefinitionSize)) {
+            mSegment.force();
+            mChannel.close();
+            openSegment();
+        }
+        if (mDefinitions.add(nId)) {
+            mSegment.putInt(nDefinitionSize).putInt(RECORD_DEFINITION).putLong(0L);
+            mSegment.putInt(nId).putInt(nName.length).put(nName);
+        }
+        mSegment.putInt(nSize).putInt(nId).putLong(mTimestamps[slot]).put(nRecord);
+        mWritten.increment();
+    }
+
+    /**
+     * Open (and map) the next segment.
+     */
+    private void openSegment() throws IOException {
+        mChannel = FileChannel.open(mDirectory.resolve(getSegmentName(mSegmentIndex++)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mSegment = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, mSegmentSize);
+        mDefinitions.clear();
+    }
+
+    /**
+     * Retrieves the name of the segment with the given index.
+     *
+     * @param index The index of the segment.
+     *
+     * @return The name of the segment.
+     */
+    protected static String getSegmentName(int index) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Retrieves the index of the given segment.
+     *
+     * @param file The file of the segment.
+     *
+     * @return The index of the segment, or -1 if the file isn't a segment.
+     */
+    protected static int getSegmentIndex(Path file) {
+        if (!isSegment(file)) {
+            return -1;
+        }
+        final String nName = file.getFileName().toString();
+        try {
+            return Integer.parseInt(nName.substring(SEGMENT_PREFIX.length(), nName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * Check whenever the given file is a segment.
+     *
+     * @param file The file to check.
+     *
+     * @return True if the file is a segment, false otherwise.
+     */
+    protected static boolean isSegment(Path file) {
+        final String nName = file.getFileName().toString();
+        return nName.startsWith(SEGMENT_PREFIX) && nName.endsWith(SEGMENT_SUFFIX);
+    }
+}
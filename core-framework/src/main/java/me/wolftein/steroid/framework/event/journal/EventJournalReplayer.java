@@ -0,0 +1,134 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.event.journal;
+
+import com.gs.collections.api.map.primitive.MutableIntObjectMap;
+import com.gs.collections.impl.factory.primitive.IntObjectMaps;
+import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.EventManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Encapsulate a replayer that feeds every {@link Event} recorded by an {@link EventJournal} back through
+ * {@link EventManager#invokeEvent(Event)} at full speed.
+ * <br/>
+ * NOTE: Events without a {@link EventCodec} are skipped, since they cannot be created again.
+ */
+public final class EventJournalReplayer {
+    private final Path mDirectory;
+    private final EventCodecs mCodecs;
+
+    /**
+     * Default constructor for {@link EventJournalReplayer}.
+     *
+     * @param directory The directory where the segments are.
+     * @param codecs    The codecs of the events.
+     */
+    public EventJournalReplayer(Path directory, EventCodecs codecs) {
+        this.mDirectory = directory;
+        this.mCodecs = codecs;
+    }
+
+    /**
+     * Replay every segment of the journal.
+     *
+     * @param manager The manager where to invoke the events.
+     *
+     * @return The number of events that has been replayed.
+     */
+    public long replay(EventManager manager) throws IOException {
+        final List<Path> nSegments;
+        try (final Stream<Path> nFiles = Files.list(mDirectory)) {
+            nSegments = nFiles.filter(EventJournal::isSegment).sorted().collect(Collectors.toList());
+        }
+
+        long nCount = 0L;
+        for (final Path segment : nSegments) {
+            try (final FileChannel nChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                nCount += replay(manager, nChannel.map(FileChannel.MapMode.READ_ONLY, 0, nChannel.size()));
+            }
+        }
+        return nCount;
+    }
+
+    /**
+     * Replay a single segment of the journal.
+     *
+     * @param manager The manager where to invoke the events.
+     * @param segment The content of the segment.
+     *
+     * @return The number of events that has been replayed.
+     */
+    private long replay(EventManager manager, ByteBuffer segment) {
+        final MutableIntObjectMap<EventCodec<?>> nCodecs = IntObjectMaps.mutable.empty();
+
+        long nCount = 0L;
+        while (segment.remaining() >= EventJournal.RECORD_HEADER) {
+            final int nStart = segment.position();
+            final int nSize = segment.getInt();
+            if (nSize < EventJournal.RECORD_HEADER) {
+                break;      // End of the segment.
+            }
+            final int nType = segment.getInt();
+            segment.getLong();  // Timestamp.
+
+            final ByteBuffer nFields = segment.slice();
+            nFields.limit(nSize - EventJournal.RECORD_HEADER);
+
+            if (nType == EventJournal.RECORD_DEFINITION) {
+                final int nId = nFields.getInt();
+                final EventCodec<?> nCodec = getCodec(EventCodec.getString(nFields));
+                if (nCodec != null) {
+                    nCodecs.put(nId, nCodec);
+                }
+            } else {
+                final EventCodec<?> nCodec = nCodecs.get(nType);
+                if (nCodec != null) {
+                    manager.invokeEvent(nCodec.decode(nFields));
+                    nCount++;
+                }
+            }
+            segment.position(nStart + nSize);
+        }
+        return nCount;
+    }
+
+    /**
+     * Retrieves the codec of the type with the given name.
+     *
+     * @param name The name of the type.
+     *
+     * @return The codec of the type or null if there isn't any.
+     */
+    private EventCodec<?> getCodec(String name) {
+        try {
+            return mCodecs.get(Class.forName(name).asSubclass(Event.class));
+        } catch (ClassNotFoundException | ClassCastException ignored) {
+            return null;
+        }
+    }
+}
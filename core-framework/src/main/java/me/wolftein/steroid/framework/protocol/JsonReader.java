@@ -0,0 +1,691 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+
+/**
+ * Encapsulate a streaming (pull) parser that reads UTF-8 JSON directly from a {@link ByteBuf}, without
+ * decoding the whole buffer into a {@link String} or building a tree of values.
+ * <br/>
+ * NOTE: The reader never modifies the indexes of the buffer, and it's only valid while the buffer is.
+ */
+public final class JsonReader {
+    /**
+     * Enumerate all tokens of a JSON document.
+     */
+    public enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    /**
+     * Scopes of the reader.
+     */
+    private final static byte SCOPE_EMPTY_DOCUMENT = 0;
+    private final static byte SCOPE_NONEMPTY_DOCUMENT = 1;
+    private final static byte SCOPE_EMPTY_OBJECT = 2;
+    private final static byte SCOPE_NONEMPTY_OBJECT = 3;
+    private final static byte SCOPE_DANGLING_NAME = 4;
+    private final static byte SCOPE_EMPTY_ARRAY = 5;
+    private final static byte SCOPE_NONEMPTY_ARRAY = 6;
+
+    private final ByteBuf mBuffer;
+    private final int mLimit;
+    private int mPosition;
+
+    /**
+     * The backing array of the buffer (if any), which is read directly to avoid the bound checks.
+     */
+    private final byte[] mArray;
+    private final int mOffset;
+
+    /**
+     * The stack of scopes of the reader.
+     */
+    private byte[] mStack = new byte[8];
+    private int mDepth = 1;
+
+    /**
+     * The token that has been peeked but not consumed, or null if none.
+     */
+    private Token mPeeked;
+
+    /**
+     * Properties of the last string that has been scanned.
+     */
+    private boolean mIsEscaped;
+    private boolean mIsAscii;
+
+    /**
+     * Default constructor for {@link JsonReader}.
+     *
+     * @param buffer The buffer to read from (between its reader and writer index).
+     */
+    public JsonReader(ByteBuf buffer) {
+        this(buffer, buffer.readerIndex(), buffer.writerIndex());
+    }
+
+    /**
+     * Default constructor for {@link JsonReader}.
+     *
+     * @param buffer The buffer to read from.
+     * @param start  The absolute index of the first byte to read.
+     * @param end    The absolute index after the last byte to read.
+     */
+    public JsonReader(ByteBuf buffer, int start, int end) {
+        this.mBuffer = buffer;
+        this.mPosition = start;
+        this.mLimit = end;
+        this.mArray = (buffer.hasArray() ? buffer.array() : null);
+        this.mOffset = (buffer.hasArray() ? buffer.arrayOffset() : 0);
+        this.mStack[0] = SCOPE_EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Retrieves the type of the next token without consuming it.
+     *
+     * @return The type of the next token.
+     */
+    public Token peek() {
+        if (mPeeked != null) {
+            return mPeeked;
+        }
+        final int nCharacter;
+        switch (mStack[mDepth - 1]) {
+            case SCOPE_EMPTY_DOCUMENT:
+                mStack[mDepth - 1] = SCOPE_NONEMPTY_DOCUMENT;
+                return (mPeeked = peekValue());
+            case SCOPE_NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace(false) != -1) {
+                    throw syntaxError("Expected end of document");
+                }
+                return (mPeeked = Token.END_DOCUMENT);
+            case SCOPE_EMPTY_ARRAY:
+                mStack[mDepth - 1] = SCOPE_NONEMPTY_ARRAY;
+                if (nextNonWhitespace(true) == ']') {
+                    return (mPeeked = Token.END_ARRAY);
+                }
+                mPosition--;
+                return (mPeeked = peekValue());
+            case SCOPE_NONEMPTY_ARRAY:
+                nCharacter = nextNonWhitespace(true);
+                if (nCharacter == ']') {
+                    return (mPeeked = Token.END_ARRAY);
+                } else if (nCharacter != ',') {
+                    throw syntaxError("Expected ',' or ']'");
+                }
+                return (mPeeked = peekValue());
+            case SCOPE_EMPTY_OBJECT:
+            case SCOPE_NONEMPTY_OBJECT:
+                final boolean isEmpty = (mStack[mDepth - 1] == SCOPE_EMPTY_OBJECT);
+                mStack[mDepth - 1] = SCOPE_DANGLING_NAME;
+                if (!isEmpty) {
+                    final int nSeparator = nextNonWhitespace(true);
+                    if (nSeparator == '}') {
+                        return (mPeeked = Token.END_OBJECT);
+                    } else if (nSeparator != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                }
+                nCharacter = nextNonWhitespace(true);
+                if (nCharacter == '"') {
+                    return (mPeeked = Token.NAME);
+                } else if (nCharacter == '}' && isEmpty) {
+                    return (mPeeked = Token.END_OBJECT);
+                }
+                throw syntaxError("Expected name");
+            case SCOPE_DANGLING_NAME:
+                mStack[mDepth - 1] = SCOPE_NONEMPTY_OBJECT;
+                if (nextNonWhitespace(true) != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                return (mPeeked = peekValue());
+            default:
+                throw new IllegalStateException("Reader has been corrupted");
+        }
+    }
+
+    /**
+     * Check if the current object or array has another element.
+     *
+     * @return True if there is another element, false otherwise.
+     */
+    public boolean hasNext() {
+        final Token nToken = peek();
+        return nToken != Token.END_OBJECT && nToken != Token.END_ARRAY && nToken != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the beginning of an object.
+     */
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        push(SCOPE_EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     */
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        mDepth--;
+    }
+
+    /**
+     * Consumes the beginning of an array.
+     */
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        push(SCOPE_EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     */
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        mDepth--;
+    }
+
+    /**
+     * Consumes the name of the next property.
+     *
+     * @return The name of the property.
+     */
+    public String nextName() {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Consumes the name of the next property and retrieves its position on the given names, without
+     * allocating a {@link String}.
+     * <br/>
+     * NOTE: Only ASCII names can be matched.
+     *
+     * @param names The names to match.
+     *
+     * @return The position of the name, or -1 if it doesn't match any.
+     */
+    public int nextName(String[] names) {
+        expect(Token.NAME);
+        final int nStart = mPosition;
+        final int nLength = scanString();
+        if (mIsEscaped || !mIsAscii) {
+            return -1;
+        }
+        for (int i = 0; i < names.length; i++) {
+            final String nName = names[i];
+            if (nName.length() == nLength && isEqual(nName, nStart)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Consumes the next string value and resolves it as a method of the given table, without
+     * allocating a {@link String} when the buffer is backed by an array.
+     *
+     * @param table The table of the methods.
+     *
+     * @return The unique identifier of the method, or -1 if it hasn't been interned.
+     */
+    int nextMethod(MethodTable table) {
+        if (mArray == null || peek() != Token.STRING) {
+            return table.get(nextString());
+        }
+        mPeeked = null;
+        final int nStart = mPosition;
+        final int nLength = scanString();
+        return (mIsEscaped
+                ? table.get(unescape(mBuffer.toString(nStart, nLength, CharsetUtil.UTF_8)))
+                : table.get(mArray, mOffset + nStart, nLength));
+    }
+
+    /**
+     * Consumes the next string value as the name of a method, interning it if it hasn't been interned yet.
+     *
+     * @param table The table of the methods.
+     *
+     * @return The unique identifier of the method.
+     */
+    int nextMethodOrIntern(MethodTable table) {
+        if (mArray == null || peek() != Token.STRING) {
+            return table.intern(nextString());
+        }
+        mPeeked = null;
+        final int nStart = mPosition;
+        final int nLength = scanString();
+        if (mIsEscaped) {
+            return table.intern(unescape(mBuffer.toString(nStart, nLength, CharsetUtil.UTF_8)));
+        }
+        final int nId = table.get(mArray, mOffset + nStart, nLength);
+        return (nId != -1 ? nId : table.intern(mBuffer.toString(nStart, nLength, CharsetUtil.UTF_8)));
+    }
+
+    /**
+     * Consumes the next string or number value.
+     *
+     * @return The value as a string.
+     */
+    public String nextString() {
+        final Token nToken = peek();
+        if (nToken == Token.STRING) {
+            mPeeked = null;
+            return readString();
+        } else if (nToken == Token.NUMBER) {
+            mPeeked = null;
+            final int nStart = mPosition;
+            skipNumber();
+            return mBuffer.toString(nStart, mPosition - nStart, CharsetUtil.US_ASCII);
+        }
+        throw syntaxError("Expected a string but was " + nToken);
+    }
+
+    /**
+     * Consumes the next number value as a long, numbers encoded as strings are also accepted.
+     *
+     * @return The value as a long.
+     */
+    public long nextLong() {
+        final Token nToken = peek();
+        if (nToken == Token.STRING) {
+            mPeeked = null;
+            return Long.parseLong(readString());
+        } else if (nToken != Token.NUMBER) {
+            throw syntaxError("Expected a number but was " + nToken);
+        }
+        mPeeked = null;
+
+        final int nStart = mPosition;
+        final boolean isNegative = (byteAt(mPosition) == '-');
+        if (isNegative) {
+            mPosition++;
+        }
+        long nValue = 0L;
+        while (mPosition < mLimit) {
+            final int nDigit = byteAt(mPosition) - '0';
+            if (nDigit < 0 || nDigit > 9) {
+                break;
+            }
+            nValue = nValue * 10 + nDigit;
+            mPosition++;
+        }
+        if (mPosition < mLimit && isNumberPart(byteAt(mPosition))) {
+            // NOTE: Fractions and exponents fall back to a double, which is truncated.
+            mPosition = nStart;
+            skipNumber();
+            return (long) Double.parseDouble(mBuffer.toString(nStart, mPosition - nStart, CharsetUtil.US_ASCII));
+        }
+        return (isNegative ? -nValue : nValue);
+    }
+
+    /**
+     * Consumes the next number value as an integer, numbers encoded as strings are also accepted.
+     *
+     * @return The value as an integer.
+     */
+    public int nextInt() {
+        final long nValue = nextLong();
+        if (nValue != (int) nValue) {
+            throw syntaxError("Expected an int but was " + nValue);
+        }
+        return (int) nValue;
+    }
+
+    /**
+     * Consumes the next number value as a double, numbers encoded as strings are also accepted.
+     *
+     * @return The value as a double.
+     */
+    public double nextDouble() {
+        return Double.parseDouble(nextString());
+    }
+
+    /**
+     * Consumes the next boolean value.
+     *
+     * @return The value as a boolean.
+     */
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        if (byteAt(mPosition) == 't') {
+            consumeLiteral("true");
+            return true;
+        }
+        consumeLiteral("false");
+        return false;
+    }
+
+    /**
+     * Consumes the next null value.
+     */
+    public void nextNull() {
+        expect(Token.NULL);
+        consumeLiteral("null");
+    }
+
+    /**
+     * Skips the next value (including all nested values of an object or array), or the next property
+     * (name and value) if the reader is positioned on a name.
+     * <br/>
+     * NOTE: Nested values are skipped by matching brackets only, hence they are not validated.
+     */
+    public void skipValue() {
+        Token nToken = peek();
+        mPeeked = null;
+        if (nToken == Token.NAME) {
+            skipString();
+            nToken = peek();
+            mPeeked = null;
+        }
+        switch (nToken) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                skipNested();
+                break;
+            case STRING:
+                skipString();
+                break;
+            case NUMBER:
+                skipNumber();
+                break;
+            case BOOLEAN:
+                consumeLiteral(byteAt(mPosition) == 't' ? "true" : "false");
+                break;
+            case NULL:
+                consumeLiteral("null");
+                break;
+            default:
+                throw syntaxError("Expected a value but was " + nToken);
+        }
+    }
+
+    /**
+     * Consumes the next value and retrieves the bytes that represent it, without copying them.
+     *
+     * @return A slice of the buffer that contains the value.
+     */
+    public ByteBuf nextValueSlice() {
+        final Token nToken = peek();
+        final int nStart;
+        switch (nToken) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+            case STRING:
+                nStart = mPosition - 1;
+                break;
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                nStart = mPosition;
+                break;
+            default:
+                throw syntaxError("Expected a value but was " + nToken);
+        }
+        skipValue();
+        return mBuffer.slice(nStart, mPosition - nStart);
+    }
+
+    /**
+     * Consumes the expected token.
+     */
+    private void expect(Token token) {
+        final Token nToken = peek();
+        if (nToken != token) {
+            throw syntaxError("Expected " + token + " but was " + nToken);
+        }
+        mPeeked = null;
+    }
+
+    /**
+     * Pushes a new scope into the stack.
+     */
+    private void push(byte scope) {
+        if (mDepth == mStack.length) {
+            mStack = Arrays.copyOf(mStack, mDepth << 1);
+        }
+        mStack[mDepth++] = scope;
+    }
+
+    /**
+     * Peeks the token of the next value.
+     */
+    private Token peekValue() {
+        final int nCharacter = nextNonWhitespace(true);
+        switch (nCharacter) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                mPosition--;
+                return Token.BOOLEAN;
+            case 'n':
+                mPosition--;
+                return Token.NULL;
+            default:
+                if (nCharacter == '-' || (nCharacter >= '0' && nCharacter <= '9')) {
+                    mPosition--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) nCharacter + "'");
+        }
+    }
+
+    /**
+     * Consumes all whitespaces and retrieves the next character (consuming it).
+     */
+    private int nextNonWhitespace(boolean isRequired) {
+        while (mPosition < mLimit) {
+            final byte nCharacter = byteAt(mPosition++);
+            if (nCharacter != ' ' && nCharacter != '\n' && nCharacter != '\r' && nCharacter != '\t') {
+                return nCharacter;
+            }
+        }
+        if (isRequired) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a string whose opening quote has been consumed.
+     */
+    @SuppressWarnings("deprecation")
+    private String readString() {
+        final int nStart = mPosition;
+        final int nLength = scanString();
+        final String nValue = (mIsAscii && mArray != null
+                ? new String(mArray, 0, mOffset + nStart, nLength)
+                : mBuffer.toString(nStart, nLength, CharsetUtil.UTF_8));
+        return (mIsEscaped ? unescape(nValue) : nValue);
+    }
+
+    /**
+     * Consumes a string whose opening quote has been consumed, and retrieves its (encoded) length.
+     */
+    private int scanString() {
+        final int nStart = mPosition;
+        mIsEscaped = false;
+        mIsAscii = true;
+        while (mPosition < mLimit) {
+            final byte nCharacter = byteAt(mPosition++);
+            if (nCharacter == '"') {
+                return mPosition - nStart - 1;
+            } else if (nCharacter == '\\') {
+                mIsEscaped = true;
+                mPosition++;
+            } else if (nCharacter < 0) {
+                mIsAscii = false;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Retrieves the byte at the given absolute index.
+     */
+    private byte byteAt(int index) {
+        return (mArray != null ? mArray[mOffset + index] : mBuffer.getByte(index));
+    }
+
+    /**
+     * Skips a string whose opening quote has been consumed.
+     */
+    private void skipString() {
+        while (mPosition < mLimit) {
+            final byte nCharacter = byteAt(mPosition++);
+            if (nCharacter == '"') {
+                return;
+            } else if (nCharacter == '\\') {
+                mPosition++;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Skips an object or array whose opening bracket has been consumed.
+     */
+    private void skipNested() {
+        int nDepth = 1;
+        while (mPosition < mLimit) {
+            final byte nCharacter = byteAt(mPosition++);
+            if (nCharacter == '"') {
+                skipString();
+            } else if (nCharacter == '{' || nCharacter == '[') {
+                nDepth++;
+            } else if ((nCharacter == '}' || nCharacter == ']') && --nDepth == 0) {
+                return;
+            }
+        }
+        throw syntaxError("Unexpected end of document");
+    }
+
+    /**
+     * Skips a number.
+     */
+    private void skipNumber() {
+        while (mPosition < mLimit && isNumberPart(byteAt(mPosition))) {
+            mPosition++;
+        }
+    }
+
+    /**
+     * Consumes the given literal.
+     */
+    private void consumeLiteral(String literal) {
+        final int nLength = literal.length();
+        if (mPosition + nLength > mLimit) {
+            throw syntaxError("Expected '" + literal + "'");
+        }
+        for (int i = 0; i < nLength; i++) {
+            if (byteAt(mPosition + i) != literal.charAt(i)) {
+                throw syntaxError("Expected '" + literal + "'");
+            }
+        }
+        mPosition += nLength;
+    }
+
+    /**
+     * Check if the given ASCII name is equal to the bytes at the given absolute index.
+     */
+    private boolean isEqual(String name, int index) {
+        for (int i = 0, j = name.length(); i < j; i++) {
+            if (byteAt(index + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the given character is part of a number.
+     */
+    private static boolean isNumberPart(byte character) {
+        return (character >= '0' && character <= '9')
+                || character == '-' || character == '+' || character == '.' || character == 'e' || character == 'E';
+    }
+
+    /**
+     * Resolves all escape sequences of the given string.
+     */
+    private String unescape(String value) {
+        final StringBuilder nBuilder = new StringBuilder(value.length());
+        for (int i = 0, j = value.length(); i < j; i++) {
+            final char nCharacter = value.charAt(i);
+            if (nCharacter != '\\') {
+                nBuilder.append(nCharacter);
+                continue;
+            }
+            final char nEscape = value.charAt(++i);
+            switch (nEscape) {
+                case 'b':
+                    nBuilder.append('\b');
+                    break;
+                case 'f':
+                    nBuilder.append('\f');
+                    break;
+                case 'n':
+                    nBuilder.append('\n');
+                    break;
+                case 'r':
+                    nBuilder.append('\r');
+                    break;
+                case 't':
+                    nBuilder.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= j) {
+                        throw syntaxError("Invalid unicode escape sequence");
+                    }
+                    nBuilder.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    nBuilder.append(nEscape);
+                    break;
+            }
+        }
+        return nBuilder.toString();
+    }
+
+    /**
+     * Creates an exception for a syntax error at the current position.
+     */
+    private IllegalStateException syntaxError(String message) {
+        return new IllegalStateException(message + " at index " + mPosition);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import com.eclipsesource.json.JsonObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Encapsulate a pre-encoded message of fixed shape, where only integer values are written on each send.
+ * <br/>
+ * The data of the template is written as JSON with a <code>?</code> for each value (in order), a value
+ * that is quoted is written as a string (e.g <code>{"item":"?","pos":{"x":?,"y":?}}</code>).
+ */
+public final class MessageTemplate {
+    /**
+     * The bytes of {@link Integer#MIN_VALUE}, which cannot be negated.
+     */
+    private final static byte[] MIN_VALUE = String.valueOf(Integer.MIN_VALUE).getBytes(CharsetUtil.US_ASCII);
+
+    /**
+     * The maximum number of bytes of an integer.
+     */
+    private final static int MAX_INTEGER_LENGTH = MIN_VALUE.length;
+
+    private final String mFunction;
+    private final byte[][] mSegments;
+    private final int mMaxLength;
+    private final boolean mImmediate;
+
+    /**
+     * Default constructor for {@link MessageTemplate}.
+     *
+     * @param function The name of the message.
+     * @param data     The data of the message.
+     */
+    public MessageTemplate(String function, String data) {
+        this(function, data, false);
+    }
+
+    /**
+     * Default constructor for {@link MessageTemplate}.
+     *
+     * @param function    The name of the message.
+     * @param data        The data of the message.
+     * @param isImmediate True if the message is flushed immediately (See {@link SessionFlushMode}).
+     */
+    public MessageTemplate(String function, String data, boolean isImmediate) {
+        try {
+            JsonObject.readFrom(data.replace("?", "0"));
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Invalid data for template " + function, exception);
+        }
+        final String nMessage = new JsonObject().add("function", function).toString();
+        final String[] nSegments = (nMessage.substring(0, nMessage.length() - 1)
+                + ",\"data\":" + data + "}").split("\\?", -1);
+
+        this.mFunction = function;
+        this.mSegments = new byte[nSegments.length][];
+        int nLength = 0;
+        for (int i = 0; i < nSegments.length; i++) {
+            mSegments[i] = nSegments[i].getBytes(CharsetUtil.UTF_8);
+            nLength += mSegments[i].length;
+        }
+        this.mMaxLength = nLength + (nSegments.length - 1) * MAX_INTEGER_LENGTH;
+        this.mImmediate = isImmediate;
+    }
+
+    /**
+     * Retrieves the name of the message.
+     *
+     * @return The name of the message.
+     */
+    public String getFunction() {
+        return mFunction;
+    }
+
+    /**
+     * Retrieves the number of values of the message.
+     *
+     * @return The number of values of the message.
+     */
+    public int getValueCount() {
+        return mSegments.length - 1;
+    }
+
+    /**
+     * Check if the message is flushed immediately.
+     *
+     * @return True if the message is flushed immediately, false otherwise.
+     */
+    public boolean isImmediate() {
+        return mImmediate;
+    }
+
+    /**
+     * Encodes the message with one value.
+     *
+     * @param allocator The allocator of the buffer.
+     * @param value0    The first value.
+     *
+     * @return A direct buffer that contains the message.
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, int value0) {
+        checkValueCount(1);
+        final ByteBuf nBuffer = allocator.directBuffer(mMaxLength);
+        writeSegment(nBuffer, 0);
+        writeInt(nBuffer, value0);
+        writeSegment(nBuffer, 1);
+        return nBuffer;
+    }
+
+    /**
+     * Encodes the message with two values.
+     *
+     * @param allocator The allocator of the buffer.
+     * @param value0    The first value.
+     * @param value1    The second value.
+     *
+     * @return A direct buffer that contains the message.
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, int value0, int value1) {
+        checkValueCount(2);
+        final ByteBuf nBuffer = allocator.directBuffer(mMaxLength);
+        writeSegment(nBuffer, 0);
+        writeInt(nBuffer, value0);
+        writeSegment(nBuffer, 1);
+        writeInt(nBuffer, value1);
+        writeSegment(nBuffer, 2);
+        return nBuffer;
+    }
+
+    /**
+     * Encodes the message with three values.
+     *
+     * @param allocator The allocator of the buffer.
+     * @param value0    The first value.
+     * @param value1    The second value.
+     * @param value2    The third value.
+     *
+     * @return A direct buffer that contains the message.
+     */
+    public ByteBuf encode(ByteBufAllocator allocator, int value0, int value1, int value2) {
+        checkValueCount(3);
+        final ByteBuf nBuffer = allocator.directBuffer(mMaxLength);
+        writeSegment(nBuffer, 0);
+        writeInt(nBuffer, value0);
+        writeSegment(nBuffer, 1);
+        writeInt(nBuffer, value1);
+        writeSegment(nBuffer, 2);
+        writeInt(nBuffer, value2);
+        writeSegment(nBuffer, 3);
+        return nBuffer;
+    }
+
+    /**
+     * Check if the template has the given number of values.
+     */
+    private void checkValueCount(int count) {
+        if (getValueCount() != count) {
+            throw new IllegalArgumentException(
+                    "Template " + mFunction + " requires " + getValueCount() + " values but got " + count);
+        }
+    }
+
+    /**
+     * Writes a segment of the template into the buffer.
+     * <br/>
+     * NOTE: {@link ByteBuf#writeBytes(byte[])} may allocate a temporary view of direct buffers.
+     */
+    private void writeSegment(ByteBuf buffer, int index) {
+        final byte[] nSegment = mSegments[index];
+        for (final byte value : nSegment) {
+            buffer.writeByte(value);
+        }
+    }
+
+    /**
+     * Writes the digits of an integer into the buffer.
+     */
+    private static void writeInt(ByteBuf buffer, int value) {
+        if (value == Integer.MIN_VALUE) {
+            buffer.writeBytes(MIN_VALUE);
+            return;
+        }
+        if (value < 0) {
+            buffer.writeByte('-');
+            value = -value;
+        }
+        int nLength = 1;
+        for (int i = value; i >= 10; i /= 10) {
+            nLength++;
+        }
+        final int nIndex = buffer.writerIndex();
+        for (int i = nIndex + nLength - 1; i >= nIndex; i--) {
+            buffer.setByte(i, '0' + value % 10);
+            value /= 10;
+        }
+        buffer.writerIndex(nIndex + nLength);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+
+/**
+ * Encapsulate a table that interns the name of the methods of the protocol into dense identifiers,
+ * which can be resolved straight from the (UTF-8) bytes of a message without allocating a {@link String}.
+ * <br/>
+ * NOTE: Names are compared byte by byte, hence two different names never share an identifier.
+ */
+final class MethodTable {
+    /**
+     * Encapsulate an entry of the table.
+     */
+    private final static class Entry {
+        private final byte[] mName;
+        private final int mHash;
+        private final int mId;
+
+        private Entry(byte[] name, int hash, int id) {
+            this.mName = name;
+            this.mHash = hash;
+            this.mId = id;
+        }
+    }
+
+    /**
+     * The open addressing table of the entries (copy-on-write).
+     */
+    private volatile Entry[] mTable = new Entry[16];
+
+    /**
+     * The name of each identifier.
+     */
+    private volatile String[] mNames = new String[0];
+
+    /**
+     * Interns the given method.
+     *
+     * @param name The name of the method.
+     *
+     * @return The unique identifier of the method.
+     */
+    public synchronized int intern(String name) {
+        final int nExisting = get(name);
+        if (nExisting != -1) {
+            return nExisting;
+        }
+        final int nId = mNames.length;
+        final byte[] nName = name.getBytes(CharsetUtil.UTF_8);
+
+        //! Keep the table at most half full, so probing stays short.
+        final Entry[] nTable;
+        if ((nId + 1) * 2 > mTable.length) {
+            nTable = new Entry[mTable.length << 1];
+            for (final Entry entry : mTable) {
+                if (entry != null) {
+                    insert(nTable, entry);
+                }
+            }
+        } else {
+            nTable = mTable.clone();
+        }
+        insert(nTable, new Entry(nName, hash(nName, 0, nName.length), nId));
+
+        final String[] nNames = Arrays.copyOf(mNames, nId + 1);
+        nNames[nId] = name;
+        mTable = nTable;
+        mNames = nNames;
+        return nId;
+    }
+
+    /**
+     * Retrieves the unique identifier of the given method.
+     *
+     * @param name The name of the method.
+     *
+     * @return The unique identifier of the method, or -1 if the method hasn't been interned.
+     */
+    public int get(String name) {
+        final byte[] nName = name.getBytes(CharsetUtil.UTF_8);
+        return get(nName, 0, nName.length);
+    }
+
+    /**
+     * Retrieves the unique identifier of the method encoded in the given bytes.
+     *
+     * @param array  The array that contains the name of the method.
+     * @param offset The offset of the name on the array.
+     * @param length The length of the name.
+     *
+     * @return The unique identifier of the method, or -1 if the method hasn't been interned.
+     */
+    public int get(byte[] array, int offset, int length) {
+        final Entry[] nTable = mTable;
+        final int nHash = hash(array, offset, length);
+        final int nMask = nTable.length - 1;
+        for (int i = nHash & nMask; ; i = (i + 1) & nMask) {
+            final Entry nEntry = nTable[i];
+            if (nEntry == null) {
+                return -1;
+            } else if (nEntry.mHash == nHash && isEqual(nEntry.mName, array, offset, length)) {
+                return nEntry.mId;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the name of the given method.
+     *
+     * @param id The unique identifier of the method.
+     *
+     * @return The name of the method.
+     */
+    public String getName(int id) {
+        return mNames[id];
+    }
+
+    /**
+     * Retrieves the number of methods that has been interned.
+     *
+     * @return The number of methods that has been interned.
+     */
+    public int size() {
+        return mNames.length;
+    }
+
+    /**
+     * Inserts an entry into the given table.
+     */
+    private static void insert(Entry[] table, Entry entry) {
+        final int nMask = table.length - 1;
+        int nIndex = entry.mHash & nMask;
+        while (table[nIndex] != null) {
+            nIndex = (nIndex + 1) & nMask;
+        }
+        table[nIndex] = entry;
+    }
+
+    /**
+     * Calculates the hash of the given bytes.
+     */
+    private static int hash(byte[] array, int offset, int length) {
+        int nHash = 0;
+        for (int i = offset, j = offset + length; i < j; i++) {
+            nHash = 31 * nHash + array[i];
+        }
+        return nHash ^ (nHash >>> 16);
+    }
+
+    /**
+     * Check if the given bytes are equal to the name.
+     */
+    private static boolean isEqual(byte[] name, byte[] array, int offset, int length) {
+        if (name.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name[i] != array[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
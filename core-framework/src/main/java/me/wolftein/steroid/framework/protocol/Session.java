@@ -18,42 +18,94 @@
 package me.wolftein.steroid.framework.protocol;
 
 import com.eclipsesource.json.JsonObject;
-import com.gs.collections.api.map.primitive.MutableIntObjectMap;
 import com.gs.collections.api.tuple.Pair;
-import com.gs.collections.impl.factory.primitive.IntObjectMaps;
 import com.gs.collections.impl.list.mutable.FastList;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionDecoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import me.wolftein.steroid.framework.event.Event;
 import me.wolftein.steroid.framework.event.EventManager;
 import me.wolftein.steroid.framework.protocol.event.SessionConnectEvent;
 import me.wolftein.steroid.framework.protocol.event.SessionDisconnectEvent;
+import me.wolftein.steroid.framework.protocol.event.SessionReconnectEvent;
 import me.wolftein.steroid.framework.protocol.event.SessionRecvMessageEvent;
 import me.wolftein.steroid.framework.protocol.event.SessionSendMessageEvent;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
  * Define the session for communicating with another session.
  */
 public final class Session {
+    /**
+     * Encapsulate the listeners of a method.
+     */
+    private final static class Route {
+        private volatile Queue<Consumer<JsonObject>> mConsumers;
+        private volatile Queue<Consumer<JsonReader>> mStreams;
+    }
+
+    /**
+     * The names of the fields of a message.
+     */
+    private final static String[] FIELDS = {"function", "data"};
+    private final static int FIELD_FUNCTION = 0;
+    private final static int FIELD_DATA = 1;
+
+    /**
+     * The size of the window (as a power of two) of the compression requested to the server.
+     */
+    private final static int MAX_WINDOW_SIZE = 15;
+
+    /**
+     * The maximum number of messages pending to be dispatched.
+     */
+    private final static int INBOUND_CAPACITY = 4096;
+
+    /**
+     * The data given to the listeners when the message doesn't have any.
+     */
+    private final static ByteBuf EMPTY_DATA = Unpooled.unreleasableBuffer(
+            Unpooled.copiedBuffer("{}", CharsetUtil.US_ASCII));
+
     /**
      * The {@link EventManager} of the session.
      */
@@ -70,40 +122,168 @@ public final class Session {
     private final EventLoopGroup mWorkerGroup;
 
     /**
-     * A map that contains a list of listeners for the given message.
+     * True if the session owns the worker, false if it's shared with other sessions.
+     */
+    private final boolean mOwner;
+
+    /**
+     * The transport of the {@link Channel}.
+     */
+    private final SessionTransport mTransport;
+
+    /**
+     * The table that interns the name of every method that has a listener.
+     */
+    private final MethodTable mMethods = new MethodTable();
+
+    /**
+     * An array that contains the listeners of each method (indexed by the identifier of the method).
+     */
+    private volatile Route[] mRoutes = new Route[0];
+
+    /**
+     * The mode on how messages are flushed.
+     */
+    private volatile SessionFlushMode mFlushMode = SessionFlushMode.IMMEDIATE;
+
+    /**
+     * True if there are messages written but not flushed.
+     */
+    private final AtomicBoolean mFlushPending = new AtomicBoolean(false);
+
+    /**
+     * Statistics of the messages written and the number of flushes (each one is a system call).
+     */
+    private final LongAdder mWriteCount = new LongAdder();
+    private final LongAdder mFlushCount = new LongAdder();
+
+    /**
+     * The queue of the messages that couldn't be written because of backpressure.
+     */
+    private final SessionOutboundQueue mOutbound = new SessionOutboundQueue();
+
+    /**
+     * True if the queue is going to be drained by the event loop of the channel.
+     */
+    private final AtomicBoolean mDrainPending = new AtomicBoolean(false);
+
+    /**
+     * The water marks (in bytes) of the outbound buffer of the channel.
+     */
+    private volatile int mLowWaterMark = 8 * 1024;
+    private volatile int mHighWaterMark = 32 * 1024;
+
+    /**
+     * The level of the compression (permessage-deflate) requested by the session, and the level requested
+     * by the current channel (zero if disabled).
+     */
+    private volatile int mCompressionLevel;
+    private volatile int mChannelCompressionLevel;
+
+    /**
+     * The statistics of the compression.
+     */
+    private final SessionCompressionStats mCompressionStats = new SessionCompressionStats();
+
+    /**
+     * The wire statistics of every function (only accounted while enabled).
      */
-    private final MutableIntObjectMap<Queue<Consumer<JsonObject>>> mListeners = IntObjectMaps.mutable.empty();
+    private final SessionMetrics mMetrics = new SessionMetrics(mMethods);
+    private volatile boolean mMetricsEnabled;
+
+    /**
+     * The mode on how the listeners of the messages are called.
+     */
+    private volatile SessionDispatchMode mDispatchMode = SessionDispatchMode.IMMEDIATE;
+
+    /**
+     * The queue of the messages pending to be dispatched (See {@link SessionDispatchMode#TICK}).
+     */
+    private final SessionInboundQueue mInbound = new SessionInboundQueue(INBOUND_CAPACITY);
+
+    /**
+     * The channel that has stopped reading because too many messages are pending (null if none).
+     */
+    private volatile Channel mInboundPaused;
 
     /**
      * The handler of the {@link Channel}.
      */
-    private SessionInboundHandler mChannelHandler;
+    private volatile SessionInboundHandler mChannelHandler;
+
+    /**
+     * The maximum time for the handshake (in milliseconds).
+     */
+    private volatile long mHandshakeTimeout = 10000L;
 
     /**
      * The instance of the channel.
      */
-    private Channel mChannel;
+    private volatile Channel mChannel;
+
+    /**
+     * The policy on how to reconnect when the connection is lost (null if disabled).
+     */
+    private volatile SessionReconnectPolicy mReconnectPolicy;
+
+    /**
+     * The address of the latest connection, or null if the session has been disconnected on purpose.
+     */
+    private volatile String mAddress;
+
+    /**
+     * The number of the current reconnection attempt and the task that will perform it.
+     */
+    private final AtomicInteger mReconnectAttempt = new AtomicInteger();
+    private volatile ScheduledFuture<?> mReconnectTask;
 
     /**
      * Dependency constructor for {@link Session}.
      */
     public Session(EventManager eventManager) {
+        this(eventManager, SessionTransport.getDefault().newEventLoopGroup(0), true);
+    }
+
+    /**
+     * Dependency constructor for {@link Session} that runs on a shared {@link EventLoopGroup}
+     * (See {@link SessionManager}), which is not shutdown when the session is destroyed.
+     */
+    public Session(EventManager eventManager, EventLoopGroup group) {
+        this(eventManager, group, false);
+    }
+
+    /**
+     * Dependency constructor for {@link Session}.
+     */
+    private Session(EventManager eventManager, EventLoopGroup group, boolean isOwner) {
         this.mEventManager = eventManager;
+        this.mOwner = isOwner;
 
-        this.mWorkerGroup = new NioEventLoopGroup();
+        this.mWorkerGroup = group;
+        this.mTransport = SessionTransport.of(group);
         this.mBootstrap = new Bootstrap();
         this.mBootstrap
                 .group(mWorkerGroup)
-                .channel(NioSocketChannel.class)
+                .channel(mTransport.getChannelClass())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
+                        setWaterMarks(ch.config(), mLowWaterMark, mHighWaterMark);
                         ch.pipeline().addLast(
                                 new HttpClientCodec(),
-                                new HttpObjectAggregator(8192),
-                                mChannelHandler);
+                                new HttpObjectAggregator(8192));
+
+                        final int nLevel = mChannelCompressionLevel;
+                        if (nLevel > 0) {
+                            ch.pipeline().addLast(new WebSocketClientExtensionHandler(SessionInflater.wrap(
+                                    new PerMessageDeflateClientExtensionHandshaker(nLevel, false,
+                                            MAX_WINDOW_SIZE, false, false))));
+                        }
+                        ch.pipeline().addLast(mChannelHandler);
                     }
                 })
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
                 .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.SO_KEEPALIVE, true);
     }
@@ -112,48 +292,237 @@ public final class Session {
      * Destroy the session.
      */
     public void destroy() {
-        mWorkerGroup.shutdownGracefully();
+        mAddress = null;
+        cancelReconnect();
+
+        if (mOwner) {
+            mWorkerGroup.shutdownGracefully();
+        } else {
+            final Channel nChannel = mChannel;
+            if (nChannel != null) {
+                nChannel.close();
+            }
+        }
     }
 
     /**
-     * Connects the session.
+     * Connects the session, blocking the caller until the connection has been established.
+     * <br/>
+     * NOTE: Never call this from the thread of the {@link Scheduler}, see {@link #connectAsync(String)}.
      *
      * @param address The address where to connect this session.
      *
      * @return True if the session has been connected, false otherwise.
      */
     public boolean connect(String address) {
-        final URI nAddress = URI.create(address);
         try {
-            mChannelHandler = new SessionInboundHandler(this,
-                    WebSocketClientHandshakerFactory.newHandshaker(nAddress,
-                            WebSocketVersion.V13,
-                            null,
-                            false,
-                            new DefaultHttpHeaders()));
-            mChannel = mBootstrap.connect(nAddress.getHost(), nAddress.getPort()).sync().channel();
-            mChannelHandler.getPromise().sync();
-        } catch (InterruptedException ignored) {
-            mChannel = null;
+            return doConnect(address).get() != null;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
         }
-        return (mChannel != null);
+        return false;
+    }
+
+    /**
+     * Connects the session without blocking the caller.
+     * <br/>
+     * NOTE: The future is completed on the thread of the {@link Scheduler} of the {@link EventManager}
+     * (or the I/O thread if there is none), and it's completed exceptionally if the connection or the
+     * handshake failed (or timed out).
+     *
+     * @param address The address where to connect this session.
+     *
+     * @return A future that is completed with true once the session has been connected.
+     */
+    public CompletableFuture<Boolean> connectAsync(String address) {
+        return completeOnScheduler(doConnect(address).thenApply(T -> Boolean.TRUE));
     }
 
     /**
-     * Disconnect the session.
+     * Disconnect the session, blocking the caller until the connection has been closed.
      *
      * @return True if the session has been disconnected, false otherwise.
      */
     public boolean disconnect() {
-        if (mChannel == null) {
-            return false;
-        }
         try {
-            mChannel.disconnect().sync();
-        } catch (InterruptedException ignored) {
+            return doDisconnect().get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
         }
-        mChannel = null;
-        return true;
+        return false;
+    }
+
+    /**
+     * Disconnect the session without blocking the caller.
+     * <br/>
+     * NOTE: The future is completed on the thread of the {@link Scheduler} of the {@link EventManager}
+     * (or the I/O thread if there is none).
+     *
+     * @return A future that is completed with true once the session has been disconnected, or false if
+     * the session wasn't connected.
+     */
+    public CompletableFuture<Boolean> disconnectAsync() {
+        return completeOnScheduler(doDisconnect());
+    }
+
+    /**
+     * Changes the maximum time to establish the connection.
+     *
+     * @param timeout The maximum time to establish the connection.
+     * @param unit    The unit of the time.
+     */
+    public void setConnectTimeout(long timeout, TimeUnit unit) {
+        mBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) unit.toMillis(timeout));
+    }
+
+    /**
+     * Changes the maximum time for the WebSocket handshake once the connection has been established.
+     *
+     * @param timeout The maximum time for the handshake.
+     * @param unit    The unit of the time.
+     */
+    public void setHandshakeTimeout(long timeout, TimeUnit unit) {
+        mHandshakeTimeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * Changes the water marks of the outbound buffer of the channel. Once the buffer is above the high
+     * water mark messages are queued (See {@link #getOutboundQueue()}) until it's below the low water mark.
+     *
+     * @param low  The low water mark (in bytes).
+     * @param high The high water mark (in bytes).
+     */
+    public void setWaterMarks(int low, int high) {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("Invalid water marks");
+        }
+        mLowWaterMark = low;
+        mHighWaterMark = high;
+
+        final Channel nChannel = mChannel;
+        if (nChannel != null) {
+            setWaterMarks(nChannel.config(), low, high);
+        }
+    }
+
+    /**
+     * Changes the level of the compression (permessage-deflate) requested to the server, which takes
+     * effect on the next connection.
+     * <br/>
+     * NOTE: Compression trades CPU for bandwidth, see {@link #getCompressionStats()}.
+     *
+     * @param level The level of the compression (from 1 to 9), or zero to disable it.
+     */
+    public void setCompressionLevel(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("Invalid compression level");
+        }
+        mCompressionLevel = level;
+    }
+
+    /**
+     * Retrieves the level of the compression (permessage-deflate) requested to the server.
+     *
+     * @return The level of the compression, or zero if disabled.
+     */
+    public int getCompressionLevel() {
+        return mCompressionLevel;
+    }
+
+    /**
+     * Check whenever the current connection is compressed (the server accepted the compression).
+     *
+     * @return True if the current connection is compressed, false otherwise.
+     */
+    public boolean isCompressed() {
+        final Channel nChannel = mChannel;
+        return nChannel != null && nChannel.pipeline().get(SessionCompressionProbe.class) != null;
+    }
+
+    /**
+     * Retrieves the statistics of the compression.
+     *
+     * @return The statistics of the compression.
+     */
+    public SessionCompressionStats getCompressionStats() {
+        return mCompressionStats;
+    }
+
+    /**
+     * Enable the wire statistics of every function (See {@link SessionMetrics}).
+     * <br/>
+     * NOTE: While enabled, every message received is routed (even those without any listener).
+     */
+    public void enableMetrics() {
+        mMetricsEnabled = true;
+    }
+
+    /**
+     * Disable the wire statistics of every function.
+     */
+    public void disableMetrics() {
+        mMetricsEnabled = false;
+    }
+
+    /**
+     * Check if the wire statistics of every function are enabled.
+     *
+     * @return True if the statistics are enabled, false otherwise.
+     */
+    public boolean isMetricsEnabled() {
+        return mMetricsEnabled;
+    }
+
+    /**
+     * Retrieves the wire statistics of every function.
+     *
+     * @return The wire statistics of every function.
+     */
+    public SessionMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Retrieves the queue of the messages that couldn't be written because of backpressure.
+     *
+     * @return The queue of the messages that couldn't be written because of backpressure.
+     */
+    public SessionOutboundQueue getOutboundQueue() {
+        return mOutbound;
+    }
+
+    /**
+     * Changes the policy on how to reconnect the session when the connection is lost.
+     * <br/>
+     * NOTE: A session that has been disconnected on purpose (See {@link #disconnect()}) is never reconnected.
+     *
+     * @param policy The new policy, or null to disable reconnecting.
+     */
+    public void setReconnectPolicy(SessionReconnectPolicy policy) {
+        mReconnectPolicy = policy;
+        if (policy == null) {
+            cancelReconnect();
+        }
+    }
+
+    /**
+     * Retrieves the policy on how to reconnect the session when the connection is lost.
+     *
+     * @return The policy on how to reconnect the session, or null if disabled.
+     */
+    public SessionReconnectPolicy getReconnectPolicy() {
+        return mReconnectPolicy;
+    }
+
+    /**
+     * Retrieves the transport of the session.
+     *
+     * @return The transport of the session.
+     */
+    public SessionTransport getTransport() {
+        return mTransport;
     }
 
     /**
@@ -197,6 +566,17 @@ public final class Session {
         sendAll(method, FastList.wrapCopy(data));
     }
 
+    /**
+     * Sends a message to the remote session, and flushes it immediately regardless of the
+     * {@link SessionFlushMode} (e.g. for latency critical messages).
+     *
+     * @param method The name of the message to be send.
+     * @param data   The data of the message to be send.
+     */
+    public void sendImmediate(String method, Pair<String, Object>... data) {
+        sendAll(method, FastList.wrapCopy(data), true);
+    }
+
     /**
      * Sends a message to the remote session.
      *
@@ -204,23 +584,178 @@ public final class Session {
      * @param data   The data of the message to be send.
      */
     public void sendAll(String method, List<Pair<String, Object>> data) {
-        if (!isActive()) {
+        sendAll(method, data, false);
+    }
+
+    /**
+     * Sends a message to the remote session.
+     *
+     * @param method      The name of the message to be send.
+     * @param data        The data of the message to be send.
+     * @param isImmediate True if the message is flushed immediately regardless of the {@link SessionFlushMode}.
+     */
+    public void sendAll(String method, List<Pair<String, Object>> data, boolean isImmediate) {
+        final Channel nChannel = mChannel;
+        if (nChannel == null || !nChannel.isActive()) {
             return;
         }
         final JsonObject nRoot = new JsonObject();
         nRoot.add("function", method);
+        JsonObject nData = null;
         if (data != null) {
-            final JsonObject nData = new JsonObject();
-            data.forEach(T -> addTypeIntoObject(nData, T.getOne(), T.getTwo()));
-            nRoot.add("data", nData);
+            final JsonObject nObject = new JsonObject();
+            data.forEach(T -> addTypeIntoObject(nObject, T.getOne(), T.getTwo()));
+            nRoot.add("data", nObject);
+            nData = nObject;
         }
 
-        final Event nEvent = mEventManager.invokeEvent(new SessionSendMessageEvent(
-                method, nRoot.get("data").asObject()));
+        final Event nEvent = mEventManager.invokeEvent(new SessionSendMessageEvent(method, nData));
         if (nEvent.isCancelled()) {
             return;
         }
-        mChannel.writeAndFlush(new TextWebSocketFrame(nRoot.toString()));
+        write(nChannel, method, new TextWebSocketFrame(nRoot.toString()), isImmediate);
+    }
+
+    /**
+     * Sends a pre-encoded message to the remote session.
+     *
+     * @param template The template of the message to be send.
+     * @param value0   The first value of the message.
+     */
+    public void send(MessageTemplate template, int value0) {
+        final Channel nChannel = mChannel;
+        if (nChannel != null && nChannel.isActive()) {
+            sendTemplate(nChannel, template, template.encode(nChannel.alloc(), value0));
+        }
+    }
+
+    /**
+     * Sends a pre-encoded message to the remote session.
+     *
+     * @param template The template of the message to be send.
+     * @param value0   The first value of the message.
+     * @param value1   The second value of the message.
+     */
+    public void send(MessageTemplate template, int value0, int value1) {
+        final Channel nChannel = mChannel;
+        if (nChannel != null && nChannel.isActive()) {
+            sendTemplate(nChannel, template, template.encode(nChannel.alloc(), value0, value1));
+        }
+    }
+
+    /**
+     * Sends a pre-encoded message to the remote session.
+     *
+     * @param template The template of the message to be send.
+     * @param value0   The first value of the message.
+     * @param value1   The second value of the message.
+     * @param value2   The third value of the message.
+     */
+    public void send(MessageTemplate template, int value0, int value1, int value2) {
+        final Channel nChannel = mChannel;
+        if (nChannel != null && nChannel.isActive()) {
+            sendTemplate(nChannel, template, template.encode(nChannel.alloc(), value0, value1, value2));
+        }
+    }
+
+    /**
+     * Flushes all messages that has been written but not flushed.
+     * <br/>
+     * NOTE: This is called at the end of every tick of the {@link me.wolftein.steroid.framework.scheduler.Scheduler}
+     * by {@link me.wolftein.steroid.framework.Application}.
+     */
+    public void flush() {
+        final Channel nChannel = mChannel;
+        if (nChannel != null && mFlushPending.getAndSet(false)) {
+            nChannel.flush();
+            mFlushCount.increment();
+        }
+    }
+
+    /**
+     * Changes the mode on how messages are flushed.
+     *
+     * @param mode The new mode on how messages are flushed.
+     */
+    public void setFlushMode(SessionFlushMode mode) {
+        mFlushMode = mode;
+        if (mode == SessionFlushMode.IMMEDIATE) {
+            flush();
+        }
+    }
+
+    /**
+     * Retrieves the mode on how messages are flushed.
+     *
+     * @return The mode on how messages are flushed.
+     */
+    public SessionFlushMode getFlushMode() {
+        return mFlushMode;
+    }
+
+    /**
+     * Calls the listeners of every message that is pending to be dispatched (See {@link SessionDispatchMode#TICK}).
+     * <br/>
+     * NOTE: Must always be called from the same thread (e.g the thread of the {@link Scheduler}).
+     *
+     * @return The number of messages that has been dispatched.
+     */
+    public int dispatch() {
+        final int nCount = mInbound.dispatch();
+
+        //! Reading is resumed on the event loop of the channel, after the messages held back are published.
+        final Channel nChannel = mInboundPaused;
+        if (nChannel != null && mInbound.isDrained()) {
+            nChannel.eventLoop().execute(() -> resume(nChannel));
+        }
+        return nCount;
+    }
+
+    /**
+     * Changes the mode on how the listeners of the messages are called.
+     * <br/>
+     * NOTE: Messages already pending are still dispatched by {@link #dispatch()}.
+     *
+     * @param mode The new mode on how the listeners of the messages are called.
+     */
+    public void setDispatchMode(SessionDispatchMode mode) {
+        mDispatchMode = mode;
+    }
+
+    /**
+     * Retrieves the mode on how the listeners of the messages are called.
+     *
+     * @return The mode on how the listeners of the messages are called.
+     */
+    public SessionDispatchMode getDispatchMode() {
+        return mDispatchMode;
+    }
+
+    /**
+     * Retrieves the number of messages pending to be dispatched.
+     *
+     * @return The number of messages pending to be dispatched.
+     */
+    public int getPendingCount() {
+        return mInbound.size();
+    }
+
+    /**
+     * Retrieves the number of messages that has been written.
+     *
+     * @return The number of messages that has been written.
+     */
+    public long getWriteCount() {
+        return mWriteCount.sum();
+    }
+
+    /**
+     * Retrieves the number of flushes, each one results in (at least) one system call.
+     *
+     * @return The number of flushes.
+     */
+    public long getFlushCount() {
+        return mFlushCount.sum();
     }
 
     /**
@@ -229,22 +764,56 @@ public final class Session {
      * @param method   The name of the method
      * @param consumer The consumer for the given method.
      */
-    public void addListener(String method, Consumer<JsonObject> consumer) {
-        final Queue<Consumer<JsonObject>> executor
-                = mListeners.getIfAbsentPut(method.hashCode(), new ArrayDeque<>());
-        executor.add(consumer);
+    public synchronized void addListener(String method, Consumer<JsonObject> consumer) {
+        final Route nRoute = getRoute(method);
+        if (nRoute.mConsumers == null) {
+            nRoute.mConsumers = new ArrayDeque<>();
+        }
+        nRoute.mConsumers.add(consumer);
+    }
+
+    /**
+     * Register a streaming listener for the given method, which reads the data of the message directly
+     * from the frame (See {@link JsonReader}) instead of from a {@link JsonObject}.
+     * <br/>
+     * NOTE: The reader is only valid during the call of the consumer.
+     *
+     * @param method   The name of the method
+     * @param consumer The consumer for the given method.
+     */
+    public synchronized void addStreamListener(String method, Consumer<JsonReader> consumer) {
+        final Route nRoute = getRoute(method);
+        if (nRoute.mStreams == null) {
+            nRoute.mStreams = new ArrayDeque<>();
+        }
+        nRoute.mStreams.add(consumer);
     }
 
     /**
      * Handle when the session has been disconnected.
      */
     protected void onDisconnectFromHandler() {
+        final boolean isLost = mChannel != null;
         mChannel = null;
+        mOutbound.clear();
         mEventManager.invokeAsyncEvent(new SessionDisconnectEvent());
+
+        if (isLost) {
+            scheduleReconnect();
+        }
     }
 
     /**
-     * Handle when the session has been disconnected.
+     * Handle when the writability of the channel has changed.
+     */
+    protected void onWritabilityFromHandler(Channel channel) {
+        if (channel.isWritable() && !mOutbound.isEmpty()) {
+            scheduleDrain(channel);
+        }
+    }
+
+    /**
+     * Handle when the session has been connected.
      */
     protected void onConnectFromHandler(Channel channel) {
         final SessionConnectEvent event = mEventManager.invokeEvent(new SessionConnectEvent());
@@ -256,23 +825,455 @@ public final class Session {
     /**
      * Handle when the session has recieve a message.
      */
-    protected void onMessageFromHandler(TextWebSocketFrame frame) {
-        final JsonObject nFrame = JsonObject.readFrom(frame.text());
-        final JsonObject nMessage = nFrame.get("data").asObject();
+    protected void onMessageFromHandler(Channel channel, TextWebSocketFrame frame) {
+        final boolean isSubscribed = mEventManager.isSubscribed(SessionRecvMessageEvent.class);
+        final boolean isMeasured = mMetricsEnabled;
+        final long nStart = (isMeasured ? System.nanoTime() : 0L);
 
-        final Event nEvent = mEventManager.invokeEvent(new SessionRecvMessageEvent(
-                nFrame.get("function").asString(), nMessage));
-        if (nEvent.isCancelled()) {
+        //! Locate the function of the message first, and drop it as soon as we know nobody is listening,
+        //! the data is only located (never decoded) and only if the message is going to be routed.
+        final JsonReader nReader = new JsonReader(frame.content());
+        final Route[] nRoutes = mRoutes;
+        String nFunction = null;
+        ByteBuf nData = null;
+        Route nRoute = null;
+        int nMethod = -1;
+        boolean isResolved = false;
+        nReader.beginObject();
+        loop:
+        while (nReader.hasNext()) {
+            switch (nReader.nextName(FIELDS)) {
+                case FIELD_FUNCTION:
+                    //! Functions are interned while measuring, so even those without listeners are accounted.
+                    if (isSubscribed) {
+                        nFunction = nReader.nextString();
+                        nMethod = (isMeasured ? mMethods.intern(nFunction) : mMethods.get(nFunction));
+                    } else {
+                        nMethod = (isMeasured
+                                ? nReader.nextMethodOrIntern(mMethods) : nReader.nextMethod(mMethods));
+                    }
+                    nRoute = (nMethod >= 0 && nMethod < nRoutes.length ? nRoutes[nMethod] : null);
+                    if (!isSubscribed && !isMeasured && nRoute == null) {
+                        return;
+                    }
+                    isResolved = true;
+                    if (nData != null) {
+                        break loop;
+                    }
+                    break;
+                case FIELD_DATA:
+                    nData = nReader.nextValueSlice();
+                    if (isResolved) {
+                        break loop;
+                    }
+                    break;
+                default:
+                    nReader.skipValue();
+                    break;
+            }
+        }
+        if (!isResolved) {
+            nFunction = "none";
+            nMethod = (isMeasured ? mMethods.intern(nFunction) : mMethods.get(nFunction));
+            nRoute = (nMethod >= 0 && nMethod < nRoutes.length ? nRoutes[nMethod] : null);
+        }
+        final Queue<Consumer<JsonObject>> consumers = (nRoute != null ? nRoute.mConsumers : null);
+        final Queue<Consumer<JsonReader>> streams = (nRoute != null ? nRoute.mStreams : null);
+        final ByteBuf nSlice = (nData != null ? nData : EMPTY_DATA);
+
+        JsonObject nMessage = null;
+        boolean isCancelled = false;
+        if (isSubscribed) {
+            final SessionRecvMessageEvent nEvent = mEventManager.invokeEvent(
+                    new SessionRecvMessageEvent(nFunction, () -> readObject(nSlice)));
+            isCancelled = nEvent.isCancelled();
+            if (consumers != null) {
+                nMessage = nEvent.getBody();
+            }
+        }
+        if (isCancelled) {
+            nMessage = null;
+        } else if (consumers != null && nMessage == null) {
+            //! The tree is decoded here, while stream listeners read (a retained slice of) the frame later.
+            nMessage = readObject(nSlice);
+        }
+        if (isMeasured) {
+            mMetrics.onReceive(nMethod, frame.content().readableBytes(), nSlice, nStart, System.nanoTime());
+        }
+        if (isCancelled || (streams == null && consumers == null)) {
             return;
         }
 
-        final Queue<Consumer<JsonObject>> consumers
-                = mListeners.get(nFrame.getString("function", "none").hashCode());
+        if (mDispatchMode == SessionDispatchMode.TICK) {
+            //! Never wait on the event loop (it may serve other sessions), stop reading from the channel instead.
+            if (mInbound.offer(streams, (streams != null ? nSlice.retain() : null), consumers, nMessage)
+                    && mInboundPaused != channel) {
+                mInboundPaused = channel;
+                channel.config().setAutoRead(false);
+            }
+            return;
+        }
+
+        if (streams != null) {
+            streams.forEach(T -> T.accept(new JsonReader(nSlice)));
+        }
         if (consumers != null) {
-            consumers.forEach(T -> T.accept(nMessage));
+            final JsonObject nBody = nMessage;
+            consumers.forEach(T -> T.accept(nBody));
+        }
+    }
+
+    /**
+     * Helper method to resume reading from a channel (on its event loop) once the pending messages are dispatched.
+     *
+     * @param channel The channel that has stopped reading.
+     */
+    private void resume(Channel channel) {
+        if (mInboundPaused == channel && mInbound.flush() && mInbound.isDrained()) {
+            mInboundPaused = null;
+            channel.config().setAutoRead(true);
         }
     }
 
+    /**
+     * Helper method to connect the session.
+     *
+     * @param address The address where to connect this session.
+     *
+     * @return A future that is completed (on the I/O thread) with the channel once the handshake is done.
+     */
+    private CompletableFuture<Channel> doConnect(String address) {
+        final CompletableFuture<Channel> nFuture = new CompletableFuture<>();
+        final URI nAddress;
+        final SessionInboundHandler nHandler;
+        final int nLevel = mCompressionLevel;
+        try {
+            nAddress = URI.create(address);
+            nHandler = new SessionInboundHandler(this,
+                    WebSocketClientHandshakerFactory.newHandshaker(nAddress,
+                            WebSocketVersion.V13,
+                            null,
+                            nLevel > 0,
+                            new DefaultHttpHeaders()));
+        } catch (RuntimeException exception) {
+            nFuture.completeExceptionally(exception);
+            return nFuture;
+        }
+        mChannelHandler = nHandler;
+        mChannelCompressionLevel = nLevel;
+        mAddress = address;
+        cancelReconnect();
+
+        final long nHandshakeTimeout = mHandshakeTimeout;
+        mBootstrap.connect(nAddress.getHost(), nAddress.getPort()).addListener((ChannelFutureListener) T -> {
+            if (!T.isSuccess()) {
+                nFuture.completeExceptionally(T.cause());
+                return;
+            }
+            final Channel nChannel = T.channel();
+            final ScheduledFuture<?> nTimeout = nChannel.eventLoop().schedule(() -> {
+                if (nFuture.completeExceptionally(new TimeoutException(
+                        "Handshake timed out after " + nHandshakeTimeout + "ms"))) {
+                    nChannel.close();
+                }
+            }, nHandshakeTimeout, TimeUnit.MILLISECONDS);
+
+            nHandler.getPromise().addListener((ChannelFutureListener) H -> {
+                nTimeout.cancel(false);
+                if (H.isSuccess()) {
+                    //! Before the channel is published, so every frame written goes through the probes.
+                    if (nLevel > 0) {
+                        addCompressionProbes(nChannel.pipeline());
+                    }
+                    //! Any handshake that succeeds (automatic or not) starts the reconnection policy over.
+                    mReconnectAttempt.set(0);
+                    mChannel = nChannel;
+                    if (!nFuture.complete(nChannel)) {
+                        nChannel.close();
+                    }
+                } else {
+                    nFuture.completeExceptionally(H.cause());
+                    nChannel.close();
+                }
+            });
+        });
+        return nFuture;
+    }
+
+    /**
+     * Helper method to disconnect the session.
+     *
+     * @return A future that is completed (on the I/O thread) once the channel has been closed.
+     */
+    private CompletableFuture<Boolean> doDisconnect() {
+        mAddress = null;
+        cancelReconnect();
+
+        final Channel nChannel = mChannel;
+        if (nChannel == null) {
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        mChannel = null;
+
+        final CompletableFuture<Boolean> nFuture = new CompletableFuture<>();
+        nChannel.disconnect().addListener(T -> nFuture.complete(Boolean.TRUE));
+        return nFuture;
+    }
+
+    /**
+     * Helper method to schedule the next reconnection attempt (if the policy allows it).
+     */
+    private void scheduleReconnect() {
+        final SessionReconnectPolicy nPolicy = mReconnectPolicy;
+        final String nAddress = mAddress;
+        if (nPolicy == null || nAddress == null) {
+            return;
+        }
+        final int nAttempt = mReconnectAttempt.incrementAndGet();
+        if (!nPolicy.isAllowed(nAttempt)) {
+            mReconnectAttempt.set(0);
+            return;
+        }
+        final long nDelay = nPolicy.getDelay(nAttempt);
+        if (mEventManager.invokeEvent(new SessionReconnectEvent(nAttempt, nDelay)).isCancelled()) {
+            mReconnectAttempt.set(0);
+            return;
+        }
+        mReconnectTask = mWorkerGroup.next().schedule(() -> {
+            //! Abort if the session has been disconnected (or connected) on purpose meanwhile.
+            if (!nAddress.equals(mAddress) || mChannel != null) {
+                return;
+            }
+            doConnect(nAddress).whenComplete((V, E) -> {
+                if (E != null) {
+                    scheduleReconnect();
+                }
+            });
+        }, nDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Helper method to cancel the pending reconnection attempt (if any).
+     */
+    private void cancelReconnect() {
+        final ScheduledFuture<?> nTask = mReconnectTask;
+        if (nTask != null) {
+            mReconnectTask = null;
+            nTask.cancel(false);
+        }
+    }
+
+    /**
+     * Helper method to complete a future on the thread of the {@link Scheduler}.
+     *
+     * @param future The future to complete.
+     *
+     * @return A future that is completed on the thread of the scheduler (if any).
+     */
+    private <T> CompletableFuture<T> completeOnScheduler(CompletableFuture<T> future) {
+        final Scheduler nScheduler = mEventManager.getScheduler();
+        if (nScheduler == null) {
+            return future;
+        }
+        final CompletableFuture<T> nFuture = new CompletableFuture<>();
+        future.whenComplete((V, E) -> nScheduler.invokeTask(T -> {
+            if (E != null) {
+                nFuture.completeExceptionally(E);
+            } else {
+                nFuture.complete(V);
+            }
+        }));
+        return nFuture;
+    }
+
+    /**
+     * Helper method to send a message that has been encoded from a {@link MessageTemplate}.
+     *
+     * @param channel  The channel where to write the message.
+     * @param template The template of the message.
+     * @param message  The encoded message.
+     */
+    private void sendTemplate(Channel channel, MessageTemplate template, ByteBuf message) {
+        //! The body of the event is only decoded if anyone is going to look at it.
+        if (mEventManager.isSubscribed(SessionSendMessageEvent.class)) {
+            final JsonObject nRoot = JsonObject.readFrom(message.toString(CharsetUtil.UTF_8));
+            final Event nEvent = mEventManager.invokeEvent(new SessionSendMessageEvent(
+                    template.getFunction(), nRoot.get("data").asObject()));
+            if (nEvent.isCancelled()) {
+                message.release();
+                return;
+            }
+        }
+        write(channel, template.getFunction(), new TextWebSocketFrame(message), template.isImmediate());
+    }
+
+    /**
+     * Helper method to write a message into the channel, honouring the {@link SessionFlushMode}.
+     * <br/>
+     * NOTE: The message is queued (See {@link SessionOutboundQueue}) if the channel isn't writable, or if
+     * there are messages queued already (to preserve the order).
+     *
+     * @param channel     The channel where to write the message.
+     * @param method      The name of the method of the message.
+     * @param message     The message to write.
+     * @param isImmediate True if the message is flushed immediately.
+     */
+    private void write(Channel channel, String method, Object message, boolean isImmediate) {
+        mWriteCount.increment();
+
+        if (!mOutbound.isEmpty() || !channel.isWritable()) {
+            //! The channel may have become writable before the message was queued.
+            if (mOutbound.offer(method, message) && channel.isWritable()) {
+                scheduleDrain(channel);
+            }
+            return;
+        }
+
+        if (mMetricsEnabled) {
+            onSend(method, message);
+        }
+
+        final SessionFlushMode nMode = mFlushMode;
+        if (isImmediate || nMode == SessionFlushMode.IMMEDIATE) {
+            mFlushPending.set(false);
+            channel.writeAndFlush(message);
+            mFlushCount.increment();
+            return;
+        }
+        channel.write(message);
+        if (!mFlushPending.getAndSet(true) && nMode == SessionFlushMode.EVENT_LOOP) {
+            //! Executed after every other task (including the writes) queued on this iteration of the loop.
+            channel.eventLoop().execute(this::flush);
+        }
+    }
+
+    /**
+     * Helper method to drain the queue on the event loop of the channel.
+     *
+     * @param channel The channel where to write the messages.
+     */
+    private void scheduleDrain(Channel channel) {
+        if (!mDrainPending.getAndSet(true)) {
+            channel.eventLoop().execute(() -> drain(channel));
+        }
+    }
+
+    /**
+     * Helper method to write the queued messages (by priority) while the channel is writable.
+     *
+     * @param channel The channel where to write the messages.
+     */
+    private void drain(Channel channel) {
+        mDrainPending.set(false);
+
+        final boolean isMeasured = mMetricsEnabled;
+        boolean isWritten = false;
+        while (channel.isWritable()) {
+            final SessionOutboundQueue.Entry nEntry = mOutbound.poll();
+            if (nEntry == null) {
+                break;
+            }
+            //! Only messages that reach the channel are accounted (never those replaced or dropped while queued).
+            if (isMeasured) {
+                onSend(nEntry.mMethod, nEntry.mMessage);
+            }
+            channel.write(nEntry.mMessage);
+            isWritten = true;
+        }
+        if (isWritten) {
+            channel.flush();
+            mFlushCount.increment();
+        }
+    }
+
+    /**
+     * Helper method to account a message that is about to be written into the channel.
+     *
+     * @param method  The name of the method of the message.
+     * @param message The message being written.
+     */
+    private void onSend(String method, Object message) {
+        final int nBytes = (message instanceof ByteBufHolder
+                ? ((ByteBufHolder) message).content().readableBytes() : 0);
+        mMetrics.onSend(method, nBytes, System.nanoTime());
+    }
+
+    /**
+     * Helper method to surround the handlers of the compression extension (if the server accepted it)
+     * with a pair of {@link SessionCompressionProbe}.
+     *
+     * @param pipeline The pipeline of the channel.
+     */
+    private void addCompressionProbes(ChannelPipeline pipeline) {
+        String nFirst = null, nLast = null;
+        for (final Map.Entry<String, ChannelHandler> entry : pipeline) {
+            if (entry.getValue() instanceof WebSocketExtensionEncoder
+                    || entry.getValue() instanceof WebSocketExtensionDecoder) {
+                if (nFirst == null) {
+                    nFirst = entry.getKey();
+                }
+                nLast = entry.getKey();
+            }
+        }
+        if (nFirst != null) {
+            final SessionCompressionProbe nOuter = new SessionCompressionProbe(mCompressionStats);
+            pipeline.addBefore(nFirst, null, nOuter);
+            pipeline.addAfter(nLast, null, new SessionCompressionProbe(nOuter));
+        }
+    }
+
+    /**
+     * Helper method to change the water marks of a channel.
+     *
+     * @param config The configuration of the channel.
+     * @param low    The low water mark (in bytes).
+     * @param high   The high water mark (in bytes).
+     */
+    private static void setWaterMarks(ChannelConfig config, int low, int high) {
+        //! The low water mark can never be above the high water mark, not even in between.
+        if (high < config.getWriteBufferLowWaterMark()) {
+            config.setWriteBufferLowWaterMark(low);
+            config.setWriteBufferHighWaterMark(high);
+        } else {
+            config.setWriteBufferHighWaterMark(high);
+            config.setWriteBufferLowWaterMark(low);
+        }
+    }
+
+    /**
+     * Helper method to retrieve (or create) the route of the given method.
+     *
+     * @param method The name of the method.
+     *
+     * @return The route of the method.
+     */
+    private Route getRoute(String method) {
+        final int nId = mMethods.intern(method);
+        final Route[] nRoutes = mRoutes;
+        if (nId < nRoutes.length && nRoutes[nId] != null) {
+            return nRoutes[nId];
+        }
+        //! Functions may be interned without a route (e.g while measuring), which leaves gaps behind.
+        final Route[] nCopy = Arrays.copyOf(nRoutes, Math.max(nRoutes.length, nId + 1));
+        nCopy[nId] = new Route();
+        mRoutes = nCopy;
+        return nCopy[nId];
+    }
+
+    /**
+     * Helper method to build a {@link JsonObject} from a buffer.
+     * <br/>
+     * NOTE: Decoding the buffer at once is considerably faster than feeding the tree through a
+     * {@link java.io.Reader}, and only the data of the message is decoded.
+     *
+     * @param buffer The buffer that contains the object.
+     *
+     * @return The object that has been read.
+     */
+    private JsonObject readObject(ByteBuf buffer) {
+        return JsonObject.readFrom(buffer.toString(CharsetUtil.UTF_8));
+    }
+
     /**
      * Helper method to add a type into an object.
      *
@@ -0,0 +1,93 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Encapsulate a {@link ChannelHandlerAdapter} that measures the compression of {@link WebSocketFrame}s.
+ * <br/>
+ * NOTE: A pair of probes surrounds the handlers of the compression extension, the outer one (closer to the
+ * socket) sees compressed frames and the inner one sees decompressed frames.
+ */
+final class SessionCompressionProbe extends ChannelHandlerAdapter {
+    private final SessionCompressionStats mStats;
+    private final SessionCompressionProbe mOuter;
+
+    /**
+     * The time when the latest frame entered the pair (only accessed by the event loop of the channel).
+     */
+    private long mStartTime;
+
+    /**
+     * Constructor for the outer {@link SessionCompressionProbe}.
+     */
+    SessionCompressionProbe(SessionCompressionStats stats) {
+        this.mStats = stats;
+        this.mOuter = null;
+    }
+
+    /**
+     * Constructor for the inner {@link SessionCompressionProbe}.
+     */
+    SessionCompressionProbe(SessionCompressionProbe outer) {
+        this.mStats = outer.mStats;
+        this.mOuter = outer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof WebSocketFrame) {
+            final int nLength = ((WebSocketFrame) msg).content().readableBytes();
+            if (mOuter == null) {
+                mStats.mInboundCompressedBytes.add(nLength);
+                mStartTime = System.nanoTime();
+            } else {
+                mStats.mInboundBytes.add(nLength);
+                mStats.mInboundTime.add(System.nanoTime() - mOuter.mStartTime);
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof WebSocketFrame)) {
+            ctx.write(msg, promise);
+        } else if (mOuter == null) {
+            mStats.mOutboundCompressedBytes.add(((WebSocketFrame) msg).content().readableBytes());
+            ctx.write(msg, promise);
+        } else {
+            mStats.mOutboundBytes.add(((WebSocketFrame) msg).content().readableBytes());
+
+            //! The frame goes through the compression (and the outer probe) before the call returns.
+            final long nStartTime = System.nanoTime();
+            ctx.write(msg, promise);
+            mStats.mOutboundTime.add(System.nanoTime() - nStartTime);
+        }
+    }
+}
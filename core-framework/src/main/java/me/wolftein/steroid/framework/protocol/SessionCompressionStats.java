@@ -0,0 +1,103 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate the statistics of the compression (permessage-deflate) of a {@link Session}.
+ * <br/>
+ * NOTE: Only messages of connections where the server accepted the compression are accounted.
+ */
+public final class SessionCompressionStats {
+    final LongAdder mInboundBytes = new LongAdder();
+    final LongAdder mInboundCompressedBytes = new LongAdder();
+    final LongAdder mInboundTime = new LongAdder();
+    final LongAdder mOutboundBytes = new LongAdder();
+    final LongAdder mOutboundCompressedBytes = new LongAdder();
+    final LongAdder mOutboundTime = new LongAdder();
+
+    /**
+     * Default constructor for {@link SessionCompressionStats}.
+     */
+    SessionCompressionStats() {
+    }
+
+    /**
+     * Retrieves the number of bytes received (after being decompressed).
+     *
+     * @return The number of bytes received.
+     */
+    public long getInboundBytes() {
+        return mInboundBytes.sum();
+    }
+
+    /**
+     * Retrieves the number of bytes received (before being decompressed).
+     *
+     * @return The number of bytes received on the wire.
+     */
+    public long getInboundCompressedBytes() {
+        return mInboundCompressedBytes.sum();
+    }
+
+    /**
+     * Retrieves the time spent decompressing messages.
+     *
+     * @return The time spent decompressing messages (in nanoseconds).
+     */
+    public long getInboundTime() {
+        return mInboundTime.sum();
+    }
+
+    /**
+     * Retrieves the number of bytes sent (before being compressed).
+     *
+     * @return The number of bytes sent.
+     */
+    public long getOutboundBytes() {
+        return mOutboundBytes.sum();
+    }
+
+    /**
+     * Retrieves the number of bytes sent (after being compressed).
+     *
+     * @return The number of bytes sent on the wire.
+     */
+    public long getOutboundCompressedBytes() {
+        return mOutboundCompressedBytes.sum();
+    }
+
+    /**
+     * Retrieves the time spent compressing messages.
+     *
+     * @return The time spent compressing messages (in nanoseconds).
+     */
+    public long getOutboundTime() {
+        return mOutboundTime.sum();
+    }
+
+    /**
+     * Retrieves the number of bytes that compression saved (in both directions).
+     *
+     * @return The number of bytes that compression saved.
+     */
+    public long getSavedBytes() {
+        return getInboundBytes() - getInboundCompressedBytes() + getOutboundBytes() - getOutboundCompressedBytes();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+/**
+ * Enumerates all modes on how {@link Session} calls the listeners of the messages that has been received.
+ */
+public enum SessionDispatchMode {
+    /**
+     * Listeners are called on the event loop of the channel, as soon as the message has been received.
+     */
+    IMMEDIATE,
+    /**
+     * Messages are decoded on the event loop of the channel, and the listeners are called in a batch on the
+     * thread of the {@link me.wolftein.steroid.framework.scheduler.Scheduler} at the start of every tick
+     * (See {@link Session#dispatch()}).
+     */
+    TICK
+}
@@ -0,0 +1,37 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+/**
+ * Enumerates all modes on how {@link Session} flushes the messages that has been sent.
+ */
+public enum SessionFlushMode {
+    /**
+     * Every message is flushed as soon as it is sent.
+     */
+    IMMEDIATE,
+    /**
+     * Messages sent during an iteration of the event loop of the channel are flushed together at the end of it.
+     */
+    EVENT_LOOP,
+    /**
+     * Messages sent during a tick of the {@link me.wolftein.steroid.framework.scheduler.Scheduler} are flushed
+     * together at the end of it (See {@link Session#flush()}).
+     */
+    TICK
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+/**
+ * Encapsulate a snapshot of the wire statistics of a single function of the protocol of a {@link Session}.
+ * <br/>
+ * NOTE: Bytes are accounted on the payload of every frame (before compression, see
+ * {@link SessionCompressionStats}).
+ */
+public final class SessionFunctionMetrics {
+    private final String mName;
+    private final long mInboundCount;
+    private final long mInboundBytes;
+    private final long mOutboundCount;
+    private final long mOutboundBytes;
+    private final SessionHistogram mDecodeTime;
+    private final SessionHistogram mRoundTripTime;
+    private final long mUnanswered;
+
+    /**
+     * Default constructor for {@link SessionFunctionMetrics}.
+     */
+    SessionFunctionMetrics(String name, long inboundCount, long inboundBytes, long outboundCount,
+                           long outboundBytes, SessionHistogram decodeTime, SessionHistogram roundTripTime,
+                           long unanswered) {
+        this.mName = name;
+        this.mInboundCount = inboundCount;
+        this.mInboundBytes = inboundBytes;
+        this.mOutboundCount = outboundCount;
+        this.mOutboundBytes = outboundBytes;
+        this.mDecodeTime = decodeTime;
+        this.mRoundTripTime = roundTripTime;
+        this.mUnanswered = unanswered;
+    }
+
+    /**
+     * Retrieves the name of the function.
+     *
+     * @return The name of the function.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Retrieves the number of messages received.
+     *
+     * @return The number of messages received.
+     */
+    public long getInboundCount() {
+        return mInboundCount;
+    }
+
+    /**
+     * Retrieves the number of bytes received.
+     *
+     * @return The number of bytes received.
+     */
+    public long getInboundBytes() {
+        return mInboundBytes;
+    }
+
+    /**
+     * Retrieves the number of messages sent.
+     *
+     * @return The number of messages sent.
+     */
+    public long getOutboundCount() {
+        return mOutboundCount;
+    }
+
+    /**
+     * Retrieves the number of bytes sent.
+     *
+     * @return The number of bytes sent.
+     */
+    public long getOutboundBytes() {
+        return mOutboundBytes;
+    }
+
+    /**
+     * Retrieves the time spent routing (and decoding the tree of) every message received, from the moment the
+     * frame is handled until it's ready for the listeners.
+     * <br/>
+     * NOTE: Stream listeners decode their message by themselves, which isn't accounted.
+     *
+     * @return The histogram of the time spent per message.
+     */
+    public SessionHistogram getDecodeTime() {
+        return mDecodeTime;
+    }
+
+    /**
+     * Retrieves the round-trip time between every message sent and its response.
+     *
+     * @return The histogram of the round-trip times, or null if the function isn't a request.
+     *
+     * @see SessionMetrics#addRoundTrip(String, String...)
+     */
+    public SessionHistogram getRoundTripTime() {
+        return mRoundTripTime;
+    }
+
+    /**
+     * Retrieves the number of messages sent that have never been answered (within the timeout).
+     *
+     * @return The number of messages sent that have never been answered.
+     */
+    public long getUnanswered() {
+        return mUnanswered;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return mName + " [in=" + mInboundCount + " (" + mInboundBytes + " bytes), out=" + mOutboundCount
+                + " (" + mOutboundBytes + " bytes), decode=" + mDecodeTime
+                + (mRoundTripTime != null ? ", rtt=" + mRoundTripTime + ", unanswered=" + mUnanswered : "") + "]";
+    }
+}
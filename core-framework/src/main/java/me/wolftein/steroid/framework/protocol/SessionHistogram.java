@@ -0,0 +1,198 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate a lock-free histogram of durations (in nanoseconds), whose buckets are spaced logarithmically with
+ * eight linear sub-buckets each, hence any percentile is within 1/16 of the real value.
+ * <br/>
+ * NOTE: Durations above 2^40 nanoseconds (~18 minutes) are accounted in the last bucket.
+ */
+public final class SessionHistogram {
+    private final static int SUB_BUCKET_BITS = 3;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int MAX_MAGNITUDE = 40;
+    private final static int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray mBuckets;
+    private final LongAdder mSum = new LongAdder();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Default constructor for {@link SessionHistogram}.
+     */
+    SessionHistogram() {
+        this.mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    /**
+     * Constructor for a copy of a {@link SessionHistogram}.
+     */
+    private SessionHistogram(SessionHistogram histogram) {
+        final long[] nBuckets = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            nBuckets[i] = histogram.mBuckets.get(i);
+        }
+        this.mBuckets = new AtomicLongArray(nBuckets);
+        this.mSum.add(histogram.mSum.sum());
+        this.mMax.set(histogram.mMax.get());
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param value The duration (in nanoseconds).
+     */
+    void record(long value) {
+        final long nValue = Math.max(0L, value);
+        mBuckets.incrementAndGet(getIndex(nValue));
+        mSum.add(nValue);
+
+        long nMax = mMax.get();
+        while (nValue > nMax && !mMax.compareAndSet(nMax, nValue)) {
+            nMax = mMax.get();
+        }
+    }
+
+    /**
+     * Creates a copy of the histogram, that isn't affected by any later record.
+     * <br/>
+     * NOTE: The copy is consistent per bucket, but not across buckets while recording concurrently.
+     *
+     * @return A copy of the histogram.
+     */
+    SessionHistogram copy() {
+        return new SessionHistogram(this);
+    }
+
+    /**
+     * Clears every duration recorded.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets.set(i, 0L);
+        }
+        mSum.reset();
+        mMax.set(0L);
+    }
+
+    /**
+     * Retrieves the number of durations recorded.
+     *
+     * @return The number of durations recorded.
+     */
+    public long getCount() {
+        long nCount = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            nCount += mBuckets.get(i);
+        }
+        return nCount;
+    }
+
+    /**
+     * Retrieves the average duration.
+     *
+     * @return The average duration (in nanoseconds).
+     */
+    public long getMean() {
+        final long nCount = getCount();
+        return (nCount == 0L ? 0L : mSum.sum() / nCount);
+    }
+
+    /**
+     * Retrieves the maximum duration.
+     *
+     * @return The maximum duration (in nanoseconds).
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Retrieves the given percentile of the durations.
+     *
+     * @param percentile The percentile (e.g 0.99).
+     *
+     * @return The duration (in nanoseconds) that is greater or equal to the given percentile of the durations.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0.0D || percentile > 1.0D) {
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+        }
+        final long nCount = getCount();
+        if (nCount == 0L) {
+            return 0L;
+        }
+        final long nRank = Math.max(1L, (long) Math.ceil(percentile * nCount));
+        long nSeen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            nSeen += mBuckets.get(i);
+            if (nSeen >= nRank) {
+                //! The middle of the bucket, which is never above the maximum.
+                return Math.min(getMax(), getLowerBound(i) + (getWidth(i) >> 1));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[count=" + getCount() + ", mean=" + getMean() + "ns, p50=" + getPercentile(0.5D)
+                + "ns, p99=" + getPercentile(0.99D) + "ns, max=" + getMax() + "ns]";
+    }
+
+    /**
+     * Retrieves the bucket of the given value.
+     */
+    private static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int nMagnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (nMagnitude >= MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        final int nShift = nMagnitude - SUB_BUCKET_BITS;
+        return ((nShift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> nShift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Retrieves the smallest value of the given bucket.
+     */
+    private static long getLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int nShift = (index >>> SUB_BUCKET_BITS) - 1;
+        return (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << nShift;
+    }
+
+    /**
+     * Retrieves the amount of values of the given bucket.
+     */
+    private static long getWidth(int index) {
+        return (index < SUB_BUCKET_COUNT ? 1L : 1L << ((index >>> SUB_BUCKET_BITS) - 1));
+    }
+}
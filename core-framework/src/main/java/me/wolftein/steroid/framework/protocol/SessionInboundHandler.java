@@ -25,6 +25,8 @@ import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.util.CharsetUtil;
 
+import java.nio.channels.ClosedChannelException;
+
 /**
  * Encapsulate the {@link SimpleChannelInboundHandler} for handling WebSockets messages.*.
  */
@@ -71,9 +73,21 @@ public final class SessionInboundHandler extends SimpleChannelInboundHandler {
      */
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        if (!mHandshakePromise.isDone()) {
+            mHandshakePromise.tryFailure(new ClosedChannelException());
+        }
         mSession.onDisconnectFromHandler();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        mSession.onWritabilityFromHandler(ctx.channel());
+        ctx.fireChannelWritabilityChanged();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -96,7 +110,7 @@ public final class SessionInboundHandler extends SimpleChannelInboundHandler {
         }
         final WebSocketFrame frame = (WebSocketFrame) msg;
         if (frame instanceof TextWebSocketFrame) {
-            mSession.onMessageFromHandler((TextWebSocketFrame) frame);
+            mSession.onMessageFromHandler(ch, (TextWebSocketFrame) frame);
         } else if (frame instanceof CloseWebSocketFrame) {
             ch.close();
         }
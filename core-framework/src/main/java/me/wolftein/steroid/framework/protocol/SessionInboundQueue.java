@@ -0,0 +1,248 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import com.eclipsesource.json.JsonObject;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a preallocated single-producer single-consumer ring buffer that hands the messages decoded by
+ * the event loop of the channel over to the thread that calls the listeners (See {@link SessionDispatchMode}).
+ * <br/>
+ * NOTE: The producer never waits; once the ring buffer reaches its high mark the caller is expected to stop
+ * reading from the channel (which pushes back on the server), and the few messages already read meanwhile are
+ * held by the producer until {@link #flush()} finds room for them.
+ */
+final class SessionInboundQueue {
+    /**
+     * The index of each sequence (128 bytes apart).
+     */
+    private final static int TAIL = 0;
+    private final static int HEAD = 16;
+
+    private final int mMask;
+    private final int mHighMark;
+    private final Queue<Consumer<JsonReader>>[] mStreams;
+    private final ByteBuf[] mSlices;
+    private final Queue<Consumer<JsonObject>>[] mConsumers;
+    private final JsonObject[] mBodies;
+
+    /**
+     * The next sequence to be published by the producer (at {@link #TAIL}), and the next sequence to be
+     * dispatched by the consumer (at {@link #HEAD}).
+     * <br/>
+     * NOTE: Both are apart from each other, so the producer and the consumer never share a cache line.
+     */
+    private final AtomicLongArray mSequences = new AtomicLongArray(HEAD + 1);
+
+    /**
+     * The latest head seen by the producer (only accessed by the producer).
+     */
+    private long mHeadCache;
+
+    /**
+     * The messages that didn't fit into the ring buffer, in order (only accessed by the producer).
+     */
+    private final ArrayDeque<Overflow> mOverflow = new ArrayDeque<>();
+
+    /**
+     * Default constructor for {@link SessionInboundQueue}.
+     *
+     * @param capacity The number of slots (must be a power of two).
+     */
+    SessionInboundQueue(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity of the queue must be a power of two");
+        }
+        this.mMask = capacity - 1;
+        this.mHighMark = capacity - (capacity >> 2);
+        this.mStreams = newArray(capacity);
+        this.mSlices = new ByteBuf[capacity];
+        this.mConsumers = newArray(capacity);
+        this.mBodies = new JsonObject[capacity];
+    }
+
+    /**
+     * Publish a message (only called by the producer).
+     *
+     * @param streams   The stream listeners of the message (or null if there isn't any).
+     * @param slice     The (retained) data of the message for the stream listeners.
+     * @param consumers The listeners of the message (or null if there isn't any).
+     * @param body      The (decoded) data of the message for the listeners.
+     *
+     * @return True if the queue has reached its high mark and reading should stop, false otherwise.
+     */
+    boolean offer(Queue<Consumer<JsonReader>> streams, ByteBuf slice,
+                  Queue<Consumer<JsonObject>> consumers, JsonObject body) {
+        //! Messages held back are published first, so the order is always preserved.
+        if (!mOverflow.isEmpty() && !flush()) {
+            mOverflow.add(new Overflow(streams, slice, consumers, body));
+            return true;
+        }
+        if (!publish(streams, slice, consumers, body)) {
+            mOverflow.add(new Overflow(streams, slice, consumers, body));
+            return true;
+        }
+        return size() >= mHighMark;
+    }
+
+    /**
+     * Publish every message held back while the ring buffer was full (only called by the producer).
+     *
+     * @return True if every message has been published, false otherwise.
+     */
+    boolean flush() {
+        Overflow nOverflow;
+        while ((nOverflow = mOverflow.peek()) != null) {
+            if (!publish(nOverflow.mStreams, nOverflow.mSlice, nOverflow.mConsumers, nOverflow.mBody)) {
+                return false;
+            }
+            mOverflow.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves if the queue is below its low mark (a quarter of the capacity), so reading can resume.
+     *
+     * @return True if the queue is below its low mark, false otherwise.
+     */
+    boolean isDrained() {
+        return size() <= (mBodies.length >> 2);
+    }
+
+    /**
+     * Calls the listeners of every message published (only called by the consumer).
+     *
+     * @return The number of messages dispatched.
+     */
+    int dispatch() {
+        final long nHead = mSequences.get(HEAD);
+        final long nTail = mSequences.get(TAIL);
+        for (long sequence = nHead; sequence < nTail; sequence++) {
+            dispatch((int) sequence & mMask);
+        }
+        //! Release the entire batch to the producer at once.
+        if (nTail != nHead) {
+            mSequences.lazySet(HEAD, nTail);
+        }
+        return (int) (nTail - nHead);
+    }
+
+    /**
+     * Retrieves the number of messages pending to be dispatched.
+     *
+     * @return The number of messages pending.
+     */
+    int size() {
+        return (int) (mSequences.get(TAIL) - mSequences.get(HEAD));
+    }
+
+    /**
+     * Helper method to create an array of listeners.
+     *
+     * @param capacity The length of the array.
+     *
+     * @return A new array of listeners.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Queue<T>[] newArray(int capacity) {
+        return new Queue[capacity];
+    }
+
+    /**
+     * Publish a message into the ring buffer (only called by the producer).
+     *
+     * @return True if the message has been published, false if the ring buffer is full.
+     */
+    private boolean publish(Queue<Consumer<JsonReader>> streams, ByteBuf slice,
+                            Queue<Consumer<JsonObject>> consumers, JsonObject body) {
+        final long nSequence = mSequences.get(TAIL);
+
+        //! The head is only read again when the queue looks full.
+        if (nSequence - mBodies.length >= mHeadCache) {
+            mHeadCache = mSequences.get(HEAD);
+            if (nSequence - mBodies.length >= mHeadCache) {
+                return false;
+            }
+        }
+        final int nSlot = (int) nSequence & mMask;
+        mStreams[nSlot] = streams;
+        mSlices[nSlot] = slice;
+        mConsumers[nSlot] = consumers;
+        mBodies[nSlot] = body;
+        mSequences.lazySet(TAIL, nSequence + 1L);
+        return true;
+    }
+
+    /**
+     * Dispatch the message at the given slot.
+     *
+     * @param slot The slot of the message.
+     */
+    private void dispatch(int slot) {
+        final Queue<Consumer<JsonReader>> nStreams = mStreams[slot];
+        final ByteBuf nSlice = mSlices[slot];
+        final Queue<Consumer<JsonObject>> nConsumers = mConsumers[slot];
+        final JsonObject nBody = mBodies[slot];
+        mStreams[slot] = null;
+        mSlices[slot] = null;
+        mConsumers[slot] = null;
+        mBodies[slot] = null;
+        try {
+            if (nStreams != null) {
+                nStreams.forEach(T -> T.accept(new JsonReader(nSlice)));
+            }
+            if (nConsumers != null) {
+                nConsumers.forEach(T -> T.accept(nBody));
+            }
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        } finally {
+            if (nSlice != null) {
+                nSlice.release();
+            }
+        }
+    }
+
+    /**
+     * Encapsulate a message held back by the producer while the ring buffer is full.
+     */
+    private final static class Overflow {
+        private final Queue<Consumer<JsonReader>> mStreams;
+        private final ByteBuf mSlice;
+        private final Queue<Consumer<JsonObject>> mConsumers;
+        private final JsonObject mBody;
+
+        /**
+         * Default constructor for {@link Overflow}.
+         */
+        Overflow(Queue<Consumer<JsonReader>> streams, ByteBuf slice,
+                 Queue<Consumer<JsonObject>> consumers, JsonObject body) {
+            this.mStreams = streams;
+            this.mSlice = slice;
+            this.mConsumers = consumers;
+            this.mBody = body;
+        }
+    }
+}
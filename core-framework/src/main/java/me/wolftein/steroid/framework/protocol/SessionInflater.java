@@ -0,0 +1,268 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CodecException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionDecoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandshaker;
+
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Encapsulate a {@link WebSocketExtensionDecoder} that inflates the messages of the permessage-deflate extension
+ * (RFC 7692) with an {@link Inflater} of the JDK.
+ * <br/>
+ * NOTE: Netty picks the inflater of the extension through a system property and defaults to JZlib (which isn't a
+ * dependency), so the handshakers of Netty are wrapped (See {@link #wrap(WebSocketClientExtensionHandshaker)}) to
+ * replace only their decoder, rather than changing that property for the whole process.
+ */
+public final class SessionInflater extends WebSocketExtensionDecoder {
+    /**
+     * The tail removed from every message by the peer (RFC 7692, section 7.2.1).
+     */
+    private final static byte[] MESSAGE_TAIL = new byte[]{0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+
+    /**
+     * The length of the chunks inflated at once.
+     */
+    private final static int CHUNK_SIZE = 8192;
+
+    /**
+     * True if the peer resets its compression context after every message.
+     */
+    private final boolean isNoContext;
+
+    /**
+     * The inflater of the channel (null until the first compressed message, or after being released).
+     */
+    private Inflater mInflater;
+
+    /**
+     * True while the fragments of a compressed message are being received.
+     */
+    private boolean isInflating;
+
+    /**
+     * Default constructor for {@link SessionInflater}.
+     *
+     * @param isNoContext True if the peer resets its compression context after every message.
+     */
+    public SessionInflater(boolean isNoContext) {
+        this.isNoContext = isNoContext;
+    }
+
+    /**
+     * Wraps the given client handshaker so the negotiated extension inflates with {@link SessionInflater}.
+     *
+     * @param handshaker The handshaker of the permessage-deflate extension.
+     *
+     * @return The handshaker that has been wrapped.
+     */
+    public static WebSocketClientExtensionHandshaker wrap(WebSocketClientExtensionHandshaker handshaker) {
+        return new WebSocketClientExtensionHandshaker() {
+            @Override
+            public WebSocketExtensionData newRequestData() {
+                return handshaker.newRequestData();
+            }
+
+            @Override
+            public WebSocketClientExtension handshakeExtension(WebSocketExtensionData data) {
+                final WebSocketClientExtension nExtension = handshaker.handshakeExtension(data);
+                if (nExtension == null) {
+                    return null;
+                }
+                final boolean isNoContext = data.parameters().containsKey("server_no_context_takeover");
+                return new WebSocketClientExtension() {
+                    @Override
+                    public int rsv() {
+                        return nExtension.rsv();
+                    }
+
+                    @Override
+                    public WebSocketExtensionEncoder newExtensionEncoder() {
+                        return nExtension.newExtensionEncoder();
+                    }
+
+                    @Override
+                    public WebSocketExtensionDecoder newExtensionDecoder() {
+                        return new SessionInflater(isNoContext);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Wraps the given server handshaker so the negotiated extension inflates with {@link SessionInflater}.
+     *
+     * @param handshaker The handshaker of the permessage-deflate extension.
+     *
+     * @return The handshaker that has been wrapped.
+     */
+    public static WebSocketServerExtensionHandshaker wrap(WebSocketServerExtensionHandshaker handshaker) {
+        return data -> {
+            final WebSocketServerExtension nExtension = handshaker.handshakeExtension(data);
+            if (nExtension == null) {
+                return null;
+            }
+            final WebSocketExtensionData nResponse = nExtension.newReponseData();
+            final boolean isNoContext = nResponse.parameters().containsKey("client_no_context_takeover");
+            return new WebSocketServerExtension() {
+                @Override
+                public int rsv() {
+                    return nExtension.rsv();
+                }
+
+                @Override
+                public WebSocketExtensionEncoder newExtensionEncoder() {
+                    return nExtension.newExtensionEncoder();
+                }
+
+                @Override
+                public WebSocketExtensionDecoder newExtensionDecoder() {
+                    return new SessionInflater(isNoContext);
+                }
+
+                @Override
+                public WebSocketExtensionData newReponseData() {
+                    return nResponse;
+                }
+            };
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean acceptInboundMessage(Object msg) throws Exception {
+        if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+            return (((WebSocketFrame) msg).rsv() & WebSocketExtension.RSV1) != 0;
+        }
+        return msg instanceof ContinuationWebSocketFrame && isInflating;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame msg, List<Object> out) throws Exception {
+        if (mInflater == null) {
+            mInflater = new Inflater(true);
+        }
+
+        final ByteBuf nInput = msg.content();
+        final ByteBuf nContent = ctx.alloc().heapBuffer(Math.max(CHUNK_SIZE, nInput.readableBytes() * 4));
+        try {
+            if (nInput.hasArray()) {
+                inflate(nInput.array(), nInput.arrayOffset() + nInput.readerIndex(), nInput.readableBytes(), nContent);
+            } else {
+                final byte[] nArray = new byte[nInput.readableBytes()];
+                nInput.getBytes(nInput.readerIndex(), nArray);
+                inflate(nArray, 0, nArray.length, nContent);
+            }
+            if (msg.isFinalFragment()) {
+                inflate(MESSAGE_TAIL, 0, MESSAGE_TAIL.length, nContent);
+            }
+        } catch (DataFormatException exception) {
+            nContent.release();
+            release();
+            throw new CodecException(exception);
+        }
+
+        isInflating = !msg.isFinalFragment();
+        if (msg.isFinalFragment() && isNoContext) {
+            release();
+        }
+
+        final int nRsv = (msg instanceof ContinuationWebSocketFrame ? msg.rsv() : msg.rsv() ^ WebSocketExtension.RSV1);
+        if (msg instanceof TextWebSocketFrame) {
+            out.add(new TextWebSocketFrame(msg.isFinalFragment(), nRsv, nContent));
+        } else if (msg instanceof BinaryWebSocketFrame) {
+            out.add(new BinaryWebSocketFrame(msg.isFinalFragment(), nRsv, nContent));
+        } else {
+            out.add(new ContinuationWebSocketFrame(msg.isFinalFragment(), nRsv, nContent));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        release();
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        release();
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Inflates the given compressed bytes into a buffer.
+     *
+     * @param array  The array that contains the compressed bytes.
+     * @param offset The offset of the compressed bytes.
+     * @param length The number of compressed bytes.
+     * @param out    The (heap) buffer where to write the inflated bytes.
+     */
+    private void inflate(byte[] array, int offset, int length, ByteBuf out) throws DataFormatException {
+        mInflater.setInput(array, offset, length);
+        while (true) {
+            out.ensureWritable(CHUNK_SIZE);
+            final int nLength
+                    = mInflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+            out.writerIndex(out.writerIndex() + nLength);
+            if (nLength == 0) {
+                if (mInflater.needsDictionary()) {
+                    throw new DataFormatException("Unexpected preset dictionary");
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Releases the inflater, so the next message starts from a new context.
+     */
+    private void release() {
+        if (mInflater != null) {
+            mInflater.end();
+            mInflater = null;
+        }
+    }
+}
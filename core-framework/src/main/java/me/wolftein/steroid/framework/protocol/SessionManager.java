@@ -0,0 +1,214 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.channel.EventLoopGroup;
+import me.wolftein.steroid.framework.event.EventManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encapsulate a manager of many {@link Session}s that run on a single shared {@link EventLoopGroup},
+ * instead of a group (with twice as many threads as cores) for each session.
+ */
+public final class SessionManager {
+    /**
+     * Define how many full collections may be triggered to measure the heap retained.
+     */
+    private final static int RETAINED_COLLECTIONS = 4;
+
+    private final EventLoopGroup mWorkerGroup;
+    private final SessionTransport mTransport;
+    private final int mThreads;
+    private final Set<Session> mSessions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final MemoryMXBean mMemory = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * The heap retained, and the number of sessions, when the memory has been marked (See {@link #markMemory()}).
+     */
+    private volatile long mMarkedMemory = -1L;
+    private volatile int mMarkedSessions;
+
+    /**
+     * Default constructor for {@link SessionManager} with the best transport available.
+     *
+     * @param threads The number of threads of the shared event loop group.
+     */
+    public SessionManager(int threads) {
+        this(threads, SessionTransport.getDefault());
+    }
+
+    /**
+     * Default constructor for {@link SessionManager}.
+     *
+     * @param threads   The number of threads of the shared event loop group.
+     * @param transport The transport of all sessions.
+     */
+    public SessionManager(int threads, SessionTransport transport) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        if (!transport.isAvailable()) {
+            throw new IllegalArgumentException("Transport " + transport + " is not available");
+        }
+        this.mThreads = threads;
+        this.mTransport = transport;
+        this.mWorkerGroup = transport.newEventLoopGroup(threads);
+    }
+
+    /**
+     * Creates a new session that runs on the shared event loop group.
+     *
+     * @param eventManager The event manager of the session.
+     *
+     * @return The session that has been created (not connected).
+     */
+    public Session create(EventManager eventManager) {
+        if (mWorkerGroup.isShuttingDown()) {
+            throw new IllegalStateException("Cannot create a session after the manager has been shutdown");
+        }
+        final Session nSession = new Session(eventManager, mWorkerGroup);
+        mSessions.add(nSession);
+        return nSession;
+    }
+
+    /**
+     * Destroys a session of the manager, closing its connection.
+     *
+     * @param session The session to destroy.
+     */
+    public void destroy(Session session) {
+        if (mSessions.remove(session)) {
+            session.destroy();
+        }
+    }
+
+    /**
+     * Destroys all sessions and shutdown the shared event loop group.
+     */
+    public void shutdown() {
+        mSessions.forEach(this::destroy);
+        mWorkerGroup.shutdownGracefully();
+    }
+
+    /**
+     * Retrieves all sessions of the manager.
+     *
+     * @return An unmodifiable view of all sessions of the manager.
+     */
+    public Set<Session> getSessions() {
+        return Collections.unmodifiableSet(mSessions);
+    }
+
+    /**
+     * Retrieves the number of sessions of the manager.
+     *
+     * @return The number of sessions of the manager.
+     */
+    public int getSessionCount() {
+        return mSessions.size();
+    }
+
+    /**
+     * Retrieves the number of sessions that are connected.
+     *
+     * @return The number of sessions that are connected.
+     */
+    public int getConnectionCount() {
+        int nCount = 0;
+        for (final Session session : mSessions) {
+            if (session.isActive()) {
+                nCount++;
+            }
+        }
+        return nCount;
+    }
+
+    /**
+     * Retrieves the transport of all sessions.
+     *
+     * @return The transport of all sessions.
+     */
+    public SessionTransport getTransport() {
+        return mTransport;
+    }
+
+    /**
+     * Retrieves the number of I/O threads used by all sessions.
+     *
+     * @return The number of I/O threads used by all sessions.
+     */
+    public int getThreadCount() {
+        return mThreads;
+    }
+
+    /**
+     * Marks the heap retained (after a full collection) right now, as the baseline of {@link #getMemoryPerSession()}.
+     * <br/>
+     * NOTE: Triggers a full collection, so it must never be called from a thread sensitive to latency.
+     */
+    public void markMemory() {
+        mMarkedSessions = mSessions.size();
+        mMarkedMemory = getRetainedMemory();
+    }
+
+    /**
+     * Retrieves the heap retained by each session created since the memory has been marked, as the growth of
+     * the heap retained (after a full collection) divided by the number of sessions created meanwhile.
+     * <br/>
+     * NOTE: Triggers a full collection, so it must never be called from a thread sensitive to latency. Anything
+     *       else retained between both points (e.g the event manager of each session) is also included, so the
+     *       caller should choose points where only sessions are being created.
+     *
+     * @return The heap retained by each session (in bytes), or 0 if no session has been created since the mark.
+     */
+    public long getMemoryPerSession() {
+        final long nMarked = mMarkedMemory;
+        if (nMarked < 0L) {
+            throw new IllegalStateException("The memory has not been marked");
+        }
+        final int nCount = mSessions.size() - mMarkedSessions;
+        if (nCount <= 0) {
+            return 0L;
+        }
+        return Math.max(0L, getRetainedMemory() - nMarked) / nCount;
+    }
+
+    /**
+     * Retrieves the heap retained after a full collection.
+     *
+     * @return The heap retained (in bytes).
+     */
+    private long getRetainedMemory() {
+        //! A single collection may not reclaim everything (e.g objects waiting for finalization).
+        long nUsed = Long.MAX_VALUE;
+        for (int i = 0; i < RETAINED_COLLECTIONS; i++) {
+            mMemory.gc();
+            final long nCurrent = mMemory.getHeapMemoryUsage().getUsed();
+            if (nCurrent >= nUsed) {
+                break;
+            }
+            nUsed = nCurrent;
+        }
+        return nUsed;
+    }
+}
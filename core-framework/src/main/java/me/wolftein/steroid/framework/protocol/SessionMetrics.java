@@ -0,0 +1,308 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Encapsulate the wire statistics of every function of the protocol of a {@link Session} (messages and bytes in
+ * each direction, and the time spent decoding them), and the round-trip time of request/response pairs.
+ * <br/>
+ * NOTE: Every counter is lock-free, the only lock is taken once per request and once per response, to match them.
+ */
+public final class SessionMetrics {
+    /**
+     * The maximum number of requests waiting for a response, older requests are considered unanswered.
+     */
+    private final static int PENDING_CAPACITY = 64;
+
+    /**
+     * Encapsulate the counters of a function.
+     */
+    private final static class Counter {
+        private final String mName;
+        private final LongAdder mInboundCount = new LongAdder();
+        private final LongAdder mInboundBytes = new LongAdder();
+        private final LongAdder mOutboundCount = new LongAdder();
+        private final LongAdder mOutboundBytes = new LongAdder();
+        private final SessionHistogram mDecodeTime = new SessionHistogram();
+        private volatile RoundTrip mRequestOf;
+        private volatile RoundTrip mResponseOf;
+
+        private Counter(String name) {
+            this.mName = name;
+        }
+    }
+
+    /**
+     * Encapsulate a request that is answered by any of a set of responses.
+     */
+    private final static class RoundTrip {
+        private final Predicate<JsonReader> mMatcher;
+        private final long[] mPending = new long[PENDING_CAPACITY];
+        private final SessionHistogram mTime = new SessionHistogram();
+        private final LongAdder mUnanswered = new LongAdder();
+        private int mHead;
+        private volatile int mSize;
+
+        private RoundTrip(Predicate<JsonReader> matcher) {
+            this.mMatcher = matcher;
+        }
+
+        /**
+         * Handle a request that has been sent.
+         */
+        private synchronized void begin(long time) {
+            if (mSize == PENDING_CAPACITY) {
+                mHead = (mHead + 1) % PENDING_CAPACITY;
+                mSize--;
+                mUnanswered.increment();
+            }
+            mPending[(mHead + mSize) % PENDING_CAPACITY] = time;
+            mSize++;
+        }
+
+        /**
+         * Handle a response, matching it with the oldest request that hasn't timed out.
+         *
+         * @return The round-trip time, or -1 if there isn't any request to match.
+         */
+        private synchronized long complete(long time, long timeout) {
+            while (mSize > 0) {
+                final long nElapsed = time - mPending[mHead];
+                mHead = (mHead + 1) % PENDING_CAPACITY;
+                mSize--;
+                if (nElapsed <= timeout) {
+                    return nElapsed;
+                }
+                mUnanswered.increment();
+            }
+            return -1L;
+        }
+
+        /**
+         * Clears every request waiting for a response.
+         */
+        private synchronized void clear() {
+            mHead = mSize = 0;
+        }
+    }
+
+    private final MethodTable mMethods;
+    private final ConcurrentMap<String, Counter> mCounters = new ConcurrentHashMap<>();
+
+    /**
+     * The counters indexed by the unique identifier of their method (copy-on-write).
+     */
+    private volatile Counter[] mCountersById = new Counter[0];
+
+    /**
+     * The maximum time to wait for a response.
+     */
+    private volatile long mRoundTripTimeout = TimeUnit.SECONDS.toNanos(10L);
+
+    /**
+     * Default constructor for {@link SessionMetrics}.
+     *
+     * @param methods The table of the methods of the session.
+     */
+    SessionMetrics(MethodTable methods) {
+        this.mMethods = methods;
+    }
+
+    /**
+     * Tracks the round-trip time between a request and any of its responses.
+     *
+     * @param request   The name of the request (e.g POS).
+     * @param responses The name of every response (e.g ACTPOS).
+     */
+    public void addRoundTrip(String request, String... responses) {
+        addRoundTrip(request, null, responses);
+    }
+
+    /**
+     * Tracks the round-trip time between a request and any of its responses.
+     * <br/>
+     * NOTE: The matcher is executed on the I/O thread, with a reader over the data of every response.
+     *
+     * @param request   The name of the request (e.g POS).
+     * @param matcher   The predicate that tells whenever a response answers the request (e.g ACTPOS of the
+     *                  character, rather than of any other entity), or null if every response does.
+     * @param responses The name of every response (e.g ACTPOS).
+     */
+    public void addRoundTrip(String request, Predicate<JsonReader> matcher, String... responses) {
+        if (responses.length == 0) {
+            throw new IllegalArgumentException("The request " + request + " requires at least a response");
+        }
+        final RoundTrip nRoundTrip = new RoundTrip(matcher);
+        getCounter(request).mRequestOf = nRoundTrip;
+        for (final String response : responses) {
+            getCounter(response).mResponseOf = nRoundTrip;
+        }
+    }
+
+    /**
+     * Changes the maximum time to wait for a response, older requests are considered unanswered.
+     *
+     * @param timeout The timeout.
+     * @param unit    The unit of the timeout.
+     */
+    public void setRoundTripTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0L) {
+            throw new IllegalArgumentException("Invalid timeout " + timeout);
+        }
+        mRoundTripTimeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * Retrieves a snapshot of the statistics of every function that has been seen (or tracked).
+     *
+     * @return A list that contains the statistics of every function, sorted by name.
+     */
+    public List<SessionFunctionMetrics> getSnapshot() {
+        final List<SessionFunctionMetrics> nSnapshot = new ArrayList<>();
+        mCounters.values().forEach(T -> nSnapshot.add(getSnapshot(T)));
+        nSnapshot.sort((T, U) -> T.getName().compareTo(U.getName()));
+        return nSnapshot;
+    }
+
+    /**
+     * Retrieves a snapshot of the statistics of a function.
+     *
+     * @param function The name of the function.
+     *
+     * @return The statistics of the function, or null if the function has never been seen (or tracked).
+     */
+    public SessionFunctionMetrics getSnapshot(String function) {
+        final Counter nCounter = mCounters.get(function);
+        return (nCounter != null ? getSnapshot(nCounter) : null);
+    }
+
+    /**
+     * Clears every statistic (the round-trips that are tracked are kept).
+     */
+    public void reset() {
+        for (final Counter counter : mCounters.values()) {
+            counter.mInboundCount.reset();
+            counter.mInboundBytes.reset();
+            counter.mOutboundCount.reset();
+            counter.mOutboundBytes.reset();
+            counter.mDecodeTime.reset();
+
+            final RoundTrip nRoundTrip = counter.mRequestOf;
+            if (nRoundTrip != null) {
+                nRoundTrip.clear();
+                nRoundTrip.mTime.reset();
+                nRoundTrip.mUnanswered.reset();
+            }
+        }
+    }
+
+    /**
+     * Handle a message that has been sent.
+     *
+     * @param function The name of the function of the message.
+     * @param bytes    The length of the message.
+     * @param time     The time (as given by {@link System#nanoTime()}) when the message has been sent.
+     */
+    void onSend(String function, int bytes, long time) {
+        final Counter nCounter = getCounter(function);
+        nCounter.mOutboundCount.increment();
+        nCounter.mOutboundBytes.add(bytes);
+
+        final RoundTrip nRoundTrip = nCounter.mRequestOf;
+        if (nRoundTrip != null) {
+            nRoundTrip.begin(time);
+        }
+    }
+
+    /**
+     * Handle a message that has been received.
+     *
+     * @param id    The unique identifier of the function of the message.
+     * @param bytes The length of the message.
+     * @param data  The data of the message.
+     * @param start The time (as given by {@link System#nanoTime()}) when the message has been received.
+     * @param end   The time (as given by {@link System#nanoTime()}) when the message has been decoded.
+     */
+    void onReceive(int id, int bytes, ByteBuf data, long start, long end) {
+        final Counter nCounter = getCounter(id);
+        nCounter.mInboundCount.increment();
+        nCounter.mInboundBytes.add(bytes);
+        nCounter.mDecodeTime.record(end - start);
+
+        //! The matcher is skipped (without locking) while there isn't any request waiting for a response.
+        final RoundTrip nRoundTrip = nCounter.mResponseOf;
+        if (nRoundTrip != null && nRoundTrip.mSize > 0
+                && (nRoundTrip.mMatcher == null || nRoundTrip.mMatcher.test(new JsonReader(data)))) {
+            final long nElapsed = nRoundTrip.complete(start, mRoundTripTimeout);
+            if (nElapsed >= 0L) {
+                nRoundTrip.mTime.record(nElapsed);
+            }
+        }
+    }
+
+    /**
+     * Retrieves (or creates) the counters of a function.
+     */
+    private Counter getCounter(String function) {
+        final Counter nCounter = mCounters.get(function);
+        return (nCounter != null ? nCounter : mCounters.computeIfAbsent(function, Counter::new));
+    }
+
+    /**
+     * Retrieves (or creates) the counters of a function from the unique identifier of its method.
+     */
+    private Counter getCounter(int id) {
+        final Counter[] nCounters = mCountersById;
+        if (id < nCounters.length && nCounters[id] != null) {
+            return nCounters[id];
+        }
+        synchronized (this) {
+            final Counter[] nUpdate = Arrays.copyOf(mCountersById, Math.max(mCountersById.length, id + 1));
+            final Counter nCounter = getCounter(mMethods.getName(id));
+            nUpdate[id] = nCounter;
+            mCountersById = nUpdate;
+            return nCounter;
+        }
+    }
+
+    /**
+     * Creates a snapshot of the counters of a function.
+     */
+    private static SessionFunctionMetrics getSnapshot(Counter counter) {
+        final RoundTrip nRoundTrip = counter.mRequestOf;
+        return new SessionFunctionMetrics(counter.mName,
+                counter.mInboundCount.sum(),
+                counter.mInboundBytes.sum(),
+                counter.mOutboundCount.sum(),
+                counter.mOutboundBytes.sum(),
+                counter.mDecodeTime.copy(),
+                (nRoundTrip != null ? nRoundTrip.mTime.copy() : null),
+                (nRoundTrip != null ? nRoundTrip.mUnanswered.sum() : 0L));
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate the queue of the messages of a {@link Session} that couldn't be written because the channel
+ * was above its high water mark, ordered by {@link SessionPriority}.
+ * <br/>
+ * NOTE: Messages only go through the queue while there is backpressure, otherwise they're written straight
+ * into the channel.
+ */
+public final class SessionOutboundQueue {
+    /**
+     * Encapsulate how the messages of a method are queued.
+     */
+    private final static class Rule {
+        private final SessionPriority mPriority;
+        private final SessionOverflowPolicy mPolicy;
+
+        private Rule(SessionPriority priority, SessionOverflowPolicy policy) {
+            this.mPriority = priority;
+            this.mPolicy = policy;
+        }
+    }
+
+    /**
+     * Encapsulate a message that has been queued.
+     */
+    final static class Entry {
+        final String mMethod;
+        Object mMessage;
+
+        private Entry(String method, Object message) {
+            this.mMethod = method;
+            this.mMessage = message;
+        }
+    }
+
+    /**
+     * The rule of the methods that doesn't have any.
+     */
+    private final static Rule DEFAULT_RULE = new Rule(SessionPriority.NORMAL, SessionOverflowPolicy.QUEUE);
+
+    /**
+     * The rule of each method.
+     */
+    private final Map<String, Rule> mRules = new ConcurrentHashMap<>();
+
+    /**
+     * The queue of each priority (indexed by the ordinal of the priority).
+     */
+    private final ArrayDeque<Entry>[] mQueues;
+
+    /**
+     * The maximum number of messages queued.
+     */
+    private volatile int mCapacity = 1024;
+
+    /**
+     * The number of messages queued, and the maximum number of messages that were queued at the same time.
+     */
+    private volatile int mSize;
+    private int mPeakSize;
+
+    /**
+     * Statistics of the messages that were queued, replaced and dropped.
+     */
+    private final LongAdder mQueuedCount = new LongAdder();
+    private final LongAdder mReplacedCount = new LongAdder();
+    private final LongAdder mDroppedCount = new LongAdder();
+
+    /**
+     * Default constructor for {@link SessionOutboundQueue}.
+     */
+    SessionOutboundQueue() {
+        final SessionPriority[] nPriorities = SessionPriority.values();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<Entry>[] nQueues = new ArrayDeque[nPriorities.length];
+        for (int i = 0; i < nPriorities.length; i++) {
+            nQueues[i] = new ArrayDeque<>();
+        }
+        this.mQueues = nQueues;
+    }
+
+    /**
+     * Changes how the messages of a method are queued.
+     *
+     * @param method   The name of the method.
+     * @param priority The priority of the messages.
+     * @param policy   The policy when the messages cannot be written.
+     */
+    public void setRule(String method, SessionPriority priority, SessionOverflowPolicy policy) {
+        mRules.put(method, new Rule(priority, policy));
+    }
+
+    /**
+     * Retrieves the priority of the messages of a method.
+     *
+     * @param method The name of the method.
+     *
+     * @return The priority of the messages of the method.
+     */
+    public SessionPriority getPriority(String method) {
+        return mRules.getOrDefault(method, DEFAULT_RULE).mPriority;
+    }
+
+    /**
+     * Retrieves the policy of the messages of a method.
+     *
+     * @param method The name of the method.
+     *
+     * @return The policy of the messages of the method.
+     */
+    public SessionOverflowPolicy getPolicy(String method) {
+        return mRules.getOrDefault(method, DEFAULT_RULE).mPolicy;
+    }
+
+    /**
+     * Changes the maximum number of messages queued.
+     * <br/>
+     * NOTE: Once full, the oldest message of the lowest priority (not higher than the new message) is dropped.
+     *
+     * @param capacity The maximum number of messages queued.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        mCapacity = capacity;
+    }
+
+    /**
+     * Retrieves the maximum number of messages queued.
+     *
+     * @return The maximum number of messages queued.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Retrieves the number of messages queued.
+     *
+     * @return The number of messages queued.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Retrieves the number of messages queued with the given priority.
+     *
+     * @param priority The priority of the messages.
+     *
+     * @return The number of messages queued with the given priority.
+     */
+    public synchronized int size(SessionPriority priority) {
+        return mQueues[priority.ordinal()].size();
+    }
+
+    /**
+     * Retrieves the maximum number of messages that were queued at the same time.
+     *
+     * @return The maximum number of messages that were queued at the same time.
+     */
+    public synchronized int getPeakSize() {
+        return mPeakSize;
+    }
+
+    /**
+     * Retrieves the number of messages that has been queued.
+     *
+     * @return The number of messages that has been queued.
+     */
+    public long getQueuedCount() {
+        return mQueuedCount.sum();
+    }
+
+    /**
+     * Retrieves the number of queued messages that has been replaced by a newer one.
+     *
+     * @return The number of queued messages that has been replaced.
+     */
+    public long getReplacedCount() {
+        return mReplacedCount.sum();
+    }
+
+    /**
+     * Retrieves the number of messages that has been dropped.
+     *
+     * @return The number of messages that has been dropped.
+     */
+    public long getDroppedCount() {
+        return mDroppedCount.sum();
+    }
+
+    /**
+     * Check whenever the queue is empty.
+     *
+     * @return True if the queue is empty, false otherwise.
+     */
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Queues a message.
+     *
+     * @param method  The name of the method of the message.
+     * @param message The message to queue.
+     *
+     * @return True if the message has been queued, false if it has been dropped.
+     */
+    synchronized boolean offer(String method, Object message) {
+        final Rule nRule = mRules.getOrDefault(method, DEFAULT_RULE);
+        final ArrayDeque<Entry> nQueue = mQueues[nRule.mPriority.ordinal()];
+
+        switch (nRule.mPolicy) {
+            case DROP:
+                drop(message);
+                return false;
+            case REPLACE:
+                for (final Entry entry : nQueue) {
+                    if (entry.mMethod.equals(method)) {
+                        ReferenceCountUtil.release(entry.mMessage);
+                        entry.mMessage = message;
+                        mReplacedCount.increment();
+                        return true;
+                    }
+                }
+                break;
+        }
+
+        if (mSize >= mCapacity && !evict(nRule.mPriority)) {
+            drop(message);
+            return false;
+        }
+        nQueue.addLast(new Entry(method, message));
+        mQueuedCount.increment();
+        mPeakSize = Math.max(mPeakSize, ++mSize);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the next message (by priority), along with the name of its method.
+     *
+     * @return The next message, or null if the queue is empty.
+     */
+    synchronized Entry poll() {
+        for (final ArrayDeque<Entry> queue : mQueues) {
+            final Entry nEntry = queue.pollFirst();
+            if (nEntry != null) {
+                mSize--;
+                return nEntry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes (and drops) every message of the queue.
+     */
+    synchronized void clear() {
+        for (final ArrayDeque<Entry> queue : mQueues) {
+            for (final Iterator<Entry> iterator = queue.iterator(); iterator.hasNext(); ) {
+                drop(iterator.next().mMessage);
+                iterator.remove();
+            }
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Helper method to drop the oldest message of the lowest priority, but not higher than the given one.
+     *
+     * @param priority The highest priority of the message to drop.
+     *
+     * @return True if a message has been dropped, false otherwise.
+     */
+    private boolean evict(SessionPriority priority) {
+        for (int i = mQueues.length - 1; i >= priority.ordinal(); i--) {
+            final Entry nEntry = mQueues[i].pollFirst();
+            if (nEntry != null) {
+                drop(nEntry.mMessage);
+                mSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to drop a message.
+     *
+     * @param message The message to drop.
+     */
+    private void drop(Object message) {
+        ReferenceCountUtil.release(message);
+        mDroppedCount.increment();
+    }
+}
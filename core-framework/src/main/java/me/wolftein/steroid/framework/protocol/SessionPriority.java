@@ -0,0 +1,38 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+/**
+ * Enumerates all priorities of the messages queued by {@link SessionOutboundQueue}.
+ * <br/>
+ * NOTE: Messages with a higher priority are always written before those with a lower one.
+ */
+public enum SessionPriority {
+    /**
+     * Critical messages (e.g using an item).
+     */
+    HIGH,
+    /**
+     * Regular messages (e.g moving).
+     */
+    NORMAL,
+    /**
+     * Messages that can wait (e.g chatting).
+     */
+    LOW
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encapsulate the policy on how a {@link Session} reconnects after the connection has been lost.
+ * <br/>
+ * NOTE: The delay grows exponentially with each attempt and is randomised (full jitter), so a fleet
+ * of sessions that lost the connection at the same time doesn't reconnect at the same time.
+ */
+public final class SessionReconnectPolicy {
+    /**
+     * The default policy (from half a second up to 30 seconds, forever).
+     */
+    public final static SessionReconnectPolicy DEFAULT
+            = new SessionReconnectPolicy(500L, 30000L, TimeUnit.MILLISECONDS, 0);
+
+    private final long mInitialDelay;
+    private final long mMaximumDelay;
+    private final int mMaximumAttempts;
+
+    /**
+     * Default constructor for {@link SessionReconnectPolicy}.
+     *
+     * @param initialDelay    The delay before the first attempt.
+     * @param maximumDelay    The maximum delay between attempts.
+     * @param unit            The unit of both delays.
+     * @param maximumAttempts The maximum number of attempts, or zero for unlimited attempts.
+     */
+    public SessionReconnectPolicy(long initialDelay, long maximumDelay, TimeUnit unit, int maximumAttempts) {
+        if (initialDelay <= 0 || maximumDelay < initialDelay) {
+            throw new IllegalArgumentException("Invalid delay range");
+        }
+        if (maximumAttempts < 0) {
+            throw new IllegalArgumentException("Invalid number of attempts");
+        }
+        this.mInitialDelay = unit.toMillis(initialDelay);
+        this.mMaximumDelay = unit.toMillis(maximumDelay);
+        this.mMaximumAttempts = maximumAttempts;
+    }
+
+    /**
+     * Retrieves the maximum number of attempts.
+     *
+     * @return The maximum number of attempts, or zero for unlimited attempts.
+     */
+    public int getMaximumAttempts() {
+        return mMaximumAttempts;
+    }
+
+    /**
+     * Check whenever another attempt is allowed.
+     *
+     * @param attempt The number of the attempt (starting from one).
+     *
+     * @return True if the attempt is allowed, false otherwise.
+     */
+    public boolean isAllowed(int attempt) {
+        return mMaximumAttempts == 0 || attempt <= mMaximumAttempts;
+    }
+
+    /**
+     * Retrieves the delay (in milliseconds) before the given attempt.
+     *
+     * @param attempt The number of the attempt (starting from one).
+     *
+     * @return A random delay between the initial delay and the exponential delay of the attempt.
+     */
+    public long getDelay(int attempt) {
+        //! Cap the exponent so the shift never overflows.
+        final int nExponent = Math.min(Math.max(attempt - 1, 0), 30);
+        final long nCeiling = Math.min(mMaximumDelay, mInitialDelay << nExponent);
+        return mInitialDelay + ThreadLocalRandom.current().nextLong(nCeiling - mInitialDelay + 1);
+    }
+}
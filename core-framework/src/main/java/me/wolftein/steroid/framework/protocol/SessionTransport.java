@@ -0,0 +1,145 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Enumerates all transports of {@link Session}.
+ */
+public enum SessionTransport {
+    /**
+     * The portable transport based on java.nio, always available.
+     */
+    NIO {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new NioEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> getChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public boolean isCompatible(EventLoopGroup group) {
+            return group instanceof NioEventLoopGroup;
+        }
+    },
+    /**
+     * The native transport based on epoll, only available on Linux (x86_64) when the native
+     * library of netty-transport-native-epoll can be loaded.
+     */
+    EPOLL {
+        @Override
+        public boolean isAvailable() {
+            try {
+                // NOTE: The native event array is allocated through Unsafe, which is not available on
+                //       every JVM even if the native library has been loaded.
+                return Epoll.isAvailable() && PlatformDependent.hasUnsafe();
+            } catch (LinkageError ignored) {
+                return false;
+            }
+        }
+
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> getChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public boolean isCompatible(EventLoopGroup group) {
+            return isAvailable() && group instanceof EpollEventLoopGroup;
+        }
+    };
+
+    /**
+     * Check if the transport can be used on this platform.
+     *
+     * @return True if the transport can be used, false otherwise.
+     */
+    public abstract boolean isAvailable();
+
+    /**
+     * Creates a new event loop group of the transport.
+     *
+     * @param threads The number of threads of the group (0 for the default of netty).
+     *
+     * @return A new event loop group of the transport.
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads);
+
+    /**
+     * Retrieves the class of the channels of the transport.
+     *
+     * @return The class of the channels of the transport.
+     */
+    public abstract Class<? extends SocketChannel> getChannelClass();
+
+    /**
+     * Check if the given event loop group belongs to the transport.
+     *
+     * @param group The event loop group to check.
+     *
+     * @return True if the group belongs to the transport, false otherwise.
+     */
+    public abstract boolean isCompatible(EventLoopGroup group);
+
+    /**
+     * Retrieves the best transport available on this platform, native epoll with a fallback to nio.
+     *
+     * @return The best transport available on this platform.
+     */
+    public static SessionTransport getDefault() {
+        return EPOLL.isAvailable() ? EPOLL : NIO;
+    }
+
+    /**
+     * Retrieves the transport of the given event loop group.
+     *
+     * @param group The event loop group.
+     *
+     * @return The transport of the given event loop group.
+     */
+    public static SessionTransport of(EventLoopGroup group) {
+        for (final SessionTransport transport : values()) {
+            if (transport.isCompatible(group)) {
+                return transport;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported event loop group " + group.getClass().getName());
+    }
+}
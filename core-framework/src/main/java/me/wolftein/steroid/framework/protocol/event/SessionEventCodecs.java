@@ -0,0 +1,105 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol.event;
+
+import com.eclipsesource.json.JsonObject;
+import me.wolftein.steroid.framework.event.journal.EventCodec;
+import me.wolftein.steroid.framework.event.journal.EventCodecs;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encapsulate the {@link EventCodec}s of all session events.
+ */
+public final class SessionEventCodecs {
+    /**
+     * Register the codecs of all session events.
+     *
+     * @param codecs The registry where to register the codecs.
+     */
+    public static void register(EventCodecs codecs) {
+        codecs.register(SessionConnectEvent.class, new EventCodec<SessionConnectEvent>() {
+            @Override
+            public void encode(SessionConnectEvent event, ByteBuffer buffer) {
+            }
+
+            @Override
+            public SessionConnectEvent decode(ByteBuffer buffer) {
+                return new SessionConnectEvent();
+            }
+        });
+        codecs.register(SessionDisconnectEvent.class, new EventCodec<SessionDisconnectEvent>() {
+            @Override
+            public void encode(SessionDisconnectEvent event, ByteBuffer buffer) {
+            }
+
+            @Override
+            public SessionDisconnectEvent decode(ByteBuffer buffer) {
+                return new SessionDisconnectEvent();
+            }
+        });
+        codecs.register(SessionReconnectEvent.class, new EventCodec<SessionReconnectEvent>() {
+            @Override
+            public void encode(SessionReconnectEvent event, ByteBuffer buffer) {
+                buffer.putInt(event.getAttempt());
+                buffer.putLong(event.getDelay());
+            }
+
+            @Override
+            public SessionReconnectEvent decode(ByteBuffer buffer) {
+                return new SessionReconnectEvent(buffer.getInt(), buffer.getLong());
+            }
+        });
+        codecs.register(SessionRecvMessageEvent.class, new EventCodec<SessionRecvMessageEvent>() {
+            @Override
+            public void encode(SessionRecvMessageEvent event, ByteBuffer buffer) {
+                EventCodec.putString(buffer, event.getFunction());
+                EventCodec.putString(buffer, event.getBody() != null ? event.getBody().toString() : null);
+            }
+
+            @Override
+            public SessionRecvMessageEvent decode(ByteBuffer buffer) {
+                return new SessionRecvMessageEvent(EventCodec.getString(buffer), getObject(buffer));
+            }
+        });
+        codecs.register(SessionSendMessageEvent.class, new EventCodec<SessionSendMessageEvent>() {
+            @Override
+            public void encode(SessionSendMessageEvent event, ByteBuffer buffer) {
+                EventCodec.putString(buffer, event.getFunction());
+                EventCodec.putString(buffer, event.getBody() != null ? event.getBody().toString() : null);
+            }
+
+            @Override
+            public SessionSendMessageEvent decode(ByteBuffer buffer) {
+                return new SessionSendMessageEvent(EventCodec.getString(buffer), getObject(buffer));
+            }
+        });
+    }
+
+    /**
+     * Helper method to read a JSON object (that may be null) from a buffer.
+     *
+     * @param buffer The buffer where to read the object from.
+     *
+     * @return The object that has been read.
+     */
+    private static JsonObject getObject(ByteBuffer buffer) {
+        final String nValue = EventCodec.getString(buffer);
+        return (nValue != null ? JsonObject.readFrom(nValue) : null);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.protocol.event;
+
+import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.protocol.Session;
+
+/**
+ * Encapsulate an {@link Event} that define when {@link Session} is about to reconnect.
+ * <br/>
+ * NOTE: Cancelling the event stops reconnecting.
+ */
+public final class SessionReconnectEvent extends Event {
+    private final int mAttempt;
+    private final long mDelay;
+
+    /**
+     * Default constructor for {@link SessionReconnectEvent}.
+     */
+    public SessionReconnectEvent(int attempt, long delay) {
+        super(true);
+        this.mAttempt = attempt;
+        this.mDelay = delay;
+    }
+
+    /**
+     * Retrieves the number of the attempt (starting from one).
+     *
+     * @return The number of the attempt.
+     */
+    public int getAttempt() {
+        return mAttempt;
+    }
+
+    /**
+     * Retrieves the delay before the attempt.
+     *
+     * @return The delay before the attempt (in milliseconds).
+     */
+    public long getDelay() {
+        return mDelay;
+    }
+}
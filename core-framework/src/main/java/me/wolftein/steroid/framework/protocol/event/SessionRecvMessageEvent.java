@@ -21,12 +21,15 @@ import com.eclipsesource.json.JsonObject;
 import me.wolftein.steroid.framework.event.Event;
 import me.wolftein.steroid.framework.protocol.Session;
 
+import java.util.function.Supplier;
+
 /**
  * Encapsulate an {@link Event} that define when {@link Session} recv a message.
  */
 public final class SessionRecvMessageEvent extends Event {
     private final String mFunction;
-    private final JsonObject mBody;
+    private Supplier<JsonObject> mSupplier;
+    private JsonObject mBody;
 
     /**
      * Default constructor for {@link SessionConnectEvent}.
@@ -37,6 +40,18 @@ public final class SessionRecvMessageEvent extends Event {
         this.mBody = body;
     }
 
+    /**
+     * Constructor for {@link SessionConnectEvent} whose body is decoded on the first access.
+     * <br/>
+     * NOTE: The body can be backed by the frame of the message, which is only valid while the event
+     * is being dispatched.
+     */
+    public SessionRecvMessageEvent(String function, Supplier<JsonObject> body) {
+        super(true);
+        this.mFunction = function;
+        this.mSupplier = body;
+    }
+
     /**
      * Retrieves the function of the message.
      *
@@ -52,6 +67,10 @@ public final class SessionRecvMessageEvent extends Event {
      * @return The body of the message.
      */
     public JsonObject getBody() {
+        if (mSupplier != null) {
+            mBody = mSupplier.get();
+            mSupplier = null;
+        }
         return mBody;
     }
 }
@@ -18,11 +18,16 @@
 package me.wolftein.steroid.framework.scheduler;
 
 import java.util.ArrayDeque;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 /**
@@ -36,15 +41,19 @@ public final class Scheduler implements TaskExecutor {
 
     protected final Executor mExecutor = Executors.newWorkStealingPool();
     protected final Queue<Task> mQueue = new PriorityQueue<>();
-    protected final Queue<Task> mDirtyQueue = new ArrayDeque<>();
+    protected final Queue<Task> mDirtyQueue = new ConcurrentLinkedQueue<>();
     protected final AtomicBoolean mActive = new AtomicBoolean(false);
     protected final AtomicBoolean mOverloaded = new AtomicBoolean(false);
+    protected final List<Runnable> mTickStartListeners = new CopyOnWriteArrayList<>();
+    protected final List<Runnable> mTickListeners = new CopyOnWriteArrayList<>();
     protected final long mStartTime = System.currentTimeMillis();
     protected final long mDesiredTicks;
     protected long mLoopTickTime, mLoopFrameTime;
 
     /**
      * Default constructor for {@link Scheduler}.
+     *
+     * @param desiredTicks The amount of ticks per second the loop is paced at, or zero to run without pause.
      */
     public Scheduler(long desiredTicks) {
         this.mDesiredTicks = desiredTicks;
@@ -61,6 +70,42 @@ public final class Scheduler implements TaskExecutor {
         return task;
     }
 
+    /**
+     * Adds a listener that is executed (synchronously) at the start of every tick, before any task.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTickStartListener(Runnable listener) {
+        mTickStartListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener that is executed at the start of every tick.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeTickStartListener(Runnable listener) {
+        mTickStartListeners.remove(listener);
+    }
+
+    /**
+     * Adds a listener that is executed (synchronously) at the end of every tick.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTickListener(Runnable listener) {
+        mTickListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener that is executed at the end of every tick.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeTickListener(Runnable listener) {
+        mTickListeners.remove(listener);
+    }
+
     /**
      * Starts the scheduler
      */
@@ -71,8 +116,15 @@ public final class Scheduler implements TaskExecutor {
         mActive.set(true);
 
         final Queue<Task> defQueue = new ArrayDeque<>();
+        final long nTickPeriod = (mDesiredTicks > 0 ? TimeUnit.SECONDS.toNanos(1L) / mDesiredTicks : 0L);
+        long nNextTick = System.nanoTime();
         mLoopFrameTime = System.currentTimeMillis();
         do {
+            // Notify all listeners that the tick has started.
+            for (final Runnable listener : mTickStartListeners) {
+                listener.run();
+            }
+
             // Add all task that has been added into the executor with
             while (!mDirtyQueue.isEmpty()) {
                 final Task task = mDirtyQueue.poll();
@@ -103,13 +155,30 @@ public final class Scheduler implements TaskExecutor {
                 executeTaskIfNotDestroyOrRepeat(defQueue.poll());
             }
 
+            // Notify all listeners that the tick has ended.
+            for (final Runnable listener : mTickListeners) {
+                listener.run();
+            }
+
+            //! The loop is overloaded when it couldn't keep up with the desired ticks (one tick of slack,
+            //! since a window of a second doesn't always contain a whole number of ticks).
             final long current = System.currentTimeMillis();
+            mLoopTickTime++;
             if (current - mLoopFrameTime >= SECOND_AS_MILLISECOND) {
+                mOverloaded.set(mLoopTickTime + 1 < mDesiredTicks);
                 mLoopFrameTime = current;
                 mLoopTickTime = 0;
-                mOverloaded.set(mLoopTickTime < mDesiredTicks);
-            } else {
-                mLoopTickTime++;
+            }
+
+            // Sleep until the next tick is due, unless the loop is already behind.
+            if (nTickPeriod > 0) {
+                nNextTick += nTickPeriod;
+                final long nDelay = nNextTick - System.nanoTime();
+                if (nDelay > 0) {
+                    LockSupport.parkNanos(nDelay);
+                } else {
+                    nNextTick = System.nanoTime();
+                }
             }
         } while (mActive.get());
 
@@ -147,7 +216,7 @@ public final class Scheduler implements TaskExecutor {
      * Check if the executor is overloaded.
      */
     public boolean isOverloaded() {
-        return mActive.get();
+        return mActive.get() && mOverloaded.get();
     }
 
     /**
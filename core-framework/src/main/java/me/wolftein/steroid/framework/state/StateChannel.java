@@ -0,0 +1,127 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.state;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a channel that holds the latest value of each key, new subscribers receive the current
+ * value immediately and updates are conflated (a slow subscriber only receives the latest value).
+ */
+public final class StateChannel<K, V> {
+    private final Map<K, StateSlot<V>> mSlots = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the latest value of the given key (lock-free).
+     *
+     * @param key The key of the value.
+     *
+     * @return The latest value of the key or null if there isn't any.
+     */
+    public V get(K key) {
+        final StateSlot<V> nSlot = mSlots.get(key);
+        return (nSlot != null ? nSlot.mValue : null);
+    }
+
+    /**
+     * Publish a new value for the given key.
+     *
+     * @param key   The key of the value.
+     * @param value The new value of the key.
+     */
+    public void publish(K key, V value) {
+        final StateSlot<V> nSlot = getSlot(key);
+        nSlot.mValue = value;
+        for (final StateSubscription<V> subscription : nSlot.mSubscriptions) {
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Removes the value of the given key (Subscribers are not notified).
+     *
+     * @param key The key of the value.
+     */
+    public void remove(K key) {
+        final StateSlot<V> nSlot = mSlots.get(key);
+        if (nSlot != null) {
+            nSlot.mValue = null;
+        }
+    }
+
+    /**
+     * Removes the value of every key (Subscribers are not notified).
+     */
+    public void clear() {
+        mSlots.values().forEach(T -> T.mValue = null);
+    }
+
+    /**
+     * Subscribe for the values of the given key, the consumer is called on the publisher thread.
+     *
+     * @param key      The key of the values.
+     * @param consumer The consumer of the values.
+     *
+     * @return The subscription that has been created.
+     */
+    public StateSubscription<V> subscribe(K key, Consumer<V> consumer) {
+        return subscribe(key, consumer, Runnable::run);
+    }
+
+    /**
+     * Subscribe for the values of the given key, the consumer is called by the given executor.
+     *
+     * @param key      The key of the values.
+     * @param consumer The consumer of the values.
+     * @param executor The executor where to call the consumer.
+     *
+     * @return The subscription that has been created.
+     */
+    public StateSubscription<V> subscribe(K key, Consumer<V> consumer, Executor executor) {
+        final StateSlot<V> nSlot = getSlot(key);
+        final StateSubscription<V> nSubscription = new StateSubscription<>(nSlot, consumer, executor);
+        synchronized (nSlot) {
+            final StateSubscription<V>[] nSubscriptions
+                    = Arrays.copyOf(nSlot.mSubscriptions, nSlot.mSubscriptions.length + 1);
+            nSubscriptions[nSlot.mSubscriptions.length] = nSubscription;
+            nSlot.mSubscriptions = nSubscriptions;
+        }
+
+        // Push the current value (if any) to the new subscriber.
+        if (nSlot.mValue != null) {
+            nSubscription.schedule();
+        }
+        return nSubscription;
+    }
+
+    /**
+     * Retrieves (or create) the slot of the given key.
+     *
+     * @param key The key of the slot.
+     *
+     * @return The slot of the given key.
+     */
+    private StateSlot<V> getSlot(K key) {
+        final StateSlot<V> nSlot = mSlots.get(key);
+        return (nSlot != null ? nSlot : mSlots.computeIfAbsent(key, T -> new StateSlot<>()));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.state;
+
+import java.util.Arrays;
+
+/**
+ * Encapsulate the latest value of a single key of a {@link StateChannel} and its subscribers.
+ */
+final class StateSlot<V> {
+    /**
+     * An empty array shared by all slots.
+     */
+    private final static StateSubscription<?>[] EMPTY = new StateSubscription<?>[0];
+
+    /**
+     * The latest value of the slot.
+     */
+    protected volatile V mValue;
+
+    /**
+     * The subscribers of the slot (copied on write).
+     */
+    @SuppressWarnings("unchecked")
+    protected volatile StateSubscription<V>[] mSubscriptions = (StateSubscription<V>[]) EMPTY;
+
+    /**
+     * Removes a subscription from the slot.
+     *
+     * @param subscription The subscription to remove.
+     */
+    protected synchronized void remove(StateSubscription<V> subscription) {
+        final StateSubscription<V>[] nOld = mSubscriptions;
+        final StateSubscription<V>[] nSubscriptions = Arrays.copyOf(nOld, nOld.length);
+        int nCount = 0;
+        for (final StateSubscription<V> entry : nOld) {
+            if (entry != subscription) {
+                nSubscriptions[nCount++] = entry;
+            }
+        }
+        mSubscriptions = Arrays.copyOf(nSubscriptions, nCount);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.framework.state;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a subscription to a single key of a {@link StateChannel}.
+ */
+public final class StateSubscription<V> {
+    private final StateSlot<V> mSlot;
+    private final Consumer<V> mConsumer;
+    private final Executor mExecutor;
+    private final AtomicBoolean mScheduled = new AtomicBoolean(false);
+    private volatile boolean mCancelled;
+
+    /**
+     * Default constructor for {@link StateSubscription}.
+     */
+    protected StateSubscription(StateSlot<V> slot, Consumer<V> consumer, Executor executor) {
+        this.mSlot = slot;
+        this.mConsumer = consumer;
+        this.mExecutor = executor;
+    }
+
+    /**
+     * Cancel the subscription.
+     */
+    public void cancel() {
+        mCancelled = true;
+        mSlot.remove(this);
+    }
+
+    /**
+     * Check if the subscription has been cancelled.
+     *
+     * @return True if the subscription has been cancelled, false otherwise.
+     */
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Schedule the delivery of the latest value, unless there is a delivery already scheduled.
+     */
+    protected void schedule() {
+        if (mScheduled.compareAndSet(false, true)) {
+            mExecutor.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Deliver the latest value to the consumer.
+     */
+    private void deliver() {
+        // NOTE: Clear the flag before reading, so an update published meanwhile schedules another delivery.
+        mScheduled.set(false);
+
+        final V nValue = mSlot.mValue;
+        if (!mCancelled && nValue != null) {
+            mConsumer.accept(nValue);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import com.gs.collections.api.map.primitive.MutableIntObjectMap;
+import com.gs.collections.impl.factory.primitive.IntObjectMaps;
+import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.EventManager;
+import me.wolftein.steroid.framework.event.EventPriority;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Encapsulate a benchmark of the synchronous dispatch of {@link EventManager}, which resolves the listeners of
+ * an event through the dense identifier of its type.
+ * <br/>
+ * A few types of event are registered (one consumer each), and the same instances are dispatched over and
+ * over so only the dispatch itself is measured.
+ * <br/>
+ * The lookup is also measured against the baseline (the hash code of the class of the event probed into an
+ * {@link MutableIntObjectMap}), with both dispatchers calling the very same consumers.
+ * <br/>
+ * Usage: <code>EventDispatchBenchmark [invocations] [types]</code>
+ */
+public final class EventDispatchBenchmark {
+    /**
+     * Define how many times every measure is repeated.
+     */
+    private final static int ROUNDS = 5;
+
+    /**
+     * Encapsulate the types of event being dispatched.
+     */
+    private final static class EventA extends Event {
+        private EventA() {
+            super(false);
+        }
+    }
+
+    private final static class EventB extends Event {
+        private EventB() {
+            super(false);
+        }
+    }
+
+    private final static class EventC extends Event {
+        private EventC() {
+            super(false);
+        }
+    }
+
+    private final static class EventD extends Event {
+        private EventD() {
+            super(false);
+        }
+    }
+
+    /**
+     * The number of times any consumer has been called (so the consumers are never optimised away).
+     */
+    private static long sCount;
+
+    /**
+     * The entry of the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nInvocations = (args.length > 0 ? Integer.parseInt(args[0]) : 30_000_000);
+        final int nTypes = Math.max(1, Math.min(4, (args.length > 1 ? Integer.parseInt(args[1]) : 3)));
+
+        final EventManager nManager = new EventManager(new Scheduler(60L));
+        final Event[] nEvents = new Event[]{new EventA(), new EventB(), new EventC(), new EventD()};
+        nManager.registerEvent(null, EventA.class, T -> sCount++, EventPriority.NORMAL);
+        nManager.registerEvent(null, EventB.class, T -> sCount++, EventPriority.NORMAL);
+        nManager.registerEvent(null, EventC.class, T -> sCount++, EventPriority.NORMAL);
+        nManager.registerEvent(null, EventD.class, T -> sCount++, EventPriority.NORMAL);
+
+        // Warm up.
+        run(nManager, nEvents, nTypes, nInvocations / 10);
+
+        System.out.printf("%d invocation(s) of invokeEvent over %d type(s)%n", nInvocations, nTypes);
+        for (int i = 0; i < ROUNDS; i++) {
+            final long nStart = System.nanoTime();
+            run(nManager, nEvents, nTypes, nInvocations);
+            final long nTime = System.nanoTime() - nStart;
+            System.out.printf("round %d: %.1f ns/op%n", i + 1, (double) nTime / nInvocations);
+        }
+        if (sCount != (long) nInvocations * ROUNDS + nInvocations / 10) {
+            throw new IllegalStateException("Unexpected number of calls: " + sCount);
+        }
+
+        // Both lookups resolve the same consumers, so only the lookup itself differs.
+        final int nLength = Arrays.stream(nEvents).mapToInt(Event::getType).max().getAsInt() + 1;
+        @SuppressWarnings("unchecked")
+        final Consumer<Event>[][] nDense = (Consumer<Event>[][]) new Consumer<?>[nLength][];
+        final MutableIntObjectMap<Consumer<Event>[]> nHashed = IntObjectMaps.mutable.empty();
+        for (final Event event : nEvents) {
+            @SuppressWarnings("unchecked")
+            final Consumer<Event>[] nConsumers = (Consumer<Event>[]) new Consumer<?>[]{T -> sCount++};
+            nDense[event.getType()] = nConsumers;
+            nHashed.put(event.getClass().hashCode(), nConsumers);
+        }
+
+        // Warm up.
+        runDense(nDense, nEvents, nTypes, nInvocations / 10);
+        runHashed(nHashed, nEvents, nTypes, nInvocations / 10);
+
+        System.out.printf("%d lookup(s) of dense identifier versus baseline over %d type(s)%n", nInvocations, nTypes);
+        for (int i = 0; i < ROUNDS; i++) {
+            long nStart = System.nanoTime();
+            runDense(nDense, nEvents, nTypes, nInvocations);
+            final long nDenseTime = System.nanoTime() - nStart;
+
+            nStart = System.nanoTime();
+            runHashed(nHashed, nEvents, nTypes, nInvocations);
+            final long nHashedTime = System.nanoTime() - nStart;
+            System.out.printf("round %d: dense %.1f ns/op, baseline %.1f ns/op%n", i + 1,
+                    (double) nDenseTime / nInvocations, (double) nHashedTime / nInvocations);
+        }
+    }
+
+    /**
+     * Dispatch the given events in turn, resolving their consumers by the dense identifier of their type.
+     */
+    private static void runDense(Consumer<Event>[][] consumers, Event[] events, int types, int invocations) {
+        for (int i = 0, j = 0; i < invocations; i++) {
+            final Event nEvent = events[j];
+            final int nType = nEvent.getType();
+            final Consumer<Event>[] nConsumers = (nType < consumers.length ? consumers[nType] : null);
+            if (nConsumers != null) {
+                execute(nConsumers, nEvent);
+            }
+            if (++j == types) {
+                j = 0;
+            }
+        }
+    }
+
+    /**
+     * Dispatch the given events in turn, resolving their consumers by the hash code of their class (baseline).
+     */
+    private static void runHashed(MutableIntObjectMap<Consumer<Event>[]> consumers, Event[] events, int types,
+                                  int invocations) {
+        for (int i = 0, j = 0; i < invocations; i++) {
+            final Event nEvent = events[j];
+            final Consumer<Event>[] nConsumers = consumers.get(nEvent.getClass().hashCode());
+            if (nConsumers != null) {
+                execute(nConsumers, nEvent);
+            }
+            if (++j == types) {
+                j = 0;
+            }
+        }
+    }
+
+    /**
+     * Execute the given consumers for an event.
+     */
+    private static void execute(Consumer<Event>[] consumers, Event event) {
+        for (final Consumer<Event> consumer : consumers) {
+            if (!event.isCancelled()) {
+                consumer.accept(event);
+            }
+        }
+    }
+
+    /**
+     * Dispatch the given events in turn.
+     */
+    private static void run(EventManager manager, Event[] events, int types, int invocations) {
+        for (int i = 0, j = 0; i < invocations; i++) {
+            manager.invokeEvent(events[j]);
+            if (++j == types) {
+                j = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import me.wolftein.steroid.framework.Application;
+import me.wolftein.steroid.framework.protocol.MessageTemplate;
+import me.wolftein.steroid.framework.protocol.Session;
+import me.wolftein.steroid.framework.protocol.SessionFlushMode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate a benchmark of the outbound path of {@link Session} under every {@link SessionFlushMode}, against a
+ * local WebSocket server that counts the frames and the reads (roughly the TCP segments) it receives.
+ * <br/>
+ * Every tick of the game loop sends what a busy client does: a few POS and UITEM, and one ATKHECHI (which is
+ * always flushed immediately). Every flush is one write syscall.
+ * <br/>
+ * Usage: <code>FlushBenchmark [seconds] [port]</code>
+ */
+public final class FlushBenchmark {
+    private final static MessageTemplate MESSAGE_MOVE = new MessageTemplate("POS", "{\"direccion\":\"?\"}");
+    private final static MessageTemplate MESSAGE_USE = new MessageTemplate("UITEM", "{\"item\":\"?\"}");
+    private final static MessageTemplate MESSAGE_SPELL
+            = new MessageTemplate("ATKHECHI", "{\"hechizo\":\"?\",\"pos\":{\"x\":?,\"y\":?}}", true);
+
+    /**
+     * Define the messages sent on every tick.
+     */
+    private final static int MOVES_PER_TICK = 11;
+    private final static int USES_PER_TICK = 4;
+    private final static int SPELLS_PER_TICK = 1;
+
+    /**
+     * The statistics of the server.
+     */
+    private final static LongAdder sFrames = new LongAdder();
+    private final static LongAdder sReads = new LongAdder();
+
+    /**
+     * The entry of the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nSeconds = (args.length > 0 ? Integer.parseInt(args[0]) : 2);
+        final int nPort = (args.length > 1 ? Integer.parseInt(args[1]) : 17669);
+
+        final EventLoopGroup nServerGroup = new NioEventLoopGroup(1);
+        final Channel nServer = new ServerBootstrap()
+                .group(nServerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new ChannelHandlerAdapter() {
+                                    @Override
+                                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                                        sReads.increment();
+                                        super.channelRead(ctx, msg);
+                                    }
+                                },
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(8192),
+                                new WebSocketServerProtocolHandler("/"),
+                                new SimpleChannelInboundHandler<TextWebSocketFrame>() {
+                                    @Override
+                                    protected void messageReceived(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+                                        sFrames.increment();
+                                    }
+                                });
+                    }
+                })
+                .bind(nPort).sync().channel();
+        try {
+            System.out.printf("%d tick(s)/s for %ds, %d POS + %d UITEM + %d ATKHECHI per tick%n",
+                    60, nSeconds, MOVES_PER_TICK, USES_PER_TICK, SPELLS_PER_TICK);
+            for (final SessionFlushMode mode : SessionFlushMode.values()) {
+                run(mode, "ws://127.0.0.1:" + nPort + "/", nSeconds);
+            }
+        } finally {
+            nServer.close().sync();
+            nServerGroup.shutdownGracefully();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs the benchmark for the given mode.
+     */
+    private static void run(SessionFlushMode mode, String address, int seconds) throws Exception {
+        final Application nApplication = new Application();
+        final Session nSession = nApplication.getSession();
+        nSession.setFlushMode(mode);
+        if (!nSession.connect(address)) {
+            throw new IllegalStateException("Cannot connect to " + address);
+        }
+
+        // Messages are sent at the start of every tick, so a tick flush (at the end of the tick) coalesces them.
+        nApplication.getScheduler().addTickStartListener(() -> {
+            for (int i = 0; i < MOVES_PER_TICK; i++) {
+                nSession.send(MESSAGE_MOVE, 1 + (i & 3));
+            }
+            for (int i = 0; i < USES_PER_TICK; i++) {
+                nSession.send(MESSAGE_USE, i);
+            }
+            for (int i = 0; i < SPELLS_PER_TICK; i++) {
+                nSession.send(MESSAGE_SPELL, 7, 50, 50);
+            }
+        });
+
+        final Thread nLoop = new Thread(nApplication::start, "FlushBenchmark");
+        nLoop.start();
+        Thread.sleep(500L);
+
+        final long nFrames = sFrames.sum(), nReads = sReads.sum();
+        final long nWrites = nSession.getWriteCount(), nFlushes = nSession.getFlushCount();
+        final long nTime = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        final double nElapsed = (System.nanoTime() - nTime) / 1e9;
+        final long nFlushed = nSession.getFlushCount() - nFlushes;
+        final long nWritten = nSession.getWriteCount() - nWrites;
+
+        nApplication.stop();
+        nLoop.join();
+        nApplication.destroy();
+
+        System.out.printf("%-10s %6d write(s), %5d flush(es) (%4.0f/s, %.1f frame(s) each),"
+                        + " server %5d read(s) (%4.0f/s) for %d frame(s)%n",
+                mode, nWritten, nFlushed, nFlushed / nElapsed, (double) nWritten / Math.max(1L, nFlushed),
+                sReads.sum() - nReads, (sReads.sum() - nReads) / nElapsed, sFrames.sum() - nFrames);
+    }
+}
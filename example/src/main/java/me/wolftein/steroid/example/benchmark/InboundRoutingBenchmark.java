@@ -0,0 +1,244 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import com.eclipsesource.json.JsonObject;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import me.wolftein.steroid.framework.event.EventManager;
+import me.wolftein.steroid.framework.protocol.JsonReader;
+import me.wolftein.steroid.framework.protocol.Session;
+import me.wolftein.steroid.framework.protocol.SessionManager;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Encapsulate a benchmark of the inbound path of {@link Session} (routing on the function, then decoding the data
+ * of the frames that have listeners), against a local WebSocket server that replays a recorded mix of messages.
+ * <br/>
+ * The client asks for every batch of frames with a message whose function is the number of the pass.
+ * <br/>
+ * Every pass replays a part of the mix: the kinds nobody listens to, ACTPOS (read by a stream listener), SENDPJ
+ * (decoded into a tree) and the whole mix. The cost is the CPU time of the I/O thread of the client per frame,
+ * which includes reading the socket and the WebSocket framing.
+ * <br/>
+ * Usage: <code>InboundRoutingBenchmark [frames-per-pass] [port]</code>
+ */
+public final class InboundRoutingBenchmark {
+    /**
+     * The recorded messages, by kind.
+     */
+    private final static String MESSAGE_MOVE
+            = "{\"function\":\"ACTPOS\",\"data\":{\"id\":1042,\"x\":51,\"y\":48}}";
+    private final static String MESSAGE_HEALTH
+            = "{\"function\":\"UPDTHP\",\"data\":{\"hp\":312}}";
+    private final static String MESSAGE_CREATE
+            = "{\"function\":\"SENDPJ\",\"data\":{\"personaje\":{\"id\":1042,\"name\":\"Bot1042\","
+            + "\"pos\":{\"x\":51,\"y\":48},\"hp\":312,\"maxHp\":400,\"mana\":95,\"maxMana\":120,\"esAdmin\":0}}}";
+    private final static String[] MESSAGE_UNLISTENED = new String[]{
+            "{\"function\":\"UPDTEXP\",\"data\":{\"exp\":18420,\"nextExp\":25000,\"level\":14}}",
+            "{\"function\":\"PLAYSOUND\",\"data\":{\"sound\":\"hit\",\"pos\":{\"x\":50,\"y\":47}}}",
+            "{\"function\":\"ACTWEATHER\",\"data\":{\"rain\":false,\"night\":true,\"fog\":[1,4,9]}}",
+            "{\"function\":\"CHATMSG\",\"data\":{\"from\":\"Bot17\",\"text\":\"hola {a todos}\",\"color\":3}}",
+    };
+
+    /**
+     * The passes of the benchmark, each one a name and the messages that are replayed in turn.
+     */
+    private final static String[] PASS_NAME = new String[]{"unlistened", "ACTPOS (stream)", "SENDPJ (tree)", "mix"};
+    private final static String[][] PASS_MESSAGES = new String[][]{
+            MESSAGE_UNLISTENED,
+            {MESSAGE_MOVE},
+            {MESSAGE_CREATE},
+            {MESSAGE_MOVE, MESSAGE_HEALTH, MESSAGE_CREATE, MESSAGE_MOVE,
+                    MESSAGE_UNLISTENED[0], MESSAGE_UNLISTENED[1], MESSAGE_UNLISTENED[2], MESSAGE_UNLISTENED[3]},
+    };
+
+    /**
+     * Define how many frames the server writes for every request.
+     */
+    private final static int BATCH_SIZE = 16384;
+
+    /**
+     * The sum of every value read by the listeners (so the listeners are never optimised away).
+     */
+    private static volatile long sChecksum;
+
+    /**
+     * The entry of the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nFrames = (args.length > 0 ? Integer.parseInt(args[0]) : 400000);
+        final int nPort = (args.length > 1 ? Integer.parseInt(args[1]) : 17668);
+
+        final EventLoopGroup nServerGroup = new NioEventLoopGroup(1);
+        final Channel nServer = new ServerBootstrap()
+                .group(nServerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(8192),
+                                new WebSocketServerProtocolHandler("/"),
+                                new SimpleChannelInboundHandler<TextWebSocketFrame>() {
+                                    @Override
+                                    protected void messageReceived(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+                                        final String[] nMix = PASS_MESSAGES[Integer.parseInt(
+                                                JsonObject.readFrom(msg.text()).get("function").asString())];
+                                        for (int i = 0; i < BATCH_SIZE; i++) {
+                                            ctx.write(new TextWebSocketFrame(nMix[i % nMix.length]));
+                                        }
+                                        ctx.writeAndFlush(new TextWebSocketFrame("{\"function\":\"DONE\"}"));
+                                    }
+                                });
+                    }
+                })
+                .bind(nPort).sync().channel();
+
+        final SessionManager nManager = new SessionManager(1);
+        try {
+            run(nManager, "ws://127.0.0.1:" + nPort + "/", nFrames);
+        } finally {
+            nManager.shutdown();
+            nServer.close().sync();
+            nServerGroup.shutdownGracefully();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs every pass of the benchmark.
+     */
+    private static void run(SessionManager manager, String address, int frames) throws Exception {
+        final ThreadMXBean nThreads = ManagementFactory.getThreadMXBean();
+        final Session nSession = manager.create(new EventManager(new Scheduler(60L)));
+        final SynchronousQueue<Long> nDone = new SynchronousQueue<>();
+        nSession.addStreamListener("ACTPOS", InboundRoutingBenchmark::onMove);
+        nSession.addStreamListener("UPDTHP", InboundRoutingBenchmark::onHealth);
+        nSession.addListener("SENDPJ", InboundRoutingBenchmark::onCreate);
+        nSession.addListener("DONE", T -> {
+            try {
+                nDone.put(Thread.currentThread().getId());
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        if (!nSession.connect(address)) {
+            throw new IllegalStateException("Cannot connect to " + address);
+        }
+
+        // Warm up (and find the I/O thread of the session, where the listeners are called).
+        long nThread = 0L;
+        for (int i = 0; i < 20; i++) {
+            nSession.send(String.valueOf(i % PASS_MESSAGES.length));
+            nThread = nDone.take();
+        }
+
+        System.out.printf("%d frame(s) per pass, %d byte(s) per frame of the mix on average%n",
+                frames, getAverageLength(PASS_MESSAGES[PASS_MESSAGES.length - 1]));
+        for (int pass = 0; pass < PASS_MESSAGES.length; pass++) {
+            final int nBatches = Math.max(1, frames / BATCH_SIZE);
+            final long nCpu = nThreads.getThreadCpuTime(nThread);
+            final long nTime = System.nanoTime();
+            for (int i = 0; i < nBatches; i++) {
+                nSession.send(String.valueOf(pass));
+                nDone.take();
+            }
+            final long nFrames = (long) nBatches * BATCH_SIZE;
+            System.out.printf("%-16s %7.0f ns/frame (cpu of the I/O thread), %7.0f frames/s%n",
+                    PASS_NAME[pass],
+                    (double) (nThreads.getThreadCpuTime(nThread) - nCpu) / nFrames,
+                    nFrames * 1e9 / (System.nanoTime() - nTime));
+        }
+    }
+
+    /**
+     * Handle ACTPOS as the client does (See Controller).
+     */
+    private static void onMove(JsonReader reader) {
+        long nValue = 0L;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    nValue += reader.nextLong();
+                    break;
+                case "x":
+                case "y":
+                    nValue += reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        sChecksum += nValue;
+    }
+
+    /**
+     * Handle UPDTHP as the client does (See Controller).
+     */
+    private static void onHealth(JsonReader reader) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("hp")) {
+                sChecksum += reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Handle SENDPJ as the client does (See Controller).
+     */
+    private static void onCreate(JsonObject data) {
+        final JsonObject nCharacter = data.get("personaje").asObject();
+        sChecksum += nCharacter.get("id").asLong() + nCharacter.get("hp").asInt()
+                + nCharacter.get("name").asString().length();
+    }
+
+    /**
+     * Retrieves the average length of the given messages.
+     */
+    private static int getAverageLength(String[] messages) {
+        int nLength = 0;
+        for (final String message : messages) {
+            nLength += message.length();
+        }
+        return nLength / messages.length;
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import com.gs.collections.api.collection.ImmutableCollection;
+import com.gs.collections.impl.list.mutable.primitive.LongArrayList;
+import me.wolftein.steroid.framework.Application;
+import me.wolftein.steroid.framework.event.annotation.EventHandler;
+import me.wolftein.steroid.framework.protocol.SessionManager;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
+import me.wolftein.steroid.framework.scheduler.Task;
+import me.wolftein.steroid.framework.scheduler.TaskPriority;
+import me.wolftein.steroid.server.GameServer;
+import me.wolftein.steroid.world.Heading;
+import me.wolftein.steroid.world.WorldEntity;
+import me.wolftein.steroid.world.controller.Controller;
+import me.wolftein.steroid.world.event.EntityMoveEvent;
+import me.wolftein.steroid.world.event.PlayerErrorEvent;
+import me.wolftein.steroid.world.event.PlayerJoinEvent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encapsulate a load generator that runs any number of scripted bots (each one a whole {@link Controller}) in a
+ * single JVM, and reports the throughput, the end-to-end latency (from POS until the ACTPOS of the bot has been
+ * applied to its world), the CPU and memory used per bot, and the wire statistics of the first bot.
+ * <br/>
+ * The bots share a few game loops and I/O threads, so the report tells how many of them fit before either of them
+ * saturates. Unless an address is given, the bots play on embedded {@link GameServer}(s) of up to
+ * {@link #BOTS_PER_MAP} players each (the map of the client is fixed), whose CPU and memory are then included.
+ * <br/>
+ * Usage: <code>LoadGenerator [bots] [connects-per-second] [seconds] [wander|fight|chat|mixed] [address|local]
+ * [game-loops] [io-threads]</code>
+ */
+public final class LoadGenerator {
+    /**
+     * Define the behaviour of every bot.
+     */
+    private enum Behavior {
+        /**
+         * The bot walks around the map.
+         */
+        WANDER,
+
+        /**
+         * The bot throws spells to NPC(s), and drinks potions when running out of mana.
+         */
+        FIGHT,
+
+        /**
+         * The bot talks.
+         */
+        CHAT,
+
+        /**
+         * The bot walks most of the time, and sometimes fights or talks.
+         */
+        MIXED
+    }
+
+    private final static int BOTS_PER_MAP = 50;
+    private final static int NPCS_PER_MAP = 10;
+    private final static long ACTION_INTERVAL = 500L;
+    private final static long MOVE_TIMEOUT = TimeUnit.SECONDS.toNanos(5L);
+
+    private final ThreadMXBean mThreads = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean mMemory = ManagementFactory.getMemoryMXBean();
+    private final com.sun.management.OperatingSystemMXBean mSystem
+            = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private final List<Bot> mBots = new ArrayList<>();
+    private final List<Scheduler> mLoops = new ArrayList<>();
+    private final List<Thread> mLoopThreads = new ArrayList<>();
+    private final List<GameServer> mServers = new ArrayList<>();
+    private final LongAdder mLogged = new LongAdder();
+    private final LongAdder mErrors = new LongAdder();
+    private final LongAdder mActions = new LongAdder();
+    private final LongAdder mMoves = new LongAdder();
+    private final LongAdder mLost = new LongAdder();
+    private final LongArrayList mLogins = new LongArrayList();
+    private final Behavior mBehavior;
+    private final long mStartTime = System.nanoTime();
+
+    /**
+     * The entry of the load generator.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nAvailable = Runtime.getRuntime().availableProcessors();
+        final int nBots = (args.length > 0 ? Integer.parseInt(args[0]) : 200);
+        final int nRamp = (args.length > 1 ? Integer.parseInt(args[1]) : 50);
+        final int nSeconds = (args.length > 2 ? Integer.parseInt(args[2]) : 30);
+        final Behavior nBehavior = (args.length > 3 ? Behavior.valueOf(args[3].toUpperCase()) : Behavior.MIXED);
+        final String nAddress = (args.length > 4 ? args[4] : "local");
+        final int nLoops = (args.length > 5 ? Integer.parseInt(args[5]) : nAvailable);
+        final int nThreads = (args.length > 6 ? Integer.parseInt(args[6]) : nAvailable);
+
+        new LoadGenerator(nBehavior).run(nBots, nRamp, nSeconds, nAddress, nLoops, nThreads);
+        System.exit(0);
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param behavior The behaviour of every bot.
+     */
+    private LoadGenerator(Behavior behavior) {
+        this.mBehavior = behavior;
+    }
+
+    /**
+     * Runs the load, ramping up the bots and reporting every second.
+     */
+    private void run(int bots, int ramp, int seconds, String address, int loops, int threads) throws Exception {
+        final boolean isLocal = address.equals("local");
+        for (int i = 0, j = (isLocal ? (bots + BOTS_PER_MAP - 1) / BOTS_PER_MAP : 0); i < j; i++) {
+            final GameServer nServer = new GameServer(0);
+            nServer.setPopulation(NPCS_PER_MAP, 1L, TimeUnit.SECONDS);
+            nServer.start();
+            mServers.add(nServer);
+        }
+        for (int i = 0; i < loops; i++) {
+            final Scheduler nLoop = new Scheduler(60L);
+            final Thread nThread = new Thread(nLoop::start, "load-loop-" + i);
+            nThread.setDaemon(true);
+            nThread.start();
+            mLoops.add(nLoop);
+            mLoopThreads.add(nThread);
+        }
+        System.out.printf("%d %s bot(s) against %s, %d connect(s)/s, %d game loop(s), %d I/O thread(s)%n",
+                bots, mBehavior, (isLocal ? mServers.size() + " local map(s)" : address), ramp, loops, threads);
+
+        final long nHeap = getHeapAfterCollection();
+        final SessionManager nManager = new SessionManager(threads);
+
+        // Ramp up the bots, while reporting every second.
+        final long nStart = System.nanoTime();
+        final long nEnd = nStart + TimeUnit.SECONDS.toNanos(seconds);
+        long nReport = nStart + TimeUnit.SECONDS.toNanos(1L);
+        long nSteady = 0L, nSteadyCpu = 0L, nSteadyMoves = 0L;
+        final LongArrayList nSamples = new LongArrayList();
+        final LongArrayList nSteadySamples = new LongArrayList();
+        Snapshot nLast = new Snapshot();
+
+        while (System.nanoTime() < nEnd) {
+            final long nNow = System.nanoTime();
+            while (mBots.size() < bots && mBots.size() < (nNow - nStart) * ramp / TimeUnit.SECONDS.toNanos(1L) + 1) {
+                final int nIndex = mBots.size();
+                final Bot nBot = new Bot(nManager, mLoops.get(nIndex % loops), "bot" + nIndex);
+                if (nIndex == 0) {
+                    //! A single bot is enough to sample the wire, without adding its cost to every bot.
+                    nBot.mApplication.getSession().enableMetrics();
+                }
+                mBots.add(nBot);
+                nBot.start(isLocal ? mServers.get(nIndex / BOTS_PER_MAP).getAddress() : address);
+            }
+            if (nNow >= nReport) {
+                nReport += TimeUnit.SECONDS.toNanos(1L);
+
+                nSamples.clear();
+                for (final Bot bot : mBots) {
+                    bot.drain(nSamples);
+                }
+                final Snapshot nSnapshot = new Snapshot();
+                report(nSnapshot, nLast, nManager, nSamples);
+
+                // The steady phase starts once every bot has logged in.
+                if (nSteady == 0L && mLogged.sum() >= bots) {
+                    nSteady = nSnapshot.mTime;
+                    nSteadyCpu = nSnapshot.mCpu;
+                    nSteadyMoves = nSnapshot.mMoves;
+                } else if (nSteady != 0L) {
+                    nSteadySamples.addAll(nSamples);
+                }
+                nLast = nSnapshot;
+            }
+            Thread.sleep(5L);
+        }
+
+        // Summary of the steady phase.
+        final long nMemory = (getHeapAfterCollection() - nHeap) / Math.max(1, mBots.size());
+        System.out.printf("logins: %d of %d, %d error(s), p50 %.1fms p99 %.1fms%n",
+                mLogged.sum(), bots, mErrors.sum(), getPercentile(mLogins, 0.5), getPercentile(mLogins, 0.99));
+        if (nSteady == 0L) {
+            System.out.println("not every bot has logged in, no steady phase to summarize");
+        } else {
+            final double nElapsed = (nLast.mTime - nSteady) / 1e9;
+            final double nCpu = (nLast.mCpu - nSteadyCpu) / 1e3 / nElapsed / bots;
+            System.out.printf("steady %.0fs: %.0f move(s)/s, %d lost, move p50 %.1fms p99 %.1fms p99.9 %.1fms%n",
+                    nElapsed, (nLast.mMoves - nSteadyMoves) / nElapsed, mLost.sum(),
+                    getPercentile(nSteadySamples, 0.5),
+                    getPercentile(nSteadySamples, 0.99),
+                    getPercentile(nSteadySamples, 0.999));
+            System.out.printf("per bot: %.0fus cpu/s (%.3f%% of a core), %d bytes of heap%s%n",
+                    nCpu, nCpu / 1e4, nMemory, (isLocal ? " (including the local server)" : ""));
+        }
+
+        if (!mBots.isEmpty()) {
+            System.out.println("wire of " + mBots.get(0).mName + ":");
+            mBots.get(0).mApplication.getSession().getMetrics().getSnapshot()
+                    .forEach(T -> System.out.println("  " + T));
+        }
+
+        for (final Bot bot : mBots) {
+            bot.mApplication.destroy();
+        }
+        for (final Scheduler loop : mLoops) {
+            loop.stop();
+        }
+        nManager.shutdown();
+        for (final GameServer server : mServers) {
+            server.stop();
+        }
+    }
+
+    /**
+     * Prints the report of the last second.
+     */
+    private void report(Snapshot snapshot, Snapshot last, SessionManager manager, LongArrayList samples) {
+        final double nElapsed = (snapshot.mTime - last.mTime) / 1e9;
+
+        long nLoopCpu = 0L;
+        int nOverloaded = 0;
+        for (int i = 0; i < mLoops.size(); i++) {
+            nLoopCpu += Math.max(0L, mThreads.getThreadCpuTime(mLoopThreads.get(i).getId()));
+            nOverloaded += (mLoops.get(i).isOverloaded() ? 1 : 0);
+        }
+        snapshot.mLoopCpu = nLoopCpu;
+
+        System.out.printf("%3ds bots %d/%d/%d (created/connected/logged), %.0f action(s)/s, %.0f move(s)/s, "
+                        + "move p50 %.1fms p99 %.1fms, cpu %.0f%%, game loops %.0f%% (%d overloaded)%n",
+                TimeUnit.NANOSECONDS.toSeconds(snapshot.mTime - mStartTime),
+                mBots.size(), manager.getConnectionCount(), mLogged.sum(),
+                (snapshot.mActions - last.mActions) / nElapsed,
+                (snapshot.mMoves - last.mMoves) / nElapsed,
+                getPercentile(samples, 0.5),
+                getPercentile(samples, 0.99),
+                (snapshot.mCpu - last.mCpu) / 1e7 / nElapsed,
+                (snapshot.mLoopCpu - last.mLoopCpu) / 1e7 / nElapsed / mLoops.size(),
+                nOverloaded);
+    }
+
+    /**
+     * Retrieves the heap used after a (best effort) garbage collection.
+     */
+    private long getHeapAfterCollection() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100L);
+        }
+        return mMemory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Retrieves a percentile of the given samples (in nanoseconds) as milliseconds.
+     */
+    private static double getPercentile(LongArrayList samples, double percentile) {
+        if (samples.isEmpty()) {
+            return 0.0D;
+        }
+        final long[] nSorted = samples.toSortedArray();
+        return nSorted[Math.min(nSorted.length - 1, (int) (nSorted.length * percentile))] / 1e6;
+    }
+
+    /**
+     * Encapsulate the counters at a point in time.
+     */
+    private final class Snapshot {
+        private final long mTime = System.nanoTime();
+        private final long mCpu = mSystem.getProcessCpuTime();
+        private final long mActions = LoadGenerator.this.mActions.sum();
+        private final long mMoves = LoadGenerator.this.mMoves.sum();
+        private long mLoopCpu;
+    }
+
+    /**
+     * Encapsulate a scripted bot.
+     * <br/>
+     * NOTE: The actions of the bot run on its game loop, while its events may run on any thread.
+     */
+    final class Bot {
+        private final Application mApplication;
+        private final Controller mController;
+        private final String mName;
+        private final Random mRandom = new Random();
+        private final LongArrayList mSamples = new LongArrayList();
+        private volatile long mCharacter;
+        private volatile long mMoveTime;
+        private volatile long mLoginTime;
+        private Task mTask;
+
+        /**
+         * Default constructor.
+         */
+        private Bot(SessionManager manager, Scheduler loop, String name) {
+            this.mApplication = new Application(manager, loop);
+            this.mController = new Controller(mApplication, this);
+            this.mName = name;
+        }
+
+        /**
+         * Connects the bot and logs it in once connected.
+         */
+        private void start(String address) {
+            mLoginTime = System.nanoTime();
+            mController.connect(address).thenAccept(T -> {
+                if (T) {
+                    mController.authenticate(mName, mName);
+                }
+            });
+        }
+
+        /**
+         * Moves every latency sample recorded so far into the given list.
+         */
+        private synchronized void drain(LongArrayList samples) {
+            samples.addAll(mSamples);
+            mSamples.clear();
+        }
+
+        /**
+         * Handle {@link PlayerJoinEvent}.
+         */
+        @EventHandler
+        public void onPlayerJoinEvent(PlayerJoinEvent event) {
+            mCharacter = event.getEntity().getId();
+            mMoveTime = 0L;
+
+            synchronized (mLogins) {
+                mLogins.add(System.nanoTime() - mLoginTime);
+            }
+            mLogged.increment();
+
+            //! The script keeps running after reconnecting, since it does nothing while logged out.
+            mApplication.getScheduler().invokeTask(T -> {
+                if (mTask == null) {
+                    mTask = mApplication.getScheduler().invokeRepeatingTask(this::onAction, TaskPriority.NORMAL,
+                            mRandom.nextInt((int) ACTION_INTERVAL), ACTION_INTERVAL);
+                }
+            });
+        }
+
+        /**
+         * Handle {@link PlayerErrorEvent}.
+         */
+        @EventHandler
+        public void onPlayerErrorEvent(PlayerErrorEvent event) {
+            if (!event.isValid()) {
+                mErrors.increment();
+            }
+        }
+
+        /**
+         * Handle {@link EntityMoveEvent}.
+         */
+        @EventHandler
+        public void onEntityMoveEvent(EntityMoveEvent event) {
+            final long nTime = mMoveTime;
+            if (nTime != 0L && event.getEntity().getId() == mCharacter) {
+                mMoveTime = 0L;
+                synchronized (this) {
+                    mSamples.add(System.nanoTime() - nTime);
+                }
+                mMoves.increment();
+            }
+        }
+
+        /**
+         * Executes the next action of the script.
+         */
+        private void onAction(Task task) {
+            if (!mController.isLogged()) {
+                return;
+            }
+            final int nRoll = mRandom.nextInt(10);
+            switch (mBehavior) {
+                case WANDER:
+                    move();
+                    break;
+                case FIGHT:
+                    fight();
+                    break;
+                case CHAT:
+                    chat();
+                    break;
+                default:
+                    if (nRoll < 6) {
+                        move();
+                    } else if (nRoll < 9) {
+                        fight();
+                    } else {
+                        chat();
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * Moves the bot into a random direction, unless the last movement hasn't been acknowledged yet.
+         */
+        private void move() {
+            final long nTime = System.nanoTime();
+            final long nLast = mMoveTime;
+            if (nLast != 0L) {
+                if (nTime - nLast < MOVE_TIMEOUT) {
+                    return;
+                }
+                mLost.increment();
+            }
+
+            //! The time is set before sending, since the acknowledge may arrive on any thread.
+            mMoveTime = nTime;
+            final Heading[] nHeadings = Heading.values();
+            for (int i = 0, j = mRandom.nextInt(nHeadings.length); i < nHeadings.length; i++) {
+                if (mController.move(nHeadings[(i + j) % nHeadings.length])) {
+                    mActions.increment();
+                    return;
+                }
+            }
+            mMoveTime = 0L;
+        }
+
+        /**
+         * Throws a spell to a random NPC, or drinks a mana potion if there isn't enough mana.
+         */
+        private void fight() {
+            final WorldEntity nCharacter = mController.getWorld().getCharacter();
+            if (nCharacter.getManapoint() < nCharacter.getMaxManapoint() / 2) {
+                mController.use(2);
+            } else {
+                final ImmutableCollection<WorldEntity> nEntities = mController.getWorld().getEntitiesNotPlayer();
+                if (nEntities.isEmpty()) {
+                    return;
+                }
+                final WorldEntity nTarget = nEntities.toList().get(mRandom.nextInt(nEntities.size()));
+                mController.throwSpell(1, nTarget.getX(), nTarget.getY());
+            }
+            mActions.increment();
+        }
+
+        /**
+         * Says something.
+         */
+        private void chat() {
+            mController.say("Hello from " + mName);
+            mActions.increment();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import me.wolftein.steroid.framework.event.Event;
+import me.wolftein.steroid.framework.event.EventManager;
+import me.wolftein.steroid.framework.event.EventPriority;
+import me.wolftein.steroid.framework.event.EventRegistration;
+import me.wolftein.steroid.framework.event.annotation.EventHandler;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
+
+/**
+ * Encapsulate a benchmark of {@link EventManager#registerEvents(Object)}, comparing the {@link EventRegistration}
+ * generated at compile time against the registration by reflection.
+ * <br/>
+ * Both listeners declare the same handlers, but those of {@link ReflectiveListener} are private so no registration
+ * is generated for it (the compiler warns about them on purpose). Three things are measured for each listener:
+ * the first registration of the type (cold start), every further registration and the dispatch to its handlers.
+ * <br/>
+ * NOTE: The cold start is only meaningful on a fresh JVM, hence it is measured once.
+ * <br/>
+ * Usage: <code>RegistrationBenchmark [registrations] [invocations]</code>
+ */
+public final class RegistrationBenchmark {
+    /**
+     * Define how many times every measure is repeated.
+     */
+    private final static int ROUNDS = 5;
+
+    /**
+     * Define how many listeners are registered into the same manager.
+     */
+    private final static int LISTENERS_PER_MANAGER = 16;
+
+    /**
+     * Encapsulate the types of event being handled.
+     */
+    final static class EventA extends Event {
+        EventA() {
+            super(false);
+        }
+    }
+
+    final static class EventB extends Event {
+        EventB() {
+            super(false);
+        }
+    }
+
+    final static class EventC extends Event {
+        EventC() {
+            super(false);
+        }
+    }
+
+    final static class EventD extends Event {
+        EventD() {
+            super(false);
+        }
+    }
+
+    /**
+     * Encapsulate the listener registered by its generated registration.
+     */
+    final static class GeneratedListener {
+        @EventHandler
+        void onA(EventA event) {
+            sCount++;
+        }
+
+        @EventHandler
+        void onB(EventB event) {
+            sCount++;
+        }
+
+        @EventHandler
+        void onC(EventC event) {
+            sCount++;
+        }
+
+        @EventHandler
+        void onD(EventD event) {
+            sCount++;
+        }
+    }
+
+    /**
+     * Encapsulate the listener registered by reflection.
+     */
+    final static class ReflectiveListener {
+        @EventHandler
+        private void onA(EventA event) {
+            sCount++;
+        }
+
+        @EventHandler
+        private void onB(EventB event) {
+            sCount++;
+        }
+
+        @EventHandler
+        private void onC(EventC event) {
+            sCount++;
+        }
+
+        @EventHandler
+        private void onD(EventD event) {
+            sCount++;
+        }
+    }
+
+    /**
+     * The number of times any handler has been called (so the handlers are never optimised away).
+     */
+    private static long sCount;
+
+    /**
+     * The entry of the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nRegistrations = (args.length > 0 ? Integer.parseInt(args[0]) : 20_000);
+        final int nInvocations = (args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000);
+
+        // The framework itself is loaded before measuring, so only the cost of each listener type is measured.
+        new EventManager(new Scheduler(60L)).registerEvent(null, EventA.class, T -> sCount++, EventPriority.NORMAL);
+
+        System.out.println("cold start (first registration of the type)");
+        System.out.printf("  generated:  %.1f us%n", register(new GeneratedListener()) / 1000.0);
+        System.out.printf("  reflection: %.1f us%n", register(new ReflectiveListener()) / 1000.0);
+
+        System.out.printf("%d registration(s) of each listener%n", nRegistrations);
+        for (int i = 0; i < ROUNDS; i++) {
+            final long nGenerated = registerAll(true, nRegistrations);
+            final long nReflection = registerAll(false, nRegistrations);
+            System.out.printf("round %d: generated %.1f ns/op, reflection %.1f ns/op%n", i + 1,
+                    (double) nGenerated / nRegistrations, (double) nReflection / nRegistrations);
+        }
+
+        final EventManager nGenerated = new EventManager(new Scheduler(60L));
+        nGenerated.registerEvents(new GeneratedListener());
+        final EventManager nReflection = new EventManager(new Scheduler(60L));
+        nReflection.registerEvents(new ReflectiveListener());
+        final Event[] nEvents = new Event[]{new EventA(), new EventB(), new EventC(), new EventD()};
+
+        // Warm up.
+        dispatch(nGenerated, nEvents, nInvocations / 10);
+        dispatch(nReflection, nEvents, nInvocations / 10);
+
+        System.out.printf("%d invocation(s) of invokeEvent on each listener%n", nInvocations);
+        for (int i = 0; i < ROUNDS; i++) {
+            final long nGeneratedTime = dispatch(nGenerated, nEvents, nInvocations);
+            final long nReflectionTime = dispatch(nReflection, nEvents, nInvocations);
+            System.out.printf("round %d: generated %.1f ns/op, reflection %.1f ns/op%n", i + 1,
+                    (double) nGeneratedTime / nInvocations, (double) nReflectionTime / nInvocations);
+        }
+    }
+
+    /**
+     * Register a listener into a new manager.
+     *
+     * @return The time (in nanoseconds) of the registration.
+     */
+    private static long register(Object listener) {
+        final EventManager nManager = new EventManager(new Scheduler(60L));
+        final long nStart = System.nanoTime();
+        nManager.registerEvents(listener);
+        return System.nanoTime() - nStart;
+    }
+
+    /**
+     * Register the given amount of listeners of the same type.
+     * <br/>
+     * NOTE: Every manager only holds a few listeners, otherwise the copy of its executors would be measured.
+     *
+     * @return The time (in nanoseconds) of every registration.
+     */
+    private static long registerAll(boolean isGenerated, int registrations) {
+        final Scheduler nScheduler = new Scheduler(60L);
+        final EventManager[] nManagers = new EventManager[(registrations + LISTENERS_PER_MANAGER - 1)
+                / LISTENERS_PER_MANAGER];
+        for (int i = 0; i < nManagers.length; i++) {
+            nManagers[i] = new EventManager(nScheduler);
+        }
+
+        final long nStart = System.nanoTime();
+        for (int i = 0; i < registrations; i++) {
+            nManagers[i / LISTENERS_PER_MANAGER].registerEvents(
+                    isGenerated ? new GeneratedListener() : new ReflectiveListener());
+        }
+        return System.nanoTime() - nStart;
+    }
+
+    /**
+     * Dispatch the given events in turn.
+     *
+     * @return The time (in nanoseconds) of every dispatch.
+     */
+    private static long dispatch(EventManager manager, Event[] events, int invocations) {
+        final long nStart = System.nanoTime();
+        for (int i = 0; i < invocations; i++) {
+            manager.invokeEvent(events[i & 3]);
+        }
+        return System.nanoTime() - nStart;
+    }
+}
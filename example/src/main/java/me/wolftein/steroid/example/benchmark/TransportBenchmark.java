@@ -0,0 +1,142 @@
+/*
+ * This file is part of jAoW (On Steroids), licensed under the Apache 2.0 License.
+ *
+ * Copyright (c) 2014 Agustin Alvarez <wolftein1@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.wolftein.steroid.example.benchmark;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import me.wolftein.steroid.framework.event.EventManager;
+import me.wolftein.steroid.framework.protocol.MessageTemplate;
+import me.wolftein.steroid.framework.protocol.Session;
+import me.wolftein.steroid.framework.protocol.SessionManager;
+import me.wolftein.steroid.framework.protocol.SessionTransport;
+import me.wolftein.steroid.framework.scheduler.Scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Encapsulate a benchmark that compares the round-trip latency and CPU of every available
+ * {@link SessionTransport}, against a local WebSocket server that answers every POS with an ACTPOS.
+ * <br/>
+ * Usage: <code>TransportBenchmark [round-trips] [port]</code>
+ */
+public final class TransportBenchmark {
+    private final static MessageTemplate MESSAGE_MOVE = new MessageTemplate("POS", "{\"direccion\":\"?\"}");
+    private final static String MESSAGE_REPLY = "{\"function\":\"ACTPOS\",\"data\":{\"id\":\"1\",\"x\":50,\"y\":50}}";
+
+    /**
+     * The entry of the benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        final int nRoundTrips = (args.length > 0 ? Integer.parseInt(args[0]) : 50000);
+        final int nPort = (args.length > 1 ? Integer.parseInt(args[1]) : 17667);
+
+        // The server always runs on NIO, so only the transport of the client differs.
+        final EventLoopGroup nServerGroup = new NioEventLoopGroup(1);
+        final Channel nServer = new ServerBootstrap()
+                .group(nServerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(8192),
+                                new WebSocketServerProtocolHandler("/"),
+                                new SimpleChannelInboundHandler<TextWebSocketFrame>() {
+                                    @Override
+                                    protected void messageReceived(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+                                        ctx.writeAndFlush(new TextWebSocketFrame(MESSAGE_REPLY));
+                                    }
+                                });
+                    }
+                })
+                .bind(nPort).sync().channel();
+        try {
+            for (final SessionTransport transport : SessionTransport.values()) {
+                if (transport.isAvailable()) {
+                    run(transport, "ws://127.0.0.1:" + nPort + "/", nRoundTrips);
+                } else {
+                    System.out.println(transport + ": not available on this platform");
+                }
+            }
+        } finally {
+            nServer.close().sync();
+            nServerGroup.shutdownGracefully();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs the benchmark for the given transport.
+     */
+    private static void run(SessionTransport transport, String address, int roundTrips) throws Exception {
+        final com.sun.management.OperatingSystemMXBean nSystem
+                = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        final SessionManager nManager = new SessionManager(1, transport);
+        final Session nSession = nManager.create(new EventManager(new Scheduler(60L)));
+        final SynchronousQueue<Long> nReplies = new SynchronousQueue<>();
+        nSession.addStreamListener("ACTPOS", T -> {
+            try {
+                nReplies.put(System.nanoTime());
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        if (!nSession.connect(address)) {
+            throw new IllegalStateException("Cannot connect to " + address);
+        }
+
+        // Warm up.
+        for (int i = 0; i < roundTrips / 10; i++) {
+            nSession.send(MESSAGE_MOVE, 1);
+            nReplies.take();
+        }
+
+        final long[] nLatency = new long[roundTrips];
+        final long nTime = nSystem.getProcessCpuTime();
+        for (int i = 0; i < roundTrips; i++) {
+            final long nStart = System.nanoTime();
+            nSession.send(MESSAGE_MOVE, 1);
+            nLatency[i] = nReplies.take() - nStart;
+        }
+        final long nCpu = nSystem.getProcessCpuTime() - nTime;
+        nManager.shutdown();
+
+        Arrays.sort(nLatency);
+        System.out.printf("%-5s round-trip p50 %.1fus p99 %.1fus p99.9 %.1fus max %.1fus, cpu %.1fus/round-trip%n",
+                transport,
+                nLatency[roundTrips / 2] / 1e3,
+                nLatency[(int) (roundTrips * 0.99)] / 1e3,
+                nLatency[(int) (roundTrips * 0.999)] / 1e3,
+                nLatency[roundTrips - 1] / 1e3,
+                nCpu / 1e3 / roundTrips);
+    }
+}